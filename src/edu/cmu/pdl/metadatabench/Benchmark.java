@@ -51,9 +51,6 @@ public class Benchmark {
 	private static final String OPT_CONFIG = "config";
 	private static final String OPT_HELP = "help";
 	
-	/* Time to wait between given events */
-	private static final int SLEEP_TIME = 2000;
-	
 	/**
 	 * Used for sorting the command line parameters, when they are listed on the 
 	 * command line parameter help page.
@@ -152,23 +149,15 @@ public class Benchmark {
 				
 				cluster.joinAsMaster();
 				
-				try {
-					log.debug("Going to sleep for {} ms after joining cluster.", SLEEP_TIME);
-					Thread.sleep(SLEEP_TIME);
-				} catch (InterruptedException e) {
-					log.warn("Thread interrupted while sleeping", e);
-				}
-				
 				log.info("Waiting for all members to join the cluster.");
 
-				// MASTERS-1, because the current node is also a master and it has not yet indicated that it has joined the cluster
-				while(!cluster.allMembersJoined(MASTERS-1, numberOfSlaves)){
-					try {
-						log.debug("Going to sleep for {} ms while waiting for all memebers to join the cluster.", SLEEP_TIME);
-						Thread.sleep(SLEEP_TIME);
-					} catch (InterruptedException e) {
-						log.warn("Thread interrupted while sleeping", e);
-					}
+				try {
+					// MASTERS-1, because the current node is also a master and it has not yet indicated that it has joined the cluster
+					cluster.awaitAllMembersJoined(MASTERS-1, numberOfSlaves);
+				} catch (InterruptedException e) {
+					log.error("Thread interrupted while waiting for all members to join the cluster", e);
+					cluster.stop();
+					return;
 				}
 				
 				log.info("All members joined the cluster. Starting the generation.");
@@ -0,0 +1,57 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Base class of the namespace maps that store the whole path of each directory and file. The operations
+ * relative to a parent directory are implemented by reading the path of the parent and storing the
+ * resulting path.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public abstract class AbstractPathMapDAO implements INamespaceMapDAO {
+
+	private static final char PATH_SEPARATOR = Config.getPathSeparator();
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String createDir(long id, long parentId, boolean parentsParent, String name) {
+		String parentPath = getDir(parentId);
+		if(parentPath == null){
+			return null;
+		}
+		if(parentsParent){
+			int slashIdx = parentPath.lastIndexOf(PATH_SEPARATOR);
+			parentPath = parentPath.substring(0, slashIdx);
+		}
+		String path = parentPath + name;
+		createDir(id, path);
+		return path;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String createFile(long id, long parentId, String name) {
+		String parentPath = getDir(parentId);
+		if(parentPath == null){
+			return null;
+		}
+		String path = parentPath + name;
+		createFile(id, path);
+		return path;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void moveFile(long id, long parentIdNew, String pathNew) {
+		renameFile(id, pathNew);
+	}
+
+}
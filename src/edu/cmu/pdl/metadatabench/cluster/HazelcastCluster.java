@@ -8,7 +8,10 @@ import com.hazelcast.config.Config;
 import com.hazelcast.core.AtomicNumber;
 import com.hazelcast.core.Hazelcast;
 import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
 import com.hazelcast.core.Member;
+import com.hazelcast.core.Message;
+import com.hazelcast.core.MessageListener;
 
 /**
  * Provides methods for administration (e.g. start, stop, join, etc) of a Hazelcast cluster.
@@ -21,6 +24,8 @@ public class HazelcastCluster implements ICluster {
 
 	/** Singleton */
 	private static final HazelcastCluster instance = new HazelcastCluster();
+	/** The topic on which the members announce that they have finished the join process */
+	private static final String JOINED_TOPIC = "joined";
 	/**
 	 * Reference to the Hazelcast cluster instance.
 	 * Theoretically there could be multiple Hazelcast instances in a JVM, but we ignore this use-case here.
@@ -117,6 +122,7 @@ public class HazelcastCluster implements ICluster {
 	public void masterJoined() {
 		AtomicNumber masters = hazelcast.getAtomicNumber("masters");
 		masters.incrementAndGet();
+		hazelcast.<String>getTopic(JOINED_TOPIC).publish("master");
 	}
 
 	/**
@@ -126,6 +132,7 @@ public class HazelcastCluster implements ICluster {
 	public void slaveJoined() {
 		AtomicNumber slaves = hazelcast.getAtomicNumber("slaves");
 		slaves.incrementAndGet();
+		hazelcast.<String>getTopic(JOINED_TOPIC).publish("slave");
 	}
 	
 	/**
@@ -168,6 +175,43 @@ public class HazelcastCluster implements ICluster {
 		}
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The listener is registered before the first check, so an announcement cannot be missed.
+	 */
+	@Override
+	public void awaitAllMembersJoined(int masters, int slaves) throws InterruptedException {
+		final Object joined = new Object();
+		MessageListener<String> listener = new MessageListener<String>() {
+			@Override
+			public void onMessage(Message<String> message) {
+				synchronized(joined){
+					joined.notifyAll();
+				}
+			}
+		};
+		ITopic<String> topic = hazelcast.getTopic(JOINED_TOPIC);
+		topic.addMessageListener(listener);
+		try {
+			synchronized(joined){
+				while(!allMembersJoined(masters, slaves)){
+					joined.wait();
+				}
+			}
+		} finally {
+			topic.removeMessageListener(listener);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getClusterTime() {
+		return hazelcast.getCluster().getClusterTime();
+	}
+	
 	/**
 	 * Gets the reference to the Hazelcast instance
 	 * 
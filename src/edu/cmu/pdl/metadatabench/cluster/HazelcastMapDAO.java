@@ -1,5 +1,10 @@
 package edu.cmu.pdl.metadatabench.cluster;
 
+import java.util.HashMap;
+import java.util.Map;
+
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.IMap;
 
@@ -12,7 +17,7 @@ import com.hazelcast.core.IMap;
  * @author emil.rakadjiev
  *
  */
-public class HazelcastMapDAO implements INamespaceMapDAO {
+public class HazelcastMapDAO extends AbstractPathMapDAO {
 
 	private IMap<Long,String> dirMap;
 	private IMap<Long,String> fileMap;
@@ -36,6 +41,23 @@ public class HazelcastMapDAO implements INamespaceMapDAO {
 		fileMap = hazelcast.getMap(FILE_MAP_NAME);
 	}
 	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocalDirCreationListener(final IDirCreationListener listener) {
+		dirMap.addLocalEntryListener(new EntryAdapter<Long,String>(){
+			@Override
+			public void entryAdded(EntryEvent<Long,String> event) {
+				listener.dirCreated(event.getKey());
+			}
+			@Override
+			public void entryUpdated(EntryEvent<Long,String> event) {
+				listener.dirCreated(event.getKey());
+			}
+		});
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -68,6 +90,38 @@ public class HazelcastMapDAO implements INamespaceMapDAO {
 		return dirMap.size();
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createDirs(long[] ids, long[] parentIds, String[] paths, int size) {
+		dirMap.putAll(toMap(ids, paths, size));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createFiles(long[] ids, long[] parentIds, String[] paths, int size) {
+		fileMap.putAll(toMap(ids, paths, size));
+	}
+	
+	/**
+	 * Creates a map of ids and paths, which can be stored in the namespace maps in one step
+	 * 
+	 * @param ids The ids of the elements
+	 * @param paths The paths of the elements
+	 * @param size The number of elements in the arrays
+	 * @return The map of ids and paths
+	 */
+	private Map<Long,String> toMap(long[] ids, String[] paths, int size){
+		Map<Long,String> entries = new HashMap<Long,String>((int)(size / 0.75f) + 1);
+		for(int i = 0; i < size; i++){
+			entries.put(ids[i], paths[i]);
+		}
+		return entries;
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 */
@@ -60,4 +60,22 @@ public interface ICluster {
 	 */
 	public boolean allMembersJoined(int masters, int slaves);
 	
+	/**
+	 * Blocks until all expected members have joined this cluster. The check is repeated whenever a member 
+	 * indicates that it has finished the join process.
+	 * 
+	 * @param masters Number of masters that have to join this cluster
+	 * @param slaves Number of slaves that have to join this cluster
+	 * @throws InterruptedException If the current thread has been interrupted while waiting
+	 */
+	public void awaitAllMembersJoined(int masters, int slaves) throws InterruptedException;
+	
+	/**
+	 * Gets the cluster-wide time. Unlike the local time of a node, it is synchronized between the nodes, 
+	 * so it can be used to compare timestamps taken on different nodes.
+	 * 
+	 * @return The cluster time in milliseconds
+	 */
+	public long getClusterTime();
+	
 }
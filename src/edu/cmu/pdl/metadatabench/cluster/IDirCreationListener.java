@@ -0,0 +1,19 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+/**
+ * Listens for directories being stored in the part of the namespace map that is kept by the local node.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public interface IDirCreationListener {
+
+	/**
+	 * Called when a directory has been stored by the local node. It may be called by any thread, e.g. an event 
+	 * thread of the cluster, so it should return quickly.
+	 * 
+	 * @param id The id of the directory
+	 */
+	public void dirCreated(long id);
+	
+}
@@ -20,6 +20,17 @@ public interface INamespaceMapDAO {
 	 */
 	public void createDir(long id, String path);
 	
+	/**
+	 * Creates a directory entry in a parent directory
+	 * 
+	 * @param id The id of the directory
+	 * @param parentId The id of the parent directory
+	 * @param parentsParent If true, the directory is created in the parent of the given parent directory
+	 * @param name The name of the directory (including the leading path separator)
+	 * @return The path of the directory, or null if the parent directory does not exist (yet)
+	 */
+	public String createDir(long id, long parentId, boolean parentsParent, String name);
+	
 	/**
 	 * Get a directory path
 	 * 
@@ -50,6 +61,16 @@ public interface INamespaceMapDAO {
 	 */
 	public void createFile(long id, String path);
 	
+	/**
+	 * Creates a file entry in a parent directory
+	 * 
+	 * @param id The id of the file
+	 * @param parentId The id of the parent directory
+	 * @param name The name of the file (including the leading path separator)
+	 * @return The path of the file, or null if the parent directory does not exist (yet)
+	 */
+	public String createFile(long id, long parentId, String name);
+	
 	/**
 	 * Gets a file path
 	 * 
@@ -73,6 +94,15 @@ public interface INamespaceMapDAO {
 	 */
 	public void renameFile(long id, String pathNew);
 	
+	/**
+	 * Moves a file to another directory
+	 * 
+	 * @param id The id of the file
+	 * @param parentIdNew The id of the new parent directory
+	 * @param pathNew The new path of the file (in the new parent directory)
+	 */
+	public void moveFile(long id, long parentIdNew, String pathNew);
+	
 	/**
 	 * Gets the number of existing file entries.
 	 * 
@@ -80,4 +110,35 @@ public interface INamespaceMapDAO {
 	 */
 	public long getNumberOfFiles();
 	
+	/**
+	 * Stores a batch of directories, e.g. when an existing namespace is loaded. The batch is stored with fewer 
+	 * messages than the directories one by one.
+	 * 
+	 * @param ids The ids of the directories
+	 * @param parentIds The ids of the parent directories, 0 for directories whose parent is not part of the namespace
+	 * @param paths The paths of the directories
+	 * @param size The number of directories in the arrays
+	 */
+	public void createDirs(long[] ids, long[] parentIds, String[] paths, int size);
+	
+	/**
+	 * Stores a batch of files, e.g. when an existing namespace is loaded. The batch is stored with fewer 
+	 * messages than the files one by one.
+	 * 
+	 * @param ids The ids of the files
+	 * @param parentIds The ids of the parent directories
+	 * @param paths The paths of the files
+	 * @param size The number of files in the arrays
+	 */
+	public void createFiles(long[] ids, long[] parentIds, String[] paths, int size);
+	
+	/**
+	 * Registers a listener that is notified whenever a directory is stored by the local node. Because the 
+	 * namespace is partitioned by the ids of the elements, the listener is notified about the directories whose 
+	 * id is owned by the local node.
+	 * 
+	 * @param listener The listener to notify
+	 */
+	public void addLocalDirCreationListener(IDirCreationListener listener);
+	
 }
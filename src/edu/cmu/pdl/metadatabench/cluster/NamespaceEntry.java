@@ -0,0 +1,75 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.hazelcast.nio.DataSerializable;
+
+import edu.cmu.pdl.metadatabench.common.VarInt;
+
+/**
+ * An entry of the namespace stored by the {@link ParentPointerMapDAO}: the id of the parent directory and the
+ * name of the directory or file (including the leading path separator). The path of the element is the path
+ * of the parent directory followed by the name.
+ *
+ * Entries without a parent (e.g. the root directory of the benchmark) store their whole path as the name.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class NamespaceEntry implements DataSerializable {
+
+	/** The parent id of entries without a parent */
+	public static final long NO_PARENT = 0;
+
+	private long parentId;
+	private String name;
+
+	/**
+	 * Needed for deserialization
+	 */
+	public NamespaceEntry(){
+	}
+
+	/**
+	 * @param parentId The id of the parent directory, or NO_PARENT
+	 * @param name The name of the element, or its path if it has no parent
+	 */
+	public NamespaceEntry(long parentId, String name){
+		this.parentId = parentId;
+		this.name = name;
+	}
+
+	/**
+	 * Gets the id of the parent directory
+	 *
+	 * @return The id of the parent directory, or NO_PARENT
+	 */
+	public long getParentId() {
+		return parentId;
+	}
+
+	/**
+	 * Gets the name of the element (including the leading path separator)
+	 *
+	 * @return The name of the element, or its path if it has no parent
+	 */
+	public String getName() {
+		return name;
+	}
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		VarInt.writeVarLong(out, parentId);
+		out.writeUTF(name);
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		parentId = VarInt.readVarLong(in);
+		name = in.readUTF();
+	}
+
+}
@@ -0,0 +1,32 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import com.hazelcast.core.HazelcastInstance;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Creates the {@link INamespaceMapDAO} for the configured namespace store.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class NamespaceMapDAOFactory {
+
+	/**
+	 * Creates the DAO for the namespace store set in the config
+	 *
+	 * @param hazelcast The Hazelcast instance
+	 * @return The DAO used to access the namespace
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceStore()
+	 */
+	public static INamespaceMapDAO create(HazelcastInstance hazelcast){
+		if(Config.NAMESPACE_STORE_OFFHEAP.equals(Config.getNamespaceStore())){
+			return new OffHeapMapDAO(hazelcast);
+		} else if(Config.NAMESPACE_STORE_PARENT_POINTER.equals(Config.getNamespaceStore())){
+			return new ParentPointerMapDAO(hazelcast);
+		} else {
+			return new HazelcastMapDAO(hazelcast);
+		}
+	}
+
+}
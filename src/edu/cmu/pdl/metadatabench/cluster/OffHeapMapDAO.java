@@ -0,0 +1,352 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.DistributedTask;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.Member;
+import com.hazelcast.core.MultiTask;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceAccess;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceBulkPut;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceSize;
+
+/**
+ * Provides access to the namespace data, i.e. to directories and files generated by the benchmark, stored
+ * off-heap in the memory of the slaves.
+ *
+ * The namespace is partitioned in the same way as the Hazelcast maps used by {@link HazelcastMapDAO}: each entry
+ * is stored by the slave that owns the Hazelcast partition of its id. Since operations are dispatched to the
+ * owner of their target id, most accesses are local and go directly to the {@link OffHeapPathMap} of the node.
+ * Other entries (e.g. parent directories) are accessed by sending a {@link NamespaceAccess} task to their owner
+ * using a separate executor service, so that these accesses cannot be blocked by the operations waiting for them.
+ *
+ * Unlike Hazelcast maps, the off-heap maps have no backups and their entries are not migrated if the
+ * partitions are reassigned, so all the slaves have to join the cluster before the namespace is generated and
+ * no slave may leave the cluster during the benchmark.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class OffHeapMapDAO extends AbstractPathMapDAO {
+
+	/** The name of the executor service used to access the entries stored by other nodes */
+	private static final String EXECUTOR_SERVICE_NAME = "namespace";
+
+	private final PartitionService partitionService;
+	private final ExecutorService executorService;
+
+	private Logger log;
+
+	/**
+	 * The maps are created on first use, so that nodes that do not store namespace entries (e.g. the master)
+	 * do not allocate memory for them.
+	 */
+	private static class LocalMaps {
+		private static final OffHeapPathMap DIRS = new OffHeapPathMap();
+		private static final OffHeapPathMap FILES = new OffHeapPathMap();
+	}
+
+	/** The listeners notified when a directory is stored by this node */
+	private static final List<IDirCreationListener> dirCreationListeners = new CopyOnWriteArrayList<IDirCreationListener>();
+
+	/**
+	 * @param hazelcast The Hazelcast instance whose partitions determine the owners of the entries
+	 */
+	public OffHeapMapDAO(HazelcastInstance hazelcast){
+		this.partitionService = hazelcast.getPartitionService();
+		this.executorService = hazelcast.getExecutorService(EXECUTOR_SERVICE_NAME);
+		this.log = LoggerFactory.getLogger(OffHeapMapDAO.class);
+	}
+
+	/**
+	 * Gets the directories stored by this node
+	 *
+	 * @return The directories stored by this node
+	 */
+	public static OffHeapPathMap getLocalDirMap(){
+		return LocalMaps.DIRS;
+	}
+
+	/**
+	 * Gets the files stored by this node
+	 *
+	 * @return The files stored by this node
+	 */
+	public static OffHeapPathMap getLocalFileMap(){
+		return LocalMaps.FILES;
+	}
+
+	/**
+	 * Stores a directory in the local map and notifies the listeners
+	 *
+	 * @param id The id of the directory
+	 * @param path The path of the directory
+	 */
+	public static void putLocalDir(long id, String path){
+		getLocalDirMap().put(id, path);
+		for(IDirCreationListener listener : dirCreationListeners){
+			listener.dirCreated(id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocalDirCreationListener(IDirCreationListener listener) {
+		dirCreationListeners.add(listener);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createDir(long id, String path) {
+		if(isLocal(id)){
+			putLocalDir(id, path);
+		} else {
+			access(new NamespaceAccess(NamespaceAccess.PUT, true, id, path), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getDir(long id) {
+		if(isLocal(id)){
+			return getLocalDirMap().get(id);
+		} else {
+			return access(new NamespaceAccess(NamespaceAccess.GET, true, id, null), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void deleteDir(long id) {
+		if(isLocal(id)){
+			getLocalDirMap().remove(id);
+		} else {
+			access(new NamespaceAccess(NamespaceAccess.REMOVE, true, id, null), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfDirs() {
+		return count(true);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createFile(long id, String path) {
+		if(isLocal(id)){
+			getLocalFileMap().put(id, path);
+		} else {
+			access(new NamespaceAccess(NamespaceAccess.PUT, false, id, path), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFile(long id) {
+		if(isLocal(id)){
+			return getLocalFileMap().get(id);
+		} else {
+			return access(new NamespaceAccess(NamespaceAccess.GET, false, id, null), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void deleteFile(long id) {
+		if(isLocal(id)){
+			getLocalFileMap().remove(id);
+		} else {
+			access(new NamespaceAccess(NamespaceAccess.REMOVE, false, id, null), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void renameFile(long id, String pathNew){
+		if(isLocal(id)){
+			getLocalFileMap().replace(id, pathNew);
+		} else {
+			access(new NamespaceAccess(NamespaceAccess.REPLACE, false, id, pathNew), id);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfFiles() {
+		return count(false);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The directories are grouped by their owners, each owner receives a single message.
+	 */
+	@Override
+	public void createDirs(long[] ids, long[] parentIds, String[] paths, int size) {
+		bulkPut(true, ids, paths, size);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The files are grouped by their owners, each owner receives a single message.
+	 */
+	@Override
+	public void createFiles(long[] ids, long[] parentIds, String[] paths, int size) {
+		bulkPut(false, ids, paths, size);
+	}
+
+	/**
+	 * Checks whether the entry with the given id is stored by this node
+	 *
+	 * @param id The id of the directory or file
+	 * @return True if the entry is stored by this node
+	 */
+	private boolean isLocal(long id){
+		Partition partition = partitionService.getPartition(id);
+		Member owner = partition.getOwner();
+		return (owner != null) && owner.localMember();
+	}
+
+	/**
+	 * Executes an access on the node that owns the given id and waits for the result
+	 *
+	 * @param access The access to execute
+	 * @param id The id of the directory or file
+	 * @return The result of the access, or null if it has failed
+	 */
+	private String access(NamespaceAccess access, long id){
+		DistributedTask<String> task = new DistributedTask<String>(access, id);
+		executorService.execute(task);
+		try {
+			return task.get();
+		} catch (Exception e) {
+			log.error("Namespace entry {} cannot be accessed on its owner", id, e);
+			return null;
+		}
+	}
+
+	/**
+	 * Stores a batch of entries on their owners. The local entries are stored directly, the others are sent 
+	 * to their owners in parallel, grouped by owner.
+	 *
+	 * @param dir True if the entries are directories, false if they are files
+	 * @param ids The ids of the directories or files
+	 * @param paths The paths of the directories or files
+	 * @param size The number of entries in the arrays
+	 */
+	private void bulkPut(boolean dir, long[] ids, String[] paths, int size){
+		Map<Member,List<Integer>> entriesByOwner = new HashMap<Member,List<Integer>>();
+		for(int i = 0; i < size; i++){
+			Member owner = partitionService.getPartition(ids[i]).getOwner();
+			if((owner == null) || owner.localMember()){
+				if(owner == null){
+					// the owner is unknown for a short time, e.g. while partitions are migrated
+					createEntry(dir, ids[i], paths[i]);
+				} else if(dir){
+					putLocalDir(ids[i], paths[i]);
+				} else {
+					getLocalFileMap().put(ids[i], paths[i]);
+				}
+				continue;
+			}
+			List<Integer> entries = entriesByOwner.get(owner);
+			if(entries == null){
+				entries = new ArrayList<Integer>();
+				entriesByOwner.put(owner, entries);
+			}
+			entries.add(i);
+		}
+		List<Future<Boolean>> tasks = new ArrayList<Future<Boolean>>(entriesByOwner.size());
+		for(Map.Entry<Member,List<Integer>> ownerEntries : entriesByOwner.entrySet()){
+			List<Integer> entries = ownerEntries.getValue();
+			long[] ownerIds = new long[entries.size()];
+			String[] ownerPaths = new String[entries.size()];
+			for(int i = 0; i < ownerIds.length; i++){
+				ownerIds[i] = ids[entries.get(i)];
+				ownerPaths[i] = paths[entries.get(i)];
+			}
+			DistributedTask<Boolean> task = new DistributedTask<Boolean>(new NamespaceBulkPut(dir, ownerIds, ownerPaths), ownerEntries.getKey());
+			executorService.execute(task);
+			tasks.add(task);
+		}
+		for(Future<Boolean> task : tasks){
+			try {
+				task.get();
+			} catch (Exception e) {
+				log.error("Namespace entries cannot be stored on their owner", e);
+			}
+		}
+	}
+
+	/**
+	 * Stores an entry on its owner
+	 *
+	 * @param dir True if the entry is a directory, false if it is a file
+	 * @param id The id of the directory or file
+	 * @param path The path of the directory or file
+	 */
+	private void createEntry(boolean dir, long id, String path){
+		if(dir){
+			createDir(id, path);
+		} else {
+			createFile(id, path);
+		}
+	}
+
+	/**
+	 * Sums up the number of directories or files stored by the slaves
+	 *
+	 * @param dirs True if the directories should be counted, false for the files
+	 * @return The number of directories or files
+	 */
+	private long count(boolean dirs){
+		MultiTask<Long> task = new MultiTask<Long>(new NamespaceSize(dirs), HazelcastCluster.getInstance().getSlaves());
+		executorService.execute(task);
+		long count = 0;
+		try {
+			Collection<Long> counts = task.get();
+			for(Long slaveCount : counts){
+				count += slaveCount;
+			}
+		} catch (Exception e) {
+			log.error("Namespace entries cannot be counted", e);
+		}
+		return count;
+	}
+
+}
@@ -0,0 +1,404 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * A map of directory or file ids to path names, which is stored outside of the Java heap.
+ *
+ * The map is divided into segments, which are locked separately. Each segment consists of an open addressing
+ * hash table (with linear probing) and an arena. A slot of the hash table contains the id and a reference to
+ * the path in the arena, so it takes 16 bytes of direct memory. The arena is a list of direct byte buffers
+ * (chunks), in which the paths are stored as UTF-8 bytes, prefixed by their length (as a variable-length integer).
+ * Thus, an entry costs less than 24 bytes (at the maximum load factor) plus the length of its path, instead of
+ * the hundreds of bytes of a Hazelcast map entry, and it does not burden the garbage collector.
+ *
+ * Changing or removing a path leaves its old bytes in the arena. The arena of a segment is compacted when more
+ * than half of it is garbage.
+ *
+ * The direct memory available to the JVM can be set with the -XX:MaxDirectMemorySize option.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class OffHeapPathMap {
+
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+	/** The number of segments (a power of two) */
+	private static final int SEGMENTS = 64;
+	/** The segment is selected using the highest bits of the hash */
+	private static final int SEGMENT_SHIFT = 64 - Integer.numberOfTrailingZeros(SEGMENTS);
+	/** The initial number of slots of the hash table of a segment (a power of two) */
+	private static final int INITIAL_CAPACITY = 1024;
+	private static final double LOAD_FACTOR = 0.75;
+	/** The size of the first arena chunk in bytes. The size of the following chunks is doubled up to CHUNK_SIZE. */
+	private static final int INITIAL_CHUNK_SIZE = 1 << 14;
+	/** The maximum size of an arena chunk in bytes (unless a single path is larger) */
+	private static final int CHUNK_SIZE = 1 << 20;
+	/** The amount of garbage in bytes that a segment may contain regardless of its size */
+	private static final long MIN_GARBAGE_TO_COMPACT = CHUNK_SIZE;
+
+	private final Segment[] segments;
+
+	public OffHeapPathMap(){
+		segments = new Segment[SEGMENTS];
+		for(int i = 0; i < SEGMENTS; i++){
+			segments[i] = new Segment();
+		}
+	}
+
+	/**
+	 * Stores the path of an id, replacing the old path if there is one
+	 *
+	 * @param id The id of the directory or file
+	 * @param path The path of the directory or file
+	 */
+	public void put(long id, String path){
+		long hash = hash(id);
+		segmentFor(hash).put(id, hash, path.getBytes(UTF8), false);
+	}
+
+	/**
+	 * Replaces the path of an id, if the id is contained in the map
+	 *
+	 * @param id The id of the directory or file
+	 * @param path The new path of the directory or file
+	 * @return True if the path has been replaced, false if the id is not contained in the map
+	 */
+	public boolean replace(long id, String path){
+		long hash = hash(id);
+		return segmentFor(hash).put(id, hash, path.getBytes(UTF8), true);
+	}
+
+	/**
+	 * Gets the path of an id
+	 *
+	 * @param id The id of the directory or file
+	 * @return The path of the directory or file, or null if the id is not contained in the map
+	 */
+	public String get(long id){
+		long hash = hash(id);
+		byte[] path = segmentFor(hash).get(id, hash);
+		return (path != null) ? new String(path, UTF8) : null;
+	}
+
+	/**
+	 * Removes an id and its path
+	 *
+	 * @param id The id of the directory or file
+	 * @return True if the id has been removed, false if it is not contained in the map
+	 */
+	public boolean remove(long id){
+		long hash = hash(id);
+		return segmentFor(hash).remove(id, hash);
+	}
+
+	/**
+	 * Gets the number of entries
+	 *
+	 * @return The number of entries
+	 */
+	public long size(){
+		long size = 0;
+		for(Segment segment : segments){
+			size += segment.size();
+		}
+		return size;
+	}
+
+	/**
+	 * Gets the amount of direct memory allocated by the map
+	 *
+	 * @return The allocated direct memory in bytes
+	 */
+	public long getAllocatedBytes(){
+		long bytes = 0;
+		for(Segment segment : segments){
+			bytes += segment.getAllocatedBytes();
+		}
+		return bytes;
+	}
+
+	/**
+	 * Removes all entries and releases the arenas
+	 */
+	public void clear(){
+		for(Segment segment : segments){
+			segment.clear();
+		}
+	}
+
+	private Segment segmentFor(long hash){
+		return segments[(int)(hash >>> SEGMENT_SHIFT)];
+	}
+
+	/**
+	 * Spreads the bits of the id (the finalizer of MurmurHash3), because the ids are mostly consecutive numbers
+	 */
+	private static long hash(long id){
+		long h = id;
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+
+	/**
+	 * A part of the map, consisting of a hash table and an arena, guarded by its own monitor.
+	 */
+	private static final class Segment {
+
+		/**
+		 * Slots of two longs: the id and the reference to the path in the arena. The reference is the index of
+		 * the chunk in the upper 32 bits and the offset in the lower 32 bits. The offset 0 of the first chunk is
+		 * never used, so 0 marks an empty slot.
+		 */
+		private LongBuffer table;
+		private int capacity;
+		private int mask;
+		private int size;
+		private int threshold;
+
+		private List<ByteBuffer> chunks;
+		private ByteBuffer currentChunk;
+		/** The number of bytes used in the arena, including garbage */
+		private long usedBytes;
+		/** The number of bytes in the arena that belong to changed or removed paths */
+		private long garbageBytes;
+
+		Segment(){
+			init();
+		}
+
+		private void init(){
+			allocateTable(INITIAL_CAPACITY);
+			size = 0;
+			chunks = new ArrayList<ByteBuffer>();
+			addChunk(INITIAL_CHUNK_SIZE);
+			currentChunk.position(1);
+			usedBytes = 1;
+			garbageBytes = 0;
+		}
+
+		private void allocateTable(int capacity){
+			this.table = ByteBuffer.allocateDirect(capacity * 16).order(ByteOrder.nativeOrder()).asLongBuffer();
+			this.capacity = capacity;
+			this.mask = capacity - 1;
+			this.threshold = (int)(capacity * LOAD_FACTOR);
+		}
+
+		private void addChunk(int chunkSize){
+			currentChunk = ByteBuffer.allocateDirect(chunkSize);
+			chunks.add(currentChunk);
+		}
+
+		synchronized int size(){
+			return size;
+		}
+
+		synchronized long getAllocatedBytes(){
+			long bytes = capacity * 16L;
+			for(ByteBuffer chunk : chunks){
+				bytes += chunk.capacity();
+			}
+			return bytes;
+		}
+
+		synchronized void clear(){
+			init();
+		}
+
+		/**
+		 * Finds the slot of an id
+		 *
+		 * @return The index of the slot containing the id, or -(index + 1) of the empty slot where it can be inserted
+		 */
+		private int findSlot(long id, long hash){
+			int i = (int)hash & mask;
+			while(true){
+				if(table.get(2 * i + 1) == 0){
+					return -(i + 1);
+				}
+				if(table.get(2 * i) == id){
+					return i;
+				}
+				i = (i + 1) & mask;
+			}
+		}
+
+		synchronized byte[] get(long id, long hash){
+			int slot = findSlot(id, hash);
+			if(slot < 0){
+				return null;
+			}
+			return read(chunks, table.get(2 * slot + 1));
+		}
+
+		/**
+		 * @param onlyIfPresent If true, the path is only stored if the id is already contained in the segment
+		 * @return True if the path has been stored
+		 */
+		synchronized boolean put(long id, long hash, byte[] path, boolean onlyIfPresent){
+			int slot = findSlot(id, hash);
+			if(slot >= 0){
+				garbageBytes += getEntryLength(table.get(2 * slot + 1));
+				table.put(2 * slot + 1, append(path));
+				compactIfNeeded();
+			} else if(!onlyIfPresent){
+				slot = -(slot + 1);
+				table.put(2 * slot, id);
+				table.put(2 * slot + 1, append(path));
+				if(++size > threshold){
+					resize(capacity * 2);
+				}
+			} else {
+				return false;
+			}
+			return true;
+		}
+
+		/**
+		 * Removes an entry. The following entries of the probe sequence are shifted back, so no tombstones are needed.
+		 */
+		synchronized boolean remove(long id, long hash){
+			int slot = findSlot(id, hash);
+			if(slot < 0){
+				return false;
+			}
+			garbageBytes += getEntryLength(table.get(2 * slot + 1));
+			int i = slot;
+			int j = slot;
+			while(true){
+				j = (j + 1) & mask;
+				long ref = table.get(2 * j + 1);
+				if(ref == 0){
+					break;
+				}
+				long otherId = table.get(2 * j);
+				int home = (int)hash(otherId) & mask;
+				// the entry can be moved to the freed slot, if its home slot is not cyclically between the two
+				boolean movable = (j > i) ? (home <= i || home > j) : (home <= i && home > j);
+				if(movable){
+					table.put(2 * i, otherId);
+					table.put(2 * i + 1, ref);
+					i = j;
+				}
+			}
+			table.put(2 * i, 0);
+			table.put(2 * i + 1, 0);
+			size--;
+			compactIfNeeded();
+			return true;
+		}
+
+		private void resize(int newCapacity){
+			LongBuffer oldTable = table;
+			int oldCapacity = capacity;
+			allocateTable(newCapacity);
+			for(int i = 0; i < oldCapacity; i++){
+				long ref = oldTable.get(2 * i + 1);
+				if(ref != 0){
+					long id = oldTable.get(2 * i);
+					int slot = -(findSlot(id, hash(id)) + 1);
+					table.put(2 * slot, id);
+					table.put(2 * slot + 1, ref);
+				}
+			}
+		}
+
+		/**
+		 * Copies the live paths into a new arena, if more than half of the current arena is garbage
+		 */
+		private void compactIfNeeded(){
+			if(garbageBytes < MIN_GARBAGE_TO_COMPACT || garbageBytes * 2 < usedBytes){
+				return;
+			}
+			List<ByteBuffer> oldChunks = chunks;
+			chunks = new ArrayList<ByteBuffer>();
+			addChunk(INITIAL_CHUNK_SIZE);
+			currentChunk.position(1);
+			usedBytes = 1;
+			garbageBytes = 0;
+			for(int i = 0; i < capacity; i++){
+				long ref = table.get(2 * i + 1);
+				if(ref != 0){
+					table.put(2 * i + 1, append(read(oldChunks, ref)));
+				}
+			}
+		}
+
+		/**
+		 * Appends a path to the arena
+		 *
+		 * @return The reference to the path
+		 */
+		private long append(byte[] path){
+			int length = getVarIntLength(path.length) + path.length;
+			if(currentChunk.remaining() < length){
+				addChunk(Math.max(Math.min(currentChunk.capacity() * 2, CHUNK_SIZE), length));
+			}
+			int offset = currentChunk.position();
+			int value = path.length;
+			while((value & ~0x7F) != 0){
+				currentChunk.put((byte)((value & 0x7F) | 0x80));
+				value >>>= 7;
+			}
+			currentChunk.put((byte)value);
+			currentChunk.put(path);
+			usedBytes += length;
+			return ((long)(chunks.size() - 1) << 32) | offset;
+		}
+
+		private static byte[] read(List<ByteBuffer> chunks, long ref){
+			ByteBuffer chunk = chunks.get((int)(ref >>> 32));
+			int position = (int)ref;
+			int length = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = chunk.get(position++);
+				length |= (b & 0x7F) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			byte[] path = new byte[length];
+			for(int i = 0; i < length; i++){
+				path[i] = chunk.get(position + i);
+			}
+			return path;
+		}
+
+		/**
+		 * Gets the number of bytes occupied by a path in the arena (including its length prefix)
+		 */
+		private int getEntryLength(long ref){
+			ByteBuffer chunk = chunks.get((int)(ref >>> 32));
+			int position = (int)ref;
+			int length = 0;
+			int shift = 0;
+			byte b;
+			do {
+				b = chunk.get(position++);
+				length |= (b & 0x7F) << shift;
+				shift += 7;
+			} while((b & 0x80) != 0);
+			return getVarIntLength(length) + length;
+		}
+
+		private static int getVarIntLength(int value){
+			int length = 1;
+			while((value & ~0x7F) != 0){
+				value >>>= 7;
+				length++;
+			}
+			return length;
+		}
+
+	}
+
+}
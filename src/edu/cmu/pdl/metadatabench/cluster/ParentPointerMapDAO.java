@@ -0,0 +1,312 @@
+package edu.cmu.pdl.metadatabench.cluster;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.hazelcast.core.EntryAdapter;
+import com.hazelcast.core.EntryEvent;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.IMap;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Provides access to the namespace data, i.e. to directories and files generated by the benchmark, stored
+ * in distributed Hazelcast maps as parent pointers.
+ *
+ * Instead of the whole path, each entry contains the id of the parent directory and the name of the element
+ * (see {@link NamespaceEntry}). The common prefixes of the paths are therefore stored only once, which reduces
+ * the memory usage considerably for deep namespaces. Moving or renaming an element only changes its own entry,
+ * regardless of the number of its descendants.
+ *
+ * Paths are reconstructed on demand by following the parent pointers. The paths of the recently used directories
+ * are kept in a bounded local cache, so that the hot ancestors (e.g. the directories near the root) do not have
+ * to be looked up for every path. Directories are never moved or renamed by the workload, so the cached paths
+ * remain valid; the cache entry of a deleted directory is invalidated on the deleting node.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class ParentPointerMapDAO implements INamespaceMapDAO {
+
+	private static final char PATH_SEPARATOR = Config.getPathSeparator();
+
+	/**
+	 * The name of the map containing the directories.
+	 * This has to match the name defined in the Hazelcast configuration xml file.
+	 */
+	private static final String DIR_MAP_NAME = "dirEntries";
+	/**
+	 * The name of the map containing the files.
+	 * This has to match the name defined in the Hazelcast configuration xml file.
+	 */
+	private static final String FILE_MAP_NAME = "fileEntries";
+
+	private IMap<Long,NamespaceEntry> dirMap;
+	private IMap<Long,NamespaceEntry> fileMap;
+	/** The paths of recently used directories */
+	private Cache<Long,String> dirPathCache;
+
+	/**
+	 * @param hazelcast The Hazelcast instance related to the maps.
+	 */
+	public ParentPointerMapDAO(HazelcastInstance hazelcast){
+		dirMap = hazelcast.getMap(DIR_MAP_NAME);
+		fileMap = hazelcast.getMap(FILE_MAP_NAME);
+		dirPathCache = CacheBuilder.newBuilder()
+				.maximumSize(Config.getNamespacePathCacheSize())
+				.concurrencyLevel(Config.getSlaveThreadPoolSize())
+				.build();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addLocalDirCreationListener(final IDirCreationListener listener) {
+		dirMap.addLocalEntryListener(new EntryAdapter<Long,NamespaceEntry>(){
+			@Override
+			public void entryAdded(EntryEvent<Long,NamespaceEntry> event) {
+				listener.dirCreated(event.getKey());
+			}
+			@Override
+			public void entryUpdated(EntryEvent<Long,NamespaceEntry> event) {
+				listener.dirCreated(event.getKey());
+			}
+		});
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The directory is stored without a parent.
+	 */
+	@Override
+	public void createDir(long id, String path) {
+		dirMap.set(id, new NamespaceEntry(NamespaceEntry.NO_PARENT, path), 0, TimeUnit.SECONDS);
+		dirPathCache.put(id, path);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String createDir(long id, long parentId, boolean parentsParent, String name) {
+		NamespaceEntry entry;
+		String path;
+		if(parentsParent){
+			NamespaceEntry parent = dirMap.get(parentId);
+			if(parent == null){
+				return null;
+			}
+			if(parent.getParentId() == NamespaceEntry.NO_PARENT){
+				// the parent's path is stored as its name, so its parent has no entry either
+				String parentPath = parent.getName();
+				path = parentPath.substring(0, parentPath.lastIndexOf(PATH_SEPARATOR)) + name;
+				entry = new NamespaceEntry(NamespaceEntry.NO_PARENT, path);
+			} else {
+				String parentsParentPath = getDir(parent.getParentId());
+				if(parentsParentPath == null){
+					return null;
+				}
+				path = parentsParentPath + name;
+				entry = new NamespaceEntry(parent.getParentId(), name);
+			}
+		} else {
+			String parentPath = getDir(parentId);
+			if(parentPath == null){
+				return null;
+			}
+			path = parentPath + name;
+			entry = new NamespaceEntry(parentId, name);
+		}
+		dirMap.set(id, entry, 0, TimeUnit.SECONDS);
+		dirPathCache.put(id, path);
+		return path;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Follows the parent pointers until a directory with a cached path (or without a parent) is found. The paths
+	 * of the directories on the way are cached.
+	 */
+	@Override
+	public String getDir(long id) {
+		String path = dirPathCache.getIfPresent(id);
+		if(path != null){
+			return path;
+		}
+		List<Long> ids = new ArrayList<Long>();
+		List<String> names = new ArrayList<String>();
+		long currentId = id;
+		while(true){
+			NamespaceEntry entry = dirMap.get(currentId);
+			if(entry == null){
+				return null;
+			}
+			ids.add(currentId);
+			names.add(entry.getName());
+			currentId = entry.getParentId();
+			if(currentId == NamespaceEntry.NO_PARENT){
+				path = "";
+				break;
+			}
+			path = dirPathCache.getIfPresent(currentId);
+			if(path != null){
+				break;
+			}
+		}
+		// build the paths from the topmost directory downwards
+		for(int i = ids.size() - 1; i >= 0; i--){
+			path = path + names.get(i);
+			dirPathCache.put(ids.get(i), path);
+		}
+		return path;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void deleteDir(long id) {
+		dirMap.remove(id);
+		dirPathCache.invalidate(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfDirs() {
+		return dirMap.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * The file is stored without a parent.
+	 */
+	@Override
+	public void createFile(long id, String path) {
+		fileMap.set(id, new NamespaceEntry(NamespaceEntry.NO_PARENT, path), 0, TimeUnit.SECONDS);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String createFile(long id, long parentId, String name) {
+		String parentPath = getDir(parentId);
+		if(parentPath == null){
+			return null;
+		}
+		fileMap.set(id, new NamespaceEntry(parentId, name), 0, TimeUnit.SECONDS);
+		return parentPath + name;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createDirs(long[] ids, long[] parentIds, String[] paths, int size) {
+		dirMap.putAll(toEntries(parentIds, ids, paths, size));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void createFiles(long[] ids, long[] parentIds, String[] paths, int size) {
+		fileMap.putAll(toEntries(parentIds, ids, paths, size));
+	}
+
+	/**
+	 * Creates the namespace entries of a batch of elements, which can be stored in the namespace maps in one step.
+	 * The elements without a parent are stored with their path as name.
+	 *
+	 * @param parentIds The ids of the parent directories
+	 * @param ids The ids of the elements
+	 * @param paths The paths of the elements
+	 * @param size The number of elements in the arrays
+	 * @return The map of ids and namespace entries
+	 */
+	private Map<Long,NamespaceEntry> toEntries(long[] parentIds, long[] ids, String[] paths, int size){
+		Map<Long,NamespaceEntry> entries = new HashMap<Long,NamespaceEntry>((int)(size / 0.75f) + 1);
+		for(int i = 0; i < size; i++){
+			String name = (parentIds[i] == NamespaceEntry.NO_PARENT) ? paths[i] : getName(paths[i]);
+			entries.put(ids[i], new NamespaceEntry(parentIds[i], name));
+		}
+		return entries;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public String getFile(long id) {
+		NamespaceEntry entry = fileMap.get(id);
+		if(entry == null){
+			return null;
+		}
+		if(entry.getParentId() == NamespaceEntry.NO_PARENT){
+			return entry.getName();
+		}
+		String parentPath = getDir(entry.getParentId());
+		return (parentPath != null) ? parentPath + entry.getName() : null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void deleteFile(long id) {
+		fileMap.remove(id);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 *
+	 * Only the name of the file is changed, its parent is kept.
+	 */
+	@Override
+	public void renameFile(long id, String pathNew) {
+		NamespaceEntry entry = fileMap.get(id);
+		if(entry != null){
+			String name = (entry.getParentId() == NamespaceEntry.NO_PARENT) ? pathNew : getName(pathNew);
+			fileMap.replace(id, new NamespaceEntry(entry.getParentId(), name));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void moveFile(long id, long parentIdNew, String pathNew) {
+		fileMap.replace(id, new NamespaceEntry(parentIdNew, getName(pathNew)));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public long getNumberOfFiles() {
+		return fileMap.size();
+	}
+
+	/**
+	 * Gets the name of an element (the last part of its path, including the leading path separator)
+	 *
+	 * @param path The path of the element
+	 * @return The name of the element
+	 */
+	private String getName(String path){
+		return path.substring(path.lastIndexOf(PATH_SEPARATOR));
+	}
+
+}
@@ -1,22 +1,35 @@
 package edu.cmu.pdl.metadatabench.cluster.communication;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 import com.hazelcast.core.DistributedTask;
 import com.hazelcast.core.HazelcastInstance;
 import com.hazelcast.core.Member;
 import com.hazelcast.core.MultiTask;
+import com.hazelcast.partition.Partition;
+import com.hazelcast.partition.PartitionService;
 
 import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsCollect;
-import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsReset;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceDelete;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceLoad;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.OperationBatch;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressFinished;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReport;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReset;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
+import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.measurement.MeasurementDataForNode;
 
 /**
@@ -32,11 +45,25 @@ public class HazelcastDispatcher implements IDispatcher {
 	private static Member master;
 	private static Set<Member> slaves;
 	
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchSize() */
+	private final int batchSize;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchMaxDelay() */
+	private final long batchMaxDelay;
+	private final PartitionService partitionService;
+	/** The incomplete operation batches, one for each slave that owns a part of the namespace */
+	private final Map<Member,OperationBatch> batches;
+	/** Periodically sends the batches that have been waiting too long. Started on the first batched operation. */
+	private ScheduledExecutorService batchFlusher;
+	
 	/**
 	 * @param hazelcast The relevant Hazelcast instance
 	 */
 	public HazelcastDispatcher(HazelcastInstance hazelcast) {
 		executorService = hazelcast.getExecutorService();
+		partitionService = hazelcast.getPartitionService();
+		batchSize = Config.getDispatchBatchSize();
+		batchMaxDelay = Config.getDispatchBatchMaxDelay();
+		batches = new HashMap<Member,OperationBatch>();
 	}
 
 	/**
@@ -45,11 +72,107 @@ public class HazelcastDispatcher implements IDispatcher {
 	 * From master to one slave. Asynchronous.
 	 * The operation is sent to the owner of the key referenced by the operation. This way the owner 
 	 * can access the element in its local memory.
+	 * If batching is switched on, the operation is added to the batch of the owner and the batch is sent 
+	 * when it is full (or when it has been waiting too long).
 	 */
 	@Override
 	public void dispatch(SimpleOperation operation) {
+		if(batchSize > 1){
+			Partition partition = partitionService.getPartition(operation.getTargetId());
+			Member owner = partition.getOwner();
+			// the owner can be unknown for a short time, e.g. while partitions are migrated
+			if(owner != null){
+				addToBatch(owner, operation);
+				return;
+			}
+		}
 		executorService.execute(new DistributedTask<Boolean>(operation, true, operation.getTargetId()));
 	}
+	
+	/**
+	 * Adds an operation to the batch of the given owner and sends the batch if it is full.
+	 * 
+	 * @param owner The slave owning the element targeted by the operation
+	 * @param operation The operation to add
+	 */
+	private void addToBatch(Member owner, SimpleOperation operation){
+		OperationBatch fullBatch = null;
+		synchronized(batches){
+			OperationBatch batch = batches.get(owner);
+			if(batch == null){
+				batch = new OperationBatch(batchSize);
+				batches.put(owner, batch);
+				startBatchFlusher();
+			}
+			batch.add(operation);
+			if(batch.size() >= batchSize){
+				batches.remove(owner);
+				fullBatch = batch;
+			}
+		}
+		if(fullBatch != null){
+			executorService.execute(new DistributedTask<Boolean>(fullBatch, true, owner));
+		}
+	}
+	
+	/**
+	 * Sends the batches that are older than the given age.
+	 * 
+	 * @param maxAge The maximum age (in milliseconds) of the batches that are kept back
+	 */
+	private void flushBatches(long maxAge){
+		List<Member> owners = new ArrayList<Member>();
+		List<OperationBatch> batchesToSend = new ArrayList<OperationBatch>();
+		long now = System.currentTimeMillis();
+		synchronized(batches){
+			Iterator<Map.Entry<Member,OperationBatch>> iterator = batches.entrySet().iterator();
+			while(iterator.hasNext()){
+				Map.Entry<Member,OperationBatch> entry = iterator.next();
+				if((now - entry.getValue().getCreationTime()) >= maxAge){
+					owners.add(entry.getKey());
+					batchesToSend.add(entry.getValue());
+					iterator.remove();
+				}
+			}
+		}
+		int size = owners.size();
+		for(int i = 0; i < size; i++){
+			executorService.execute(new DistributedTask<Boolean>(batchesToSend.get(i), true, owners.get(i)));
+		}
+	}
+	
+	/**
+	 * Starts the thread that periodically sends the batches that have been waiting too long.
+	 * Has to be called while holding the lock on the batches.
+	 */
+	private void startBatchFlusher(){
+		if(batchFlusher == null){
+			batchFlusher = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread thread = new Thread(r, "batch-flusher");
+					thread.setDaemon(true);
+					return thread;
+				}
+			});
+			batchFlusher.scheduleWithFixedDelay(new Runnable() {
+				@Override
+				public void run() {
+					flushBatches(batchMaxDelay);
+				}
+			}, batchMaxDelay, batchMaxDelay, TimeUnit.MILLISECONDS);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * Sends all the incomplete operation batches.
+	 */
+	@Override
+	public void flush() {
+		flushBatches(0);
+	}
 
 	/**
 	 * {@inheritDoc}
@@ -67,11 +190,13 @@ public class HazelcastDispatcher implements IDispatcher {
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * From master to all slaves. Asynchronous.
+	 * From master to all slaves. Synchronous.
 	 */
 	@Override
-	public void dispatch(ProgressReset reset) {
-		executorService.execute(new DistributedTask<Boolean>(reset, true, getSlaves()));
+	public Collection<Integer> dispatch(ProgressReset reset) throws Exception{
+		MultiTask<Integer> task = new MultiTask<Integer>(reset, getSlaves());
+		executorService.execute(task);
+		return task.get();
 	}
 
 	/**
@@ -87,21 +212,23 @@ public class HazelcastDispatcher implements IDispatcher {
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * From master to all slaves. Asynchronous.
+	 * From master to one slave. Synchronous.
 	 */
 	@Override
-	public void dispatch(MeasurementsReset reset) {
-		executorService.execute(new DistributedTask<Boolean>(reset, true, getSlaves()));
+	public int dispatch(NamespaceDelete delete) throws Exception{
+		DistributedTask<Integer> task = new DistributedTask<Integer>(delete);
+		executorService.execute(task);
+		return task.get();
 	}
-	
+
 	/**
 	 * {@inheritDoc}
 	 * 
-	 * From master to one slave. Synchronous.
+	 * From master to all slaves. Synchronous.
 	 */
 	@Override
-	public int dispatch(NamespaceDelete delete) throws Exception{
-		DistributedTask<Integer> task = new DistributedTask<Integer>(delete);
+	public Collection<long[]> dispatch(NamespaceLoad load) throws Exception{
+		MultiTask<long[]> task = new MultiTask<long[]>(load, getSlaves());
 		executorService.execute(task);
 		return task.get();
 	}
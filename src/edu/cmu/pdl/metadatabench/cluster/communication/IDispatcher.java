@@ -3,8 +3,8 @@ package edu.cmu.pdl.metadatabench.cluster.communication;
 import java.util.Collection;
 
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsCollect;
-import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsReset;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceDelete;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceLoad;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressFinished;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReport;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReset;
@@ -26,6 +26,13 @@ public interface IDispatcher {
 	 */
 	public void dispatch(SimpleOperation operation);
 	
+	/**
+	 * Sends the {@link SimpleOperation}s that have been dispatched, but are still held back by the dispatcher, 
+	 * for example in order to send them together with other operations. Has to be called at the end of each 
+	 * generation phase.
+	 */
+	public void flush();
+	
 	/**
 	 * Dispatches a {@link ProgressReport}.
 	 * 
@@ -34,11 +41,13 @@ public interface IDispatcher {
 	public void dispatch(ProgressReport report);
 	
 	/**
-	 * Dispatches a {@link ProgressReset}.
+	 * Dispatches a {@link ProgressReset} and waits until all slaves have reset their progress.
 	 * 
 	 * @param reset	The progress reset command to dispatch
+	 * @return The credit windows granted by the slaves
+	 * @throws Exception If there is an error in the network connection or at the slave.
 	 */
-	public void dispatch(ProgressReset reset);
+	public Collection<Integer> dispatch(ProgressReset reset) throws Exception;
 	
 	/**
 	 * Dispatches a {@link ProgressFinish}.
@@ -47,13 +56,6 @@ public interface IDispatcher {
 	 */
 	public void dispatch(ProgressFinished finish);
 	
-	/**
-	 * Dispatches a {@link MeasurementReset}.
-	 * 
-	 * @param reset	The measurement reset command to dispatch
-	 */
-	public void dispatch(MeasurementsReset reset);
-	
 	/**
 	 * Dispatches a {@link NamespaceDelete}.
 	 * 
@@ -63,6 +65,15 @@ public interface IDispatcher {
 	 */
 	public int dispatch(NamespaceDelete delete) throws Exception;
 	
+	/**
+	 * Dispatches a namespace load message and waits for the loading to complete.
+	 * 
+	 * @param load The namespace load message
+	 * @return The results of the slaves, see {@link NamespaceLoad}
+	 * @throws Exception If the namespace could not be loaded by a slave
+	 */
+	public Collection<long[]> dispatch(NamespaceLoad load) throws Exception;
+	
 	/**
 	 * Collects measurements from the slaves.
 	 * 
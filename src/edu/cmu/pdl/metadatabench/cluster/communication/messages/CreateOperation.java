@@ -1,6 +1,12 @@
 package edu.cmu.pdl.metadatabench.cluster.communication.messages;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.common.VarInt;
 import edu.cmu.pdl.metadatabench.master.namespace.BarabasiAlbertDirectoryCreationStrategy;
 
 /**
@@ -11,16 +17,32 @@ import edu.cmu.pdl.metadatabench.master.namespace.BarabasiAlbertDirectoryCreatio
  * in the given parent directory or as a sibling of the parent directory (this flag is needed for the 
  * {@link BarabasiAlbertDirectoryCreationStrategy} Barabasi-Albert directory generation algorithm).
  * 
+ * The names of the generated elements normally consist of a prefix and the id of the element (e.g. /dir69 or 
+ * /file20). Such names are not serialized, they are reconstructed from the id by the receiver.
+ * 
  * @author emil.rakadjiev
  *
  */
 @SuppressWarnings("serial")
 public class CreateOperation extends SimpleOperation {
 
+	private static final String DIR_NAME_PREFIX = Config.getPathSeparator() + Config.getDirNamePrefix();
+	private static final String FILE_NAME_PREFIX = Config.getPathSeparator() + Config.getFileNamePrefix();
+	
+	/* Flags used in the serialized form */
+	private static final int FLAG_PARENTS_PARENT = 1;
+	private static final int FLAG_DEFAULT_NAME = 2;
+	
 	private boolean parentsParent;
 	private long id;
 	private String name;
 	
+	/**
+	 * Needed for deserialization
+	 */
+	public CreateOperation(){
+	}
+	
 	/**
 	 * @param type The type of the operation (create or mkdir)
 	 * @param parentId Id of the parent directory
@@ -77,4 +99,78 @@ public class CreateOperation extends SimpleOperation {
 		return id;
 	}
 
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		super.writeData(out);
+		boolean defaultName = isDefaultName();
+		int flags = 0;
+		if(parentsParent){
+			flags |= FLAG_PARENTS_PARENT;
+		}
+		if(defaultName){
+			flags |= FLAG_DEFAULT_NAME;
+		}
+		out.writeByte(flags);
+		VarInt.writeVarLong(out, id);
+		if(!defaultName){
+			out.writeUTF(name);
+		}
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		super.readData(in);
+		int flags = in.readByte();
+		parentsParent = (flags & FLAG_PARENTS_PARENT) != 0;
+		id = VarInt.readVarLong(in);
+		if((flags & FLAG_DEFAULT_NAME) != 0){
+			name = getDefaultName();
+		} else {
+			name = in.readUTF();
+		}
+	}
+	
+	/**
+	 * Gets the name that the generators assign to a new element with the id of this operation, e.g. /dir69 
+	 * or /file20
+	 * 
+	 * @return The default name of the new element
+	 */
+	private String getDefaultName(){
+		return getDefaultNamePrefix() + id;
+	}
+	
+	/**
+	 * Checks whether the name of the new element is the default name (without constructing the default name).
+	 * 
+	 * @return True if the name of the new element is the default name
+	 */
+	private boolean isDefaultName(){
+		String prefix = getDefaultNamePrefix();
+		int prefixLength = prefix.length();
+		int length = name.length();
+		// no leading zeros are allowed and the id has at most 19 digits
+		if((length == prefixLength) || (length - prefixLength > 19) || !name.startsWith(prefix) || (name.charAt(prefixLength) == '0')){
+			return false;
+		}
+		long value = 0;
+		for(int i = prefixLength; i < length; i++){
+			char c = name.charAt(i);
+			if((c < '0') || (c > '9')){
+				return false;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value == id;
+	}
+	
+	/**
+	 * Gets the prefix of the default name, which depends on whether a directory or a file is created
+	 * 
+	 * @return The prefix of the default name
+	 */
+	private String getDefaultNamePrefix(){
+		return (getType() == FileSystemOperationType.MKDIRS) ? DIR_NAME_PREFIX : FILE_NAME_PREFIX;
+	}
+
 }
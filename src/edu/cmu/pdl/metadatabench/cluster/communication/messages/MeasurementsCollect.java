@@ -7,7 +7,9 @@ import edu.cmu.pdl.metadatabench.measurement.MeasurementDataForNode;
 import edu.cmu.pdl.metadatabench.measurement.Measurements;
 
 /**
- * A task that collects the measurements from a slave and returns them to the master
+ * A task that collects the measurements from a slave and returns them to the master. Optionally, the measurements 
+ * are reset in the same step, so that the measurements of the next phase can start while the collected ones 
+ * are being processed by the master.
  * 
  * @author emil.rakadjiev
  *
@@ -15,8 +17,24 @@ import edu.cmu.pdl.metadatabench.measurement.Measurements;
 @SuppressWarnings("serial")
 public class MeasurementsCollect implements Callable<MeasurementDataForNode>, Serializable {
 
+	private boolean reset;
+	
+	public MeasurementsCollect() {
+		this(false);
+	}
+	
+	/**
+	 * @param reset True if the measurements should be reset after they have been collected
+	 */
+	public MeasurementsCollect(boolean reset) {
+		this.reset = reset;
+	}
+	
 	@Override
 	public MeasurementDataForNode call() throws Exception {
+		if(reset){
+			return Measurements.getMeasurements().getMeasurementDataForNodeAndClean();
+		}
 		return Measurements.getMeasurements().getMeasurementDataForNode();
 	}
 
@@ -1,6 +1,11 @@
 package edu.cmu.pdl.metadatabench.cluster.communication.messages;
 
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.common.VarInt;
 
 /**
  * A command to move a directory or file to a new parent folder.
@@ -16,6 +21,12 @@ public class MoveOperation extends SimpleOperation {
 
 	private long parentIdNew;
 	
+	/**
+	 * Needed for deserialization
+	 */
+	public MoveOperation(){
+	}
+	
 	/**
 	 * @param type The operation type
 	 * @param id The id of the element to be moved
@@ -34,4 +45,16 @@ public class MoveOperation extends SimpleOperation {
 		return parentIdNew;
 	}
 
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		super.writeData(out);
+		VarInt.writeVarLong(out, parentIdNew);
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		super.readData(in);
+		parentIdNew = VarInt.readVarLong(in);
+	}
+
 }
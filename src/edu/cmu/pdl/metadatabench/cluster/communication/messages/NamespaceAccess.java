@@ -0,0 +1,102 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import com.hazelcast.nio.DataSerializable;
+
+import edu.cmu.pdl.metadatabench.cluster.OffHeapMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.OffHeapPathMap;
+import edu.cmu.pdl.metadatabench.common.VarInt;
+
+/**
+ * A task that reads or modifies an entry of the namespace stored by the node that owns the entry.
+ * Used by {@link OffHeapMapDAO} to access entries that are not stored locally.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class NamespaceAccess implements Callable<String>, DataSerializable {
+
+	/* The possible actions */
+	public static final int GET = 0;
+	public static final int PUT = 1;
+	public static final int REPLACE = 2;
+	public static final int REMOVE = 3;
+
+	private int action;
+	private boolean dir;
+	private long id;
+	private String path;
+
+	/**
+	 * Needed for deserialization
+	 */
+	public NamespaceAccess(){
+	}
+
+	/**
+	 * @param action The action to execute (GET, PUT, REPLACE or REMOVE)
+	 * @param dir True if the entry is a directory, false if it is a file
+	 * @param id The id of the directory or file
+	 * @param path The (new) path of the directory or file, null for GET and REMOVE
+	 */
+	public NamespaceAccess(int action, boolean dir, long id, String path){
+		this.action = action;
+		this.dir = dir;
+		this.id = id;
+		this.path = path;
+	}
+
+	/**
+	 * Executes the action on the local namespace of this node
+	 *
+	 * @return The path of the entry for GET, null otherwise
+	 */
+	@Override
+	public String call() throws Exception {
+		OffHeapPathMap map = dir ? OffHeapMapDAO.getLocalDirMap() : OffHeapMapDAO.getLocalFileMap();
+		switch(action){
+			case GET:
+				return map.get(id);
+			case PUT:
+				if(dir){
+					OffHeapMapDAO.putLocalDir(id, path);
+				} else {
+					map.put(id, path);
+				}
+				return null;
+			case REPLACE:
+				map.replace(id, path);
+				return null;
+			case REMOVE:
+				map.remove(id);
+				return null;
+			default:
+				throw new IllegalArgumentException("Unknown namespace action: " + action);
+		}
+	}
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		out.writeByte(action);
+		out.writeBoolean(dir);
+		VarInt.writeVarLong(out, id);
+		out.writeBoolean(path != null);
+		if(path != null){
+			out.writeUTF(path);
+		}
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		action = in.readByte();
+		dir = in.readBoolean();
+		id = VarInt.readVarLong(in);
+		path = in.readBoolean() ? in.readUTF() : null;
+	}
+
+}
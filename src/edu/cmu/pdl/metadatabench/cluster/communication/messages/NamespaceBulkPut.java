@@ -0,0 +1,82 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.concurrent.Callable;
+
+import com.hazelcast.nio.DataSerializable;
+
+import edu.cmu.pdl.metadatabench.cluster.OffHeapMapDAO;
+import edu.cmu.pdl.metadatabench.common.VarInt;
+
+/**
+ * A task that stores a batch of entries in the namespace stored by the node that owns them.
+ * Used by {@link OffHeapMapDAO} to load an existing namespace, so that the entries do not have to be sent 
+ * one by one.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class NamespaceBulkPut implements Callable<Boolean>, DataSerializable {
+
+	private boolean dir;
+	private long[] ids;
+	private String[] paths;
+
+	/**
+	 * Needed for deserialization
+	 */
+	public NamespaceBulkPut(){
+	}
+
+	/**
+	 * @param dir True if the entries are directories, false if they are files
+	 * @param ids The ids of the directories or files
+	 * @param paths The paths of the directories or files
+	 */
+	public NamespaceBulkPut(boolean dir, long[] ids, String[] paths){
+		this.dir = dir;
+		this.ids = ids;
+		this.paths = paths;
+	}
+
+	/**
+	 * Stores the entries in the local namespace of this node
+	 */
+	@Override
+	public Boolean call() throws Exception {
+		for(int i = 0; i < ids.length; i++){
+			if(dir){
+				OffHeapMapDAO.putLocalDir(ids[i], paths[i]);
+			} else {
+				OffHeapMapDAO.getLocalFileMap().put(ids[i], paths[i]);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		out.writeBoolean(dir);
+		VarInt.writeVarLong(out, ids.length);
+		for(int i = 0; i < ids.length; i++){
+			VarInt.writeVarLong(out, ids[i]);
+			out.writeUTF(paths[i]);
+		}
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		dir = in.readBoolean();
+		int size = (int)VarInt.readVarLong(in);
+		ids = new long[size];
+		paths = new String[size];
+		for(int i = 0; i < size; i++){
+			ids[i] = VarInt.readVarLong(in);
+			paths[i] = in.readUTF();
+		}
+	}
+
+}
@@ -2,6 +2,7 @@ package edu.cmu.pdl.metadatabench.cluster.communication.messages;
 
 import java.io.Serializable;
 import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
 
 import edu.cmu.pdl.metadatabench.slave.Slave;
 
@@ -23,7 +24,8 @@ public class NamespaceDelete implements Callable<Integer>, Serializable {
 	
 	@Override
 	public Integer call() throws Exception {
-		return Slave.getOperationExecutor().getFileSystemClient().delete(workDir);
+		long runtime = Slave.getOperationExecutor().getFileSystemClient().delete(workDir);
+		return (int)TimeUnit.NANOSECONDS.toMillis(runtime);
 	}
 
 }
@@ -0,0 +1,33 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+
+import edu.cmu.pdl.metadatabench.slave.NamespaceLoader;
+import edu.cmu.pdl.metadatabench.slave.Slave;
+
+/**
+ * A message notifying a slave that the namespace existing in the file system has to be loaded into the namespace 
+ * map (see {@link NamespaceLoader}). The slave replies when its part of the namespace has been loaded.
+ * 
+ * The result contains the number of directories and files loaded by the slave and the highest directory and file 
+ * ids, at the indexes {@link #DIRS}, {@link #FILES}, {@link #MAX_DIR_ID} and {@link #MAX_FILE_ID}.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class NamespaceLoad implements Callable<long[]>, Serializable {
+
+	/* The indexes of the values in the result */
+	public static final int DIRS = 0;
+	public static final int FILES = 1;
+	public static final int MAX_DIR_ID = 2;
+	public static final int MAX_FILE_ID = 3;
+	
+	@Override
+	public long[] call() throws Exception {
+		return Slave.getNamespaceLoader().load();
+	}
+
+}
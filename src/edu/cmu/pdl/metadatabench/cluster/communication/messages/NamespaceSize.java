@@ -0,0 +1,32 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.Serializable;
+import java.util.concurrent.Callable;
+
+import edu.cmu.pdl.metadatabench.cluster.OffHeapMapDAO;
+
+/**
+ * A task that returns the number of directories or files stored by a slave
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class NamespaceSize implements Callable<Long>, Serializable {
+
+	/** True if the directories should be counted, false for the files */
+	private boolean dirs;
+
+	/**
+	 * @param dirs True if the directories should be counted, false for the files
+	 */
+	public NamespaceSize(boolean dirs){
+		this.dirs = dirs;
+	}
+
+	@Override
+	public Long call() throws Exception {
+		return dirs ? OffHeapMapDAO.getLocalDirMap().size() : OffHeapMapDAO.getLocalFileMap().size();
+	}
+
+}
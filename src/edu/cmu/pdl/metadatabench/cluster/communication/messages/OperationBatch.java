@@ -0,0 +1,148 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.hazelcast.nio.DataSerializable;
+
+import edu.cmu.pdl.metadatabench.common.VarInt;
+import edu.cmu.pdl.metadatabench.slave.OperationHandler;
+import edu.cmu.pdl.metadatabench.slave.Slave;
+import edu.cmu.pdl.metadatabench.slave.progress.Progress;
+
+/**
+ * A command containing multiple operations that have to be executed by the same slave.
+ * Sending a batch of operations instead of each operation separately reduces the number of messages and
+ * serializations needed in the master. The slave unpacks the batch and hands the operations over to its
+ * {@link OperationHandler} one by one, in the order in which they were added to the batch.
+ * 
+ * The operations are serialized using their compact binary format, prefixed by a single byte identifying 
+ * the operation class, so that the class names do not have to be written for each operation.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class OperationBatch implements Runnable, DataSerializable {
+
+	/* Identifiers of the operation classes in the serialized form */
+	private static final int SIMPLE_OPERATION = 0;
+	private static final int CREATE_OPERATION = 1;
+	private static final int MOVE_OPERATION = 2;
+	private static final int PATH_OPERATION = 3;
+	
+	private List<SimpleOperation> operations;
+	/** The time when the first operation was added to the batch. Only used locally in the master. */
+	private transient long creationTime;
+
+	/**
+	 * Needed for deserialization
+	 */
+	public OperationBatch(){
+	}
+	
+	/**
+	 * @param capacity The expected number of operations in the batch
+	 */
+	public OperationBatch(int capacity){
+		this.operations = new ArrayList<SimpleOperation>(capacity);
+		this.creationTime = System.currentTimeMillis();
+	}
+
+	/**
+	 * Adds an operation to the batch
+	 *
+	 * @param operation The operation to add
+	 */
+	public void add(SimpleOperation operation){
+		operations.add(operation);
+	}
+
+	/**
+	 * Gets the number of operations in the batch
+	 *
+	 * @return The number of operations in the batch
+	 */
+	public int size(){
+		return operations.size();
+	}
+
+	/**
+	 * Gets the time when the batch was created
+	 *
+	 * @return The time when the batch was created
+	 */
+	public long getCreationTime(){
+		return creationTime;
+	}
+
+	/**
+	 * Gets the operations contained in the batch
+	 *
+	 * @return The operations contained in the batch
+	 */
+	public List<SimpleOperation> getOperations(){
+		return operations;
+	}
+
+	@Override
+	public void run() {
+		OperationHandler handler = Slave.getOperationHandler();
+		// counted before the first operation is handled, so that the slave is not seen as idle within the batch
+		Progress.reportReceivedOperations(operations.size());
+		for(SimpleOperation operation : operations){
+			handler.handleOperation(operation);
+		}
+	}
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		VarInt.writeVarLong(out, operations.size());
+		for(SimpleOperation operation : operations){
+			if(operation instanceof CreateOperation){
+				out.writeByte(CREATE_OPERATION);
+			} else if(operation instanceof MoveOperation){
+				out.writeByte(MOVE_OPERATION);
+			} else if(operation instanceof PathOperation){
+				out.writeByte(PATH_OPERATION);
+			} else if(operation.getClass() == SimpleOperation.class){
+				out.writeByte(SIMPLE_OPERATION);
+			} else {
+				throw new IOException("Unknown operation class: " + operation.getClass().getName());
+			}
+			operation.writeData(out);
+		}
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		int size = (int)VarInt.readVarLong(in);
+		operations = new ArrayList<SimpleOperation>(size);
+		for(int i = 0; i < size; i++){
+			SimpleOperation operation;
+			int operationClass = in.readByte();
+			switch(operationClass){
+				case CREATE_OPERATION:
+					operation = new CreateOperation();
+					break;
+				case MOVE_OPERATION:
+					operation = new MoveOperation();
+					break;
+				case PATH_OPERATION:
+					operation = new PathOperation();
+					break;
+				case SIMPLE_OPERATION:
+					operation = new SimpleOperation();
+					break;
+				default:
+					throw new IOException("Unknown operation class identifier: " + operationClass);
+			}
+			operation.readData(in);
+			operations.add(operation);
+		}
+	}
+
+}
@@ -0,0 +1,59 @@
+package edu.cmu.pdl.metadatabench.cluster.communication.messages;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+
+/**
+ * A command to execute a read operation on a directory or file whose path has already been resolved by the master
+ * (see {@link edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths()}).
+ * As opposed to {@link SimpleOperation}, the slave does not have to look up the path of the target element in
+ * the namespace map, it executes the operation on the given path directly.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class PathOperation extends SimpleOperation {
+
+	private String path;
+
+	/**
+	 * Needed for deserialization
+	 */
+	public PathOperation(){
+	}
+
+	/**
+	 * @param type The operation type
+	 * @param targetId The id of the element on which the operation has to be executed
+	 * @param path The path of the element
+	 */
+	public PathOperation(FileSystemOperationType type, long targetId, String path) {
+		super(type, targetId);
+		this.path = path;
+	}
+
+	/**
+	 * Gets the path of the element on which the operation has to be executed
+	 * @return The path of the element
+	 */
+	public String getPath() {
+		return path;
+	}
+
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		super.writeData(out);
+		out.writeUTF(path);
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		super.readData(in);
+		path = in.readUTF();
+	}
+
+}
@@ -5,7 +5,9 @@ import java.io.Serializable;
 import edu.cmu.pdl.metadatabench.master.progress.ProgressMonitor;
 
 /**
- * A message sent by a slave to notify the master how many operations it has completed so far.
+ * A message sent by a slave to notify the master how many operations it has completed so far. The completed 
+ * operations are the credits returned to the master. The number is cumulative, so a lost or reordered report 
+ * is made up for by the next one.
  * 
  * @author emil.rakadjiev
  *
@@ -14,14 +16,17 @@ import edu.cmu.pdl.metadatabench.master.progress.ProgressMonitor;
 public class ProgressReport implements Runnable, Serializable {
 
 	private int nodeId;
+	private int phase;
 	private long operationsDone;
 	
 	/**
 	 * @param nodeId The id of the slave sending the report
+	 * @param phase The generation phase, in which the operations have been done
 	 * @param operationsDone The number of operations that the slave has done so far
 	 */
-	public ProgressReport(int nodeId, long operationsDone) {
+	public ProgressReport(int nodeId, int phase, long operationsDone) {
 		this.nodeId = nodeId;
+		this.phase = phase;
 		this.operationsDone = operationsDone;
 	}
 	
@@ -33,6 +38,14 @@ public class ProgressReport implements Runnable, Serializable {
 		return nodeId;
 	}
 
+	/**
+	 * Gets the generation phase, in which the operations have been done
+	 * @return The generation phase
+	 */
+	public int getPhase() {
+		return phase;
+	}
+
 	/**
 	 * Gets the number of operations that the slave has done so far
 	 * @return The number of operations that the slave has done so far
@@ -43,7 +56,7 @@ public class ProgressReport implements Runnable, Serializable {
 
 	@Override
 	public void run() {
-		ProgressMonitor.reportCompletedOperations(nodeId, operationsDone);
+		ProgressMonitor.reportCompletedOperations(nodeId, phase, operationsDone);
 	}
 
 }
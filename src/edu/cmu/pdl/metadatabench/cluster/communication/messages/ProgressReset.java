@@ -1,24 +1,38 @@
 package edu.cmu.pdl.metadatabench.cluster.communication.messages;
 
 import java.io.Serializable;
+import java.util.concurrent.Callable;
 
+import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.slave.progress.Progress;
-import edu.cmu.pdl.metadatabench.slave.progress.ProgressReporter;
 
 /**
  * A message notifying a slave that a generation step (directory creation, file creation or workload) 
- * has been completed and it should reset its progress.
+ * has been completed and it should reset its progress and count the operations of the next phase. 
+ * The master waits for the answers of all slaves, so the message is a barrier between two phases. 
+ * Each slave answers with the credit window it grants the master for the next phase.
+ * 
+ * @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow()
  * 
  * @author emil.rakadjiev
  *
  */
 @SuppressWarnings("serial")
-public class ProgressReset implements Runnable, Serializable {
+public class ProgressReset implements Callable<Integer>, Serializable {
 
+	private int nextPhase;
+	
+	/**
+	 * @param nextPhase The number of the next generation phase
+	 */
+	public ProgressReset(int nextPhase) {
+		this.nextPhase = nextPhase;
+	}
+	
 	@Override
-	public void run() {
-		Progress.reset();
-		ProgressReporter.reset();
+	public Integer call() {
+		Progress.reset(nextPhase);
+		return Config.getSlaveCreditWindow();
 	}
 
 }
@@ -1,9 +1,15 @@
 package edu.cmu.pdl.metadatabench.cluster.communication.messages;
 
-import java.io.Serializable;
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+import com.hazelcast.nio.DataSerializable;
 
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.common.VarInt;
 import edu.cmu.pdl.metadatabench.slave.Slave;
+import edu.cmu.pdl.metadatabench.slave.progress.Progress;
 
 /**
  * A command to execute an operation on a directory or file.
@@ -12,15 +18,33 @@ import edu.cmu.pdl.metadatabench.slave.Slave;
  * This class is used for operations that do not need extra parameters. E.g. delete, ls, open or even 
  * mkdir and create if the path has already been stored in the distributed map.
  * 
+ * Operations are sent very often, so they use a compact binary serialization format instead of the default 
+ * Java serialization: the operation type is written as a single byte and the ids as variable-length 
+ * integers (see {@link VarInt}).
+ * 
+ * An operation can carry its intended start time, that is the cluster time when the generator released it. 
+ * The slave uses it to measure the response time of the operation (including the time spent in dispatching 
+ * and queues), in addition to its service time.
  * 
  * @author emil.rakadjiev
  *
  */
 @SuppressWarnings("serial")
-public class SimpleOperation implements Runnable, Serializable {
+public class SimpleOperation implements Runnable, DataSerializable {
 
+	/** Used for decoding the operation type from its ordinal */
+	private static final FileSystemOperationType[] TYPES = FileSystemOperationType.values();
+	
 	private FileSystemOperationType type;
 	private long targetId;
+	/** The cluster time (in milliseconds) when the operation was intended to start, 0 if unknown */
+	private long intendedStartTime;
+	
+	/**
+	 * Needed for deserialization
+	 */
+	public SimpleOperation(){
+	}
 	
 	/**
 	 * @param type The type of operation to be executed
@@ -49,9 +73,42 @@ public class SimpleOperation implements Runnable, Serializable {
 		return targetId;
 	}
 
+	/**
+	 * Gets the cluster time when the operation was intended to start, that is, when the generator released it
+	 * 
+	 * @return The intended start time of the operation in milliseconds (cluster time), 0 if unknown
+	 */
+	public long getIntendedStartTime() {
+		return intendedStartTime;
+	}
+	
+	/**
+	 * Sets the cluster time when the operation was intended to start
+	 * 
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
+	 */
+	public void setIntendedStartTime(long intendedStartTime) {
+		this.intendedStartTime = intendedStartTime;
+	}
+
 	@Override
 	public void run() {
+		Progress.reportReceivedOperations(1);
 		Slave.getOperationHandler().handleOperation(this);
 	}
 	
+	@Override
+	public void writeData(DataOutput out) throws IOException {
+		out.writeByte(type.ordinal());
+		VarInt.writeVarLong(out, targetId);
+		VarInt.writeVarLong(out, intendedStartTime);
+	}
+
+	@Override
+	public void readData(DataInput in) throws IOException {
+		type = TYPES[in.readByte()];
+		targetId = VarInt.readVarLong(in);
+		intendedStartTime = VarInt.readVarLong(in);
+	}
+	
 }
@@ -25,6 +25,28 @@ public class Config {
 	
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getPathSeparator() */
 	private static char pathSeparator = '/';
+	/** Namespace store keeping the paths in distributed Hazelcast maps */
+	public static final String NAMESPACE_STORE_HAZELCAST = "hazelcast";
+	/** Namespace store keeping the paths off-heap in the memory of the slaves */
+	public static final String NAMESPACE_STORE_OFFHEAP = "offheap";
+	/** Namespace store keeping the parent id and name of each element in distributed Hazelcast maps */
+	public static final String NAMESPACE_STORE_PARENT_POINTER = "parentpointer";
+	/** Access distribution selecting the directories and files uniformly */
+	public static final String WORKLOAD_DISTRIBUTION_UNIFORM = "uniform";
+	/** Access distribution selecting the directories and files using Zipfian distribution, the first created ones are the most popular */
+	public static final String WORKLOAD_DISTRIBUTION_ZIPFIAN = "zipfian";
+	/** Access distribution selecting the directories and files using Zipfian distribution, the most recently created ones are the most popular */
+	public static final String WORKLOAD_DISTRIBUTION_LATEST = "latest";
+	/** Access distribution selecting the directories and files using Zipfian distribution, the popular ones are scattered across the namespace */
+	public static final String WORKLOAD_DISTRIBUTION_SCRAMBLED_ZIPFIAN = "scrambledzipfian";
+	/** Access distribution selecting the directories and files from a hot set and a cold set */
+	public static final String WORKLOAD_DISTRIBUTION_HOTSPOT = "hotspot";
+	/** Access distribution scanning the directories and files sequentially */
+	public static final String WORKLOAD_DISTRIBUTION_SEQUENTIAL = "sequential";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceStore() */
+	private static String namespaceStore = NAMESPACE_STORE_HAZELCAST;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePathCacheSize() */
+	private static int namespacePathCacheSize = 100000;
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkDir() */
 	private static String workDir = "/workDir";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getDirNamePrefix() */
@@ -35,6 +57,14 @@ public class Config {
 	private static String workloadRenameSuffix = ".r";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getDeleteNamespace() */
 	private static boolean deleteNamespace = false;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths() */
+	private static boolean namespaceResolvePaths = false;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceDirWaveGrowth() */
+	private static double namespaceDirWaveGrowth = 0;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePreload() */
+	private static boolean namespacePreload = false;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceSnapshotFile() */
+	private static String namespaceSnapshotFile = "";
 	
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadOperationProbabilities() */
 	private static Map<FileSystemOperationType,Double> workloadOperationProbabilities = new HashMap<FileSystemOperationType,Double>();
@@ -43,12 +73,38 @@ public class Config {
 	private static int workloadAccessedElementCacheMaxSize = 110000;
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheTTL() */
 	private static long workloadAccessedElementCacheTTL = 5000;
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps() */
-	private static int workloadThrottleAfterGeneratedOps = 100000;
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleContinueThreshold() */
-	private static int workloadThrottleContinueThreshold = 2000;
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleDuration() */
-	private static int workloadThrottleDuration = 900;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchSize() */
+	private static int dispatchBatchSize = 1;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchMaxDelay() */
+	private static int dispatchBatchMaxDelay = 100;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadGeneratorThreads() */
+	private static int workloadGeneratorThreads = 1;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadSeed() */
+	private static long workloadSeed = 0;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution() */
+	private static String workloadDistribution = WORKLOAD_DISTRIBUTION_LATEST;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadZipfianConstant() */
+	private static double workloadZipfianConstant = 0.99;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotDataFraction() */
+	private static double workloadHotspotDataFraction = 0.2;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotOpFraction() */
+	private static double workloadHotspotOpFraction = 0.8;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput() */
+	private static int workloadTargetThroughput = 0;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadRampUpTime() */
+	private static int workloadRampUpTime = 0;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile() */
+	private static String workloadTraceFile = "";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceReplay() */
+	private static boolean workloadTraceReplay = false;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceOriginalTiming() */
+	private static boolean workloadTraceOriginalTiming = true;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile() */
+	private static String workloadAuditLogFile = "";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogSpeedup() */
+	private static double workloadAuditLogSpeedup = 1;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogMaxPaths() */
+	private static int workloadAuditLogMaxPaths = 1000000;
 	
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementWarmUpTime() */
 	private static int measurementWarmUpTime = 0;
@@ -58,10 +114,24 @@ public class Config {
 	private static int measurementHistogramBuckets = 1000;
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementTimeSeriesGranularity() */
 	private static int measurementTimeSeriesGranularity = 1000;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#isMeasurementHdrHistogram() */
+	private static boolean measurementHdrHistogram = false;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementHdrHistogramDigits() */
+	private static int measurementHdrHistogramDigits = 2;
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveThreadPoolSize() */
 	private static int slaveThreadPoolSize = 100;
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveProgressReportFrequencyMillis() */
 	private static int slaveProgressReportFrequencyMillis = 2500;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow() */
+	private static int slaveCreditWindow = 25000;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditBatch() */
+	private static int slaveCreditBatch = 500;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveParentWaitTimeoutMillis() */
+	private static int slaveParentWaitTimeoutMillis = 60000;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadThreads() */
+	private static int slavePreloadThreads = 16;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadBatchSize() */
+	private static int slavePreloadBatchSize = 10000;
 
 	/* Set the default operation probabilities */
 	static{
@@ -141,6 +211,35 @@ public class Config {
 		Config.pathSeparator = pathSeparator;
 	}
 	
+	/** 
+	 * The storage used for the namespace map (the mapping of directory and file ids to paths): "hazelcast" (the 
+	 * paths are stored in distributed Hazelcast maps), "offheap" (the paths are stored off-heap in primitive 
+	 * tables, which needs much less memory, but has no backups) or "parentpointer" (the parent id and the name 
+	 * of each element are stored in distributed Hazelcast maps and the paths are reconstructed on demand). 
+	 * Has to be the same on all nodes.
+	 */
+	public static String getNamespaceStore() {
+		return namespaceStore;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceStore() */
+	public static void setNamespaceStore(String namespaceStore) {
+		Config.namespaceStore = namespaceStore;
+	}
+	
+	/** 
+	 * The maximum number of directory paths cached by each node, if the parent pointer namespace store is used. 
+	 * The paths of the cached directories do not have to be reconstructed from the distributed namespace map. 
+	 */
+	public static int getNamespacePathCacheSize() {
+		return namespacePathCacheSize;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePathCacheSize() */
+	public static void setNamespacePathCacheSize(int namespacePathCacheSize) {
+		Config.namespacePathCacheSize = namespacePathCacheSize;
+	}
+	
 	/** The directory where the benchmark will operate (basically the root directory for the benchmark namespace */
 	public static String getWorkDir() {
 		return workDir;
@@ -196,6 +295,68 @@ public class Config {
 		Config.deleteNamespace = deleteNamespace;
 	}
 	
+	/**
+	 * If true, the master keeps a compact index of the generated namespace (the parent of each directory and file 
+	 * and the rename count of each file) and resolves the paths of the elements itself, because the names are 
+	 * derived deterministically from the ids. Read operations (ls file, ls dir and open) then carry the resolved path 
+	 * and the slaves execute them without reading the namespace map. Operations that modify the namespace still 
+	 * update the namespace map. The index needs about 4 bytes per directory and 8 bytes per file in the master.
+	 */
+	public static boolean getNamespaceResolvePaths() {
+		return namespaceResolvePaths;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths() */
+	public static void setNamespaceResolvePaths(boolean namespaceResolvePaths) {
+		Config.namespaceResolvePaths = namespaceResolvePaths;
+	}
+	
+	/**
+	 * If positive, the directories are generated in dependency waves: the parents of the directories in a wave are 
+	 * only selected from the directories created by the previous waves, and the master waits for a wave to be 
+	 * executed before generating the next one. Thus, no directory creation has to wait for its parent at the 
+	 * slaves. The value is the size of each wave relative to the number of directories created before it, e.g. 
+	 * 1 doubles the number of directories in each wave. A larger value means fewer waits, but a coarser 
+	 * approximation of the parent selection of the directory creation strategy. 0 disables the waves.
+	 * The waves assume that a single master generates the namespace.
+	 */
+	public static double getNamespaceDirWaveGrowth() {
+		return namespaceDirWaveGrowth;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceDirWaveGrowth() */
+	public static void setNamespaceDirWaveGrowth(double namespaceDirWaveGrowth) {
+		Config.namespaceDirWaveGrowth = namespaceDirWaveGrowth;
+	}
+	
+	/**
+	 * If true, the namespace is not generated, but the namespace already existing in the work directory of the 
+	 * file system (e.g. generated by a previous run) is loaded into the namespace map by the slaves. The 
+	 * number of directories and files of the workload is then determined by the loaded namespace.
+	 */
+	public static boolean getNamespacePreload() {
+		return namespacePreload;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePreload() */
+	public static void setNamespacePreload(boolean namespacePreload) {
+		Config.namespacePreload = namespacePreload;
+	}
+	
+	/**
+	 * The file on the local disk of the master where a snapshot of the namespace is kept, empty if no snapshot is 
+	 * used. If the file exists, the namespace is restored from it instead of being generated (the file system has 
+	 * to hold the namespace of the snapshot). After the workload, the current namespace is written to the file.
+	 */
+	public static String getNamespaceSnapshotFile() {
+		return namespaceSnapshotFile;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceSnapshotFile() */
+	public static void setNamespaceSnapshotFile(String namespaceSnapshotFile) {
+		Config.namespaceSnapshotFile = namespaceSnapshotFile;
+	}
+	
 	/**
 	 * Map of operation types and their probability. An operation probability is the percentage of operations of the 
 	 * given type in the workload ({@link edu.cmu.pdl.metadatabench.common.Config#getNumberOfOps()}). The values 
@@ -220,7 +381,7 @@ public class Config {
 	 * operation could get executed before the open, leading to an error.
 	 * This parameter specifies the maximum size of the cache.
 	 * If throttling is needed for your workload, setting the maximum size of the cache to a value slightly 
-	 * higher than {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps()} 
+	 * higher than the sum of the {@link edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow()} of all slaves 
 	 * and adjusting the {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheTTL()} 
 	 * parameter can minimize or prevent file system access conflicts.
 	 * Note that this cache is local to the workload generator (in the master).
@@ -237,7 +398,8 @@ public class Config {
 
 	/**
 	 * This parameter specifies the time that has to pass between generating two operations that access the same 
-	 * directory or file.
+	 * directory or file. A replayed trace or audit log defers the operations on a new directory or file by this time 
+	 * after its creation.
 	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheMaxSize() 
 	 */
 	public static long getWorkloadAccessedElementCacheTTL() {
@@ -250,54 +412,229 @@ public class Config {
 		Config.workloadAccessedElementCacheTTL = workloadAccessedElementCacheTTL;
 	}
 
-	/** 
-	 * If the generator is faster than the slaves or the file system under test, then unexecuted operations 
-	 * could queue up and slow the down the benchmark. Thus, this option is provided to throttle the generation 
-	 * and prevent such an overload of the distributed system.
-	 * This parameter specifies after how many generated operations, the benchmark should check whether the slaves 
-	 * could process a sufficient amount of the generated operations. For example, if you set this parameter to 
-	 * 100000, then after every 100000th generated operation, the master will check how many operations have been 
-	 * executed by the slaves and if needed, it will sleep until a given threshold has been reached.
-	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleContinueThreshold() 
+	/**
+	 * The maximum number of operations that are sent to a slave in one message. Operations are grouped by the 
+	 * slave that owns the element they target. Batching reduces the number of messages (and serializations) 
+	 * the master has to send, but delays the dispatch of the operations until the batch is full or 
+	 * {@link edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchMaxDelay()} has passed. 
+	 * A value of 1 switches batching off and every operation is sent in its own message.
 	 */
-	public static int getWorkloadThrottleAfterGeneratedOps() {
-		return workloadThrottleAfterGeneratedOps;
+	public static int getDispatchBatchSize() {
+		return dispatchBatchSize;
 	}
 
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps() */
-	public static void setWorkloadThrottleAfterGeneratedOps(
-			int workloadThrottleAfterGeneratedOps) {
-		Config.workloadThrottleAfterGeneratedOps = workloadThrottleAfterGeneratedOps;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchSize() */
+	public static void setDispatchBatchSize(int dispatchBatchSize) {
+		Config.dispatchBatchSize = dispatchBatchSize;
 	}
 
-	/** 
-	 * Specifies the maximum difference between generated and executed operations that has to be reached 
-	 * before continuing with the generation. For example if this parameter is set to 2000 and 
-	 * {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps()} is 100000, 
-	 * then the master will wait until at least 98000 operations have been executed before generating new operations. 
+	/**
+	 * The maximum time (in milliseconds) that an operation may wait in a batch before the batch is sent, 
+	 * even if it is not full.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchSize()
 	 */
-	public static int getWorkloadThrottleContinueThreshold() {
-		return workloadThrottleContinueThreshold;
+	public static int getDispatchBatchMaxDelay() {
+		return dispatchBatchMaxDelay;
 	}
 
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleContinueThreshold() */
-	public static void setWorkloadThrottleContinueThreshold(
-			int workloadThrottleContinueThreshold) {
-		Config.workloadThrottleContinueThreshold = workloadThrottleContinueThreshold;
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchMaxDelay() */
+	public static void setDispatchBatchMaxDelay(int dispatchBatchMaxDelay) {
+		Config.dispatchBatchMaxDelay = dispatchBatchMaxDelay;
 	}
 
-	/** 
-	 * The time to sleep between two checks whether the needed amount of operations have been executed by the slaves.
-	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps() 
-	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleContinueThreshold() 
+	/**
+	 * The number of threads that generate the workload in the master. Each thread generates an equal share of 
+	 * the operations, using its own random number generators. More threads are needed to saturate large clusters.
 	 */
-	public static int getWorkloadThrottleDuration() {
-		return workloadThrottleDuration;
+	public static int getWorkloadGeneratorThreads() {
+		return workloadGeneratorThreads;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadGeneratorThreads() */
+	public static void setWorkloadGeneratorThreads(int workloadGeneratorThreads) {
+		Config.workloadGeneratorThreads = workloadGeneratorThreads;
 	}
 
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleDuration() */
-	public static void setWorkloadThrottleDuration(int workloadThrottleDuration) {
-		Config.workloadThrottleDuration = workloadThrottleDuration;
+	/**
+	 * The seed of the random number generators used by the workload generator. Each generator thread derives 
+	 * its own seed from this value. 0 means that a random seed is used.
+	 */
+	public static long getWorkloadSeed() {
+		return workloadSeed;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadSeed() */
+	public static void setWorkloadSeed(long workloadSeed) {
+		Config.workloadSeed = workloadSeed;
+	}
+
+	/**
+	 * The distribution used to select the directories and files accessed by the workload: "uniform", "zipfian" 
+	 * (the first created elements are the most popular), "latest" (Zipfian, the most recently created elements are 
+	 * the most popular), "scrambledzipfian" (Zipfian, the popular elements are scattered across the namespace), 
+	 * "hotspot" (a hot set and a cold set, see {@link #getWorkloadHotspotDataFraction()}) or "sequential" (each 
+	 * generator thread scans the namespace).
+	 */
+	public static String getWorkloadDistribution() {
+		return workloadDistribution;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution() */
+	public static void setWorkloadDistribution(String workloadDistribution) {
+		Config.workloadDistribution = workloadDistribution;
+	}
+
+	/**
+	 * The skew constant (theta) of the Zipfian distributions used to select the directories and files accessed by 
+	 * the workload. 0 is uniform, values closer to 1 concentrate the accesses on fewer elements.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution()
+	 */
+	public static double getWorkloadZipfianConstant() {
+		return workloadZipfianConstant;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadZipfianConstant() */
+	public static void setWorkloadZipfianConstant(double workloadZipfianConstant) {
+		Config.workloadZipfianConstant = workloadZipfianConstant;
+	}
+
+	/**
+	 * The fraction of the directories and files (those with the lowest ids) in the hot set of the hotspot 
+	 * distribution.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution()
+	 */
+	public static double getWorkloadHotspotDataFraction() {
+		return workloadHotspotDataFraction;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotDataFraction() */
+	public static void setWorkloadHotspotDataFraction(double workloadHotspotDataFraction) {
+		Config.workloadHotspotDataFraction = workloadHotspotDataFraction;
+	}
+
+	/**
+	 * The fraction of the accesses to the hot set of the hotspot distribution.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution()
+	 */
+	public static double getWorkloadHotspotOpFraction() {
+		return workloadHotspotOpFraction;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotOpFraction() */
+	public static void setWorkloadHotspotOpFraction(double workloadHotspotOpFraction) {
+		Config.workloadHotspotOpFraction = workloadHotspotOpFraction;
+	}
+
+	/**
+	 * The target throughput (operations per second) of the workload. If it is larger than 0, the workload is 
+	 * generated open-loop: the operations are dispatched at the given rate, regardless of how fast the slaves 
+	 * execute them, and throttling is switched off. 0 means that the operations are generated as fast as 
+	 * possible (closed-loop, see {@link edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow()}).
+	 */
+	public static int getWorkloadTargetThroughput() {
+		return workloadTargetThroughput;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput() */
+	public static void setWorkloadTargetThroughput(int workloadTargetThroughput) {
+		Config.workloadTargetThroughput = workloadTargetThroughput;
+	}
+
+	/**
+	 * The time (in milliseconds) during which the rate of the open-loop workload is linearly increased from 0 to 
+	 * the target throughput. 0 means that the target throughput is applied from the start.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput()
+	 */
+	public static int getWorkloadRampUpTime() {
+		return workloadRampUpTime;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadRampUpTime() */
+	public static void setWorkloadRampUpTime(int workloadRampUpTime) {
+		Config.workloadRampUpTime = workloadRampUpTime;
+	}
+
+	/**
+	 * The file of the workload trace, empty if no trace is used. The generated workload is recorded in the file, 
+	 * or the workload is replayed from it (see {@link #getWorkloadTraceReplay()}).
+	 */
+	public static String getWorkloadTraceFile() {
+		return workloadTraceFile;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile() */
+	public static void setWorkloadTraceFile(String workloadTraceFile) {
+		Config.workloadTraceFile = workloadTraceFile;
+	}
+
+	/**
+	 * If true, the workload is replayed from the trace file instead of being generated, otherwise the generated 
+	 * workload is recorded in the trace file.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile()
+	 */
+	public static boolean getWorkloadTraceReplay() {
+		return workloadTraceReplay;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceReplay() */
+	public static void setWorkloadTraceReplay(boolean workloadTraceReplay) {
+		Config.workloadTraceReplay = workloadTraceReplay;
+	}
+
+	/**
+	 * If true, a replayed trace is dispatched at the original timing of the operations, otherwise as fast as 
+	 * possible.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceReplay()
+	 */
+	public static boolean getWorkloadTraceOriginalTiming() {
+		return workloadTraceOriginalTiming;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceOriginalTiming() */
+	public static void setWorkloadTraceOriginalTiming(boolean workloadTraceOriginalTiming) {
+		Config.workloadTraceOriginalTiming = workloadTraceOriginalTiming;
+	}
+
+	/**
+	 * The HDFS NameNode audit log replayed as the workload, empty if the workload is generated. 
+	 * @see edu.cmu.pdl.metadatabench.master.workload.AuditLogReplayer
+	 */
+	public static String getWorkloadAuditLogFile() {
+		return workloadAuditLogFile;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile() */
+	public static void setWorkloadAuditLogFile(String workloadAuditLogFile) {
+		Config.workloadAuditLogFile = workloadAuditLogFile;
+	}
+
+	/**
+	 * The factor by which the inter-arrival times of the audit log are accelerated, e.g. 2 replays the log in half 
+	 * of its original time. 0 means that the operations are dispatched as fast as possible.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile()
+	 */
+	public static double getWorkloadAuditLogSpeedup() {
+		return workloadAuditLogSpeedup;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogSpeedup() */
+	public static void setWorkloadAuditLogSpeedup(double workloadAuditLogSpeedup) {
+		Config.workloadAuditLogSpeedup = workloadAuditLogSpeedup;
+	}
+
+	/**
+	 * The maximum number of directory paths and of file paths of the audit log whose ids are remembered. Each path 
+	 * takes about 150 bytes of the master's memory plus two bytes per character. If the limit is exceeded, the least 
+	 * recently accessed path is forgotten and is mapped by its hash again when it is accessed the next time.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile()
+	 */
+	public static int getWorkloadAuditLogMaxPaths() {
+		return workloadAuditLogMaxPaths;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogMaxPaths() */
+	public static void setWorkloadAuditLogMaxPaths(int workloadAuditLogMaxPaths) {
+		Config.workloadAuditLogMaxPaths = workloadAuditLogMaxPaths;
 	}
 
 	/** The warm-up time of the system, that is, the time to wait between starting the operation execution and starting the measurements. */
@@ -355,6 +692,35 @@ public class Config {
 		Config.measurementTimeSeriesGranularity = measurementTimeSeriesGranularity;
 	}
 
+	/**
+	 * If true, the measurement type will be high dynamic range histogram (with microsecond resolution and 
+	 * exact tail percentiles). Takes precedence over {@link edu.cmu.pdl.metadatabench.common.Config#isMeasurementHistogram()}.
+	 * @see edu.cmu.pdl.metadatabench.measurement.Measurements
+	 * @see edu.cmu.pdl.metadatabench.measurement.OneMeasurementHdrHistogram
+	 */
+	public static boolean isMeasurementHdrHistogram() {
+		return measurementHdrHistogram;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#isMeasurementHdrHistogram() */
+	public static void setMeasurementHdrHistogram(boolean measurementHdrHistogram) {
+		Config.measurementHdrHistogram = measurementHdrHistogram;
+	}
+
+	/**
+	 * The precision of the high dynamic range histogram, given as the number of significant decimal digits 
+	 * of the recorded values (between 1 and 4). 
+	 * @see edu.cmu.pdl.metadatabench.measurement.OneMeasurementHdrHistogram
+	 */
+	public static int getMeasurementHdrHistogramDigits() {
+		return measurementHdrHistogramDigits;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementHdrHistogramDigits() */
+	public static void setMeasurementHdrHistogramDigits(int measurementHdrHistogramDigits) {
+		Config.measurementHdrHistogramDigits = measurementHdrHistogramDigits;
+	}
+
 	/** The size of the thread pool used for file system operation execution at each slave. */
 	public static int getSlaveThreadPoolSize() {
 		return slaveThreadPoolSize;
@@ -365,7 +731,10 @@ public class Config {
 		Config.slaveThreadPoolSize = slaveThreadPoolSize;
 	}
 
-	/** The frequency (in milliseconds) with which each slave should report its progress (number of executed operations) to the master. */
+	/** 
+	 * The maximum time (in milliseconds) after which each slave reports its progress (number of executed operations) 
+	 * to the master. Usually the progress is reported earlier, see {@link edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditBatch()}.
+	 */
 	public static int getSlaveProgressReportFrequencyMillis() {
 		return slaveProgressReportFrequencyMillis;
 	}
@@ -376,4 +745,68 @@ public class Config {
 		Config.slaveProgressReportFrequencyMillis = slaveProgressReportFrequencyMillis;
 	}
 	
+	/** 
+	 * If the generator is faster than the slaves or the file system under test, then unexecuted operations 
+	 * could queue up and slow the down the benchmark. Thus, the generation is throttled with credit-based 
+	 * flow control: each slave grants the master a window of operations that may be outstanding (generated, 
+	 * but not executed yet). The master blocks when the sum of the windows of all slaves is used up, and 
+	 * continues as soon as the slaves report executed operations. 0 switches throttling off.
+	 */
+	public static int getSlaveCreditWindow() {
+		return slaveCreditWindow;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow() */
+	public static void setSlaveCreditWindow(int slaveCreditWindow) {
+		Config.slaveCreditWindow = slaveCreditWindow;
+	}
+	
+	/** 
+	 * The number of executed operations after which a slave returns the credits for them to the master 
+	 * (reports its progress). A slave also reports its progress as soon as it has executed all received operations, 
+	 * but at most every 10 ms.
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow()
+	 */
+	public static int getSlaveCreditBatch() {
+		return slaveCreditBatch;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditBatch() */
+	public static void setSlaveCreditBatch(int slaveCreditBatch) {
+		Config.slaveCreditBatch = slaveCreditBatch;
+	}
+	
+	/** 
+	 * The maximum time (in milliseconds) an operation waits at a slave for its parent directory to be created. 
+	 * If the parent directory is not created in time, the operation is reported as failed. 
+	 */
+	public static int getSlaveParentWaitTimeoutMillis() {
+		return slaveParentWaitTimeoutMillis;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveParentWaitTimeoutMillis() */
+	public static void setSlaveParentWaitTimeoutMillis(int slaveParentWaitTimeoutMillis) {
+		Config.slaveParentWaitTimeoutMillis = slaveParentWaitTimeoutMillis;
+	}
+	
+	/** The number of threads at each slave listing the directories of the file system when loading an existing namespace. */
+	public static int getSlavePreloadThreads() {
+		return slavePreloadThreads;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadThreads() */
+	public static void setSlavePreloadThreads(int slavePreloadThreads) {
+		Config.slavePreloadThreads = slavePreloadThreads;
+	}
+	
+	/** The number of directories or files stored in the namespace map at once when loading an existing namespace. */
+	public static int getSlavePreloadBatchSize() {
+		return slavePreloadBatchSize;
+	}
+
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadBatchSize() */
+	public static void setSlavePreloadBatchSize(int slavePreloadBatchSize) {
+		Config.slavePreloadBatchSize = slavePreloadBatchSize;
+	}
+	
 }
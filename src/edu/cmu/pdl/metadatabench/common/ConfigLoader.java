@@ -39,6 +39,10 @@ public class ConfigLoader {
 	
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getPathSeparator() */
 	private static final String PATH_SEPARATOR = 							"misc.pathseparator";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceStore() */
+	private static final String NAMESPACE_STORE = 							"misc.namespacestore";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePathCacheSize() */
+	private static final String NAMESPACE_PATH_CACHE_SIZE = 				"misc.namespacepathcachesize";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkDir() */
 	private static final String WORK_DIR = 								"master.namespace.workdir";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getDirNamePrefix() */
@@ -47,18 +51,52 @@ public class ConfigLoader {
 	private static final String FILE_NAME_PREFIX = 							"master.namespace.filenameprefix";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getDeleteNamespace() */
 	private static final String DELETE_NAMESPACE = 							"master.namespace.delete";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths() */
+	private static final String NAMESPACE_RESOLVE_PATHS = 					"master.namespace.resolvepaths";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceDirWaveGrowth() */
+	private static final String NAMESPACE_DIR_WAVE_GROWTH = 				"master.namespace.dirwavegrowth";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespacePreload() */
+	private static final String NAMESPACE_PRELOAD = 						"master.namespace.preload";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceSnapshotFile() */
+	private static final String NAMESPACE_SNAPSHOT_FILE = 					"master.namespace.snapshot";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadRenameSuffix() */
 	private static final String WORKLOAD_RENAME_SUFFIX = 					"master.workload.renamesuffix";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheMaxSize() */
 	private static final String WORKLOAD_ACCESSED_ELEMENT_CACHE_MAX_SIZE = 	"master.workload.accessedelementcache.maxsize";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheTTL() */
 	private static final String WORKLOAD_ACCESSED_ELEMENT_CACHE_TTL = 		"master.workload.accessedelementcache.ttl";
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleAfterGeneratedOps() */
-	private static final String WORKLOAD_THROTTLE_AFTER_GENERATED_OPS =		"master.workload.throttle.aftergeneratedops";
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleContinueThreshold() */
-	private static final String WORKLOAD_THROTTLE_CONTINUE_THRESHOLD =		"master.workload.throttle.continuethreshold";
-	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadThrottleDuration() */
-	private static final String WORKLOAD_THROTTLE_DURATION = 				"master.workload.throttle.duration";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchSize() */
+	private static final String DISPATCH_BATCH_SIZE = 						"master.dispatch.batchsize";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getDispatchBatchMaxDelay() */
+	private static final String DISPATCH_BATCH_MAX_DELAY = 					"master.dispatch.batchmaxdelay";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadGeneratorThreads() */
+	private static final String WORKLOAD_GENERATOR_THREADS = 				"master.workload.threads";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadSeed() */
+	private static final String WORKLOAD_SEED = 							"master.workload.seed";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution() */
+	private static final String WORKLOAD_DISTRIBUTION = 					"master.workload.distribution";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadZipfianConstant() */
+	private static final String WORKLOAD_ZIPFIAN_CONSTANT = 				"master.workload.zipfianconstant";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotDataFraction() */
+	private static final String WORKLOAD_HOTSPOT_DATA_FRACTION = 			"master.workload.hotspot.datafraction";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadHotspotOpFraction() */
+	private static final String WORKLOAD_HOTSPOT_OP_FRACTION = 			"master.workload.hotspot.opfraction";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput() */
+	private static final String WORKLOAD_TARGET_THROUGHPUT = 				"master.workload.targetthroughput";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadRampUpTime() */
+	private static final String WORKLOAD_RAMP_UP_TIME = 					"master.workload.rampup";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile() */
+	private static final String WORKLOAD_TRACE_FILE = 						"master.workload.trace";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceReplay() */
+	private static final String WORKLOAD_TRACE_REPLAY = 					"master.workload.trace.replay";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceOriginalTiming() */
+	private static final String WORKLOAD_TRACE_ORIGINAL_TIMING = 			"master.workload.trace.originaltiming";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile() */
+	private static final String WORKLOAD_AUDIT_LOG_FILE = 					"master.workload.auditlog";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogSpeedup() */
+	private static final String WORKLOAD_AUDIT_LOG_SPEEDUP = 				"master.workload.auditlog.speedup";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogMaxPaths() */
+	private static final String WORKLOAD_AUDIT_LOG_MAX_PATHS = 				"master.workload.auditlog.maxpaths";
 
 	/** 
 	 * The probability that a create file operation is generated, that is the percentage of 
@@ -115,10 +153,22 @@ public class ConfigLoader {
 	private static final String MEASUREMENT_HISTOGRAM_BUCKETS = 			"measurement.histogrambuckets";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementTimeSeriesGranularity() */
 	private static final String MEASUREMENT_TIMESERIES_GRANULARITY = 		"measurement.timeseriesgranularity";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementHdrHistogramDigits() */
+	private static final String MEASUREMENT_HDR_HISTOGRAM_DIGITS = 			"measurement.hdrhistogramdigits";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveThreadPoolSize() */
 	private static final String SLAVE_THREADPOOL_SIZE = 					"slave.threadpoolsize";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveProgressReportFrequencyMillis() */
 	private static final String SLAVE_PROGRESS_REPORT_FREQUENCY_MILLIS = 	"slave.progressreportfrequency";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditWindow() */
+	private static final String SLAVE_CREDIT_WINDOW = 						"slave.creditwindow";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditBatch() */
+	private static final String SLAVE_CREDIT_BATCH = 						"slave.creditbatch";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveParentWaitTimeoutMillis() */
+	private static final String SLAVE_PARENT_WAIT_TIMEOUT_MILLIS = 		"slave.parentwaittimeout";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadThreads() */
+	private static final String SLAVE_PRELOAD_THREADS = 					"slave.preloadthreads";
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlavePreloadBatchSize() */
+	private static final String SLAVE_PRELOAD_BATCH_SIZE = 				"slave.preloadbatchsize";
 	
 	/**
 	 * Loads the default config file. Looks for the file in both the classpath and the local file system 
@@ -255,6 +305,32 @@ public class ConfigLoader {
 					Config.setPathSeparator(value.charAt(0));
 				}
 				
+			}  else if(NAMESPACE_STORE.equalsIgnoreCase(prop)){
+				
+				if(Config.NAMESPACE_STORE_HAZELCAST.equalsIgnoreCase(value) || Config.NAMESPACE_STORE_OFFHEAP.equalsIgnoreCase(value) 
+						|| Config.NAMESPACE_STORE_PARENT_POINTER.equalsIgnoreCase(value)){
+					log.debug("Set config parameter {} to {}", prop, value);
+					Config.setNamespaceStore(value.toLowerCase());
+				} else {
+					log.warn("Value for config parameter {} must be {}, {} or {}", new Object[]{prop, Config.NAMESPACE_STORE_HAZELCAST, 
+							Config.NAMESPACE_STORE_OFFHEAP, Config.NAMESPACE_STORE_PARENT_POINTER});
+				}
+				
+			}  else if(NAMESPACE_PATH_CACHE_SIZE.equalsIgnoreCase(prop)){
+				
+				try{
+					int size = Integer.parseInt(value);
+					if(size < 0){
+						log.warn("Value for config parameter {} must be a non-negative integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setNamespacePathCacheSize(size);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a non-negative integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
 			}  else if(WORK_DIR.equalsIgnoreCase(prop)){
 				
 				log.debug("Set config parameter {} to {}", prop, value);
@@ -276,6 +352,38 @@ public class ConfigLoader {
 				log.debug("Set config parameter {} to {}", prop, value);
 				Config.setDeleteNamespace(deleteNamespace);
 				
+			} else if(NAMESPACE_RESOLVE_PATHS.equalsIgnoreCase(prop)){
+				
+				boolean resolvePaths = Boolean.parseBoolean(value);
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setNamespaceResolvePaths(resolvePaths);
+				
+			} else if(NAMESPACE_PRELOAD.equalsIgnoreCase(prop)){
+				
+				boolean preload = Boolean.parseBoolean(value);
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setNamespacePreload(preload);
+				
+			} else if(NAMESPACE_SNAPSHOT_FILE.equalsIgnoreCase(prop)){
+				
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setNamespaceSnapshotFile(value.trim());
+				
+			} else if(NAMESPACE_DIR_WAVE_GROWTH.equalsIgnoreCase(prop)){
+				
+				try{
+					double growth = Double.parseDouble(value);
+					if(growth < 0){
+						log.warn("Value for config parameter {} must be a non-negative number", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setNamespaceDirWaveGrowth(growth);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a non-negative number", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
 			} else if(WORKLOAD_RENAME_SUFFIX.equalsIgnoreCase(prop)){
 				
 				log.debug("Set config parameter {} to {}", prop, value);
@@ -311,45 +419,196 @@ public class ConfigLoader {
 					log.debug("Failed parsing config parameter value", e);
 				}
 				
-			} else if(WORKLOAD_THROTTLE_AFTER_GENERATED_OPS.equalsIgnoreCase(prop)){
+			} else if(DISPATCH_BATCH_SIZE.equalsIgnoreCase(prop)){
 				
 				try{
-					int ops = Integer.parseInt(value);
-					if(ops < 1){
+					int size = Integer.parseInt(value);
+					if(size < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setDispatchBatchSize(size);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(DISPATCH_BATCH_MAX_DELAY.equalsIgnoreCase(prop)){
+				
+				try{
+					int delay = Integer.parseInt(value);
+					if(delay < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setDispatchBatchMaxDelay(delay);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_GENERATOR_THREADS.equalsIgnoreCase(prop)){
+				
+				try{
+					int threads = Integer.parseInt(value);
+					if(threads < 1){
 						log.warn("Value for config parameter {} must be a positive integer", prop);
 					} else {
 						log.debug("Set config parameter {} to {}", prop, value);
-						Config.setWorkloadThrottleAfterGeneratedOps(ops);
+						Config.setWorkloadGeneratorThreads(threads);
 					}
 				} catch(NumberFormatException e){
 					log.warn("Value for config parameter {} must be a positive integer", prop);
 					log.debug("Failed parsing config parameter value", e);
 				}
 				
-			} else if(WORKLOAD_THROTTLE_CONTINUE_THRESHOLD.equalsIgnoreCase(prop)){
+			} else if(WORKLOAD_SEED.equalsIgnoreCase(prop)){
 				
 				try{
-					int threshold = Integer.parseInt(value);
-					if(threshold < 0){
+					long seed = Long.parseLong(value);
+					log.debug("Set config parameter {} to {}", prop, value);
+					Config.setWorkloadSeed(seed);
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be an integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_DISTRIBUTION.equalsIgnoreCase(prop)){
+				
+				if(Config.WORKLOAD_DISTRIBUTION_UNIFORM.equalsIgnoreCase(value) || Config.WORKLOAD_DISTRIBUTION_ZIPFIAN.equalsIgnoreCase(value) 
+						|| Config.WORKLOAD_DISTRIBUTION_LATEST.equalsIgnoreCase(value) || Config.WORKLOAD_DISTRIBUTION_SCRAMBLED_ZIPFIAN.equalsIgnoreCase(value) 
+						|| Config.WORKLOAD_DISTRIBUTION_HOTSPOT.equalsIgnoreCase(value) || Config.WORKLOAD_DISTRIBUTION_SEQUENTIAL.equalsIgnoreCase(value)){
+					log.debug("Set config parameter {} to {}", prop, value);
+					Config.setWorkloadDistribution(value.toLowerCase());
+				} else {
+					log.warn("Value for config parameter {} must be {}, {}, {}, {}, {} or {}", new Object[]{prop, Config.WORKLOAD_DISTRIBUTION_UNIFORM, 
+							Config.WORKLOAD_DISTRIBUTION_ZIPFIAN, Config.WORKLOAD_DISTRIBUTION_LATEST, Config.WORKLOAD_DISTRIBUTION_SCRAMBLED_ZIPFIAN, 
+							Config.WORKLOAD_DISTRIBUTION_HOTSPOT, Config.WORKLOAD_DISTRIBUTION_SEQUENTIAL});
+				}
+				
+			} else if(WORKLOAD_ZIPFIAN_CONSTANT.equalsIgnoreCase(prop)){
+				
+				try{
+					double zipfianConstant = Double.parseDouble(value);
+					if(!(zipfianConstant >= 0 && zipfianConstant < 1)){
+						log.warn("Value for config parameter {} must be at least 0 and smaller than 1", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setWorkloadZipfianConstant(zipfianConstant);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be at least 0 and smaller than 1", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_HOTSPOT_DATA_FRACTION.equalsIgnoreCase(prop)){
+				
+				try{
+					double fraction = Double.parseDouble(value);
+					if(!(fraction >= 0 && fraction <= 1)){
+						log.warn("Value for config parameter {} must be between 0 and 1", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setWorkloadHotspotDataFraction(fraction);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be between 0 and 1", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_HOTSPOT_OP_FRACTION.equalsIgnoreCase(prop)){
+				
+				try{
+					double fraction = Double.parseDouble(value);
+					if(!(fraction >= 0 && fraction <= 1)){
+						log.warn("Value for config parameter {} must be between 0 and 1", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setWorkloadHotspotOpFraction(fraction);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be between 0 and 1", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_TARGET_THROUGHPUT.equalsIgnoreCase(prop)){
+				
+				try{
+					int throughput = Integer.parseInt(value);
+					if(throughput < 0){
 						log.warn("Value for config parameter {} must be a positive integer or 0", prop);
 					} else {
 						log.debug("Set config parameter {} to {}", prop, value);
-						Config.setWorkloadThrottleContinueThreshold(threshold);
+						Config.setWorkloadTargetThroughput(throughput);
 					}
 				} catch(NumberFormatException e){
 					log.warn("Value for config parameter {} must be a positive integer or 0", prop);
 					log.debug("Failed parsing config parameter value", e);
 				}
 				
-			}  else if(WORKLOAD_THROTTLE_DURATION.equalsIgnoreCase(prop)){
+			} else if(WORKLOAD_RAMP_UP_TIME.equalsIgnoreCase(prop)){
 				
 				try{
-					int duration = Integer.parseInt(value);
-					if(duration < 1){
+					int rampUp = Integer.parseInt(value);
+					if(rampUp < 0){
+						log.warn("Value for config parameter {} must be a positive integer or 0", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setWorkloadRampUpTime(rampUp);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer or 0", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_TRACE_FILE.equalsIgnoreCase(prop)){
+				
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setWorkloadTraceFile(value.trim());
+				
+			} else if(WORKLOAD_TRACE_REPLAY.equalsIgnoreCase(prop)){
+				
+				boolean replay = Boolean.parseBoolean(value);
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setWorkloadTraceReplay(replay);
+				
+			} else if(WORKLOAD_TRACE_ORIGINAL_TIMING.equalsIgnoreCase(prop)){
+				
+				boolean originalTiming = Boolean.parseBoolean(value);
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setWorkloadTraceOriginalTiming(originalTiming);
+				
+			} else if(WORKLOAD_AUDIT_LOG_FILE.equalsIgnoreCase(prop)){
+				
+				log.debug("Set config parameter {} to {}", prop, value);
+				Config.setWorkloadAuditLogFile(value.trim());
+				
+			} else if(WORKLOAD_AUDIT_LOG_SPEEDUP.equalsIgnoreCase(prop)){
+				
+				try{
+					double speedup = Double.parseDouble(value);
+					if(speedup < 0){
+						log.warn("Value for config parameter {} must be a positive number or 0", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setWorkloadAuditLogSpeedup(speedup);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive number or 0", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(WORKLOAD_AUDIT_LOG_MAX_PATHS.equalsIgnoreCase(prop)){
+				
+				try{
+					int maxPaths = Integer.parseInt(value);
+					if(maxPaths < 1){
 						log.warn("Value for config parameter {} must be a positive integer", prop);
 					} else {
 						log.debug("Set config parameter {} to {}", prop, value);
-						Config.setWorkloadThrottleDuration(duration);
+						Config.setWorkloadAuditLogMaxPaths(maxPaths);
 					}
 				} catch(NumberFormatException e){
 					log.warn("Value for config parameter {} must be a positive integer", prop);
@@ -444,6 +703,26 @@ public class ConfigLoader {
 				}
 				
 				
+			} else if(MEASUREMENT_HDR_HISTOGRAM_DIGITS.equalsIgnoreCase(prop)){
+				
+				if(config.containsKey(MEASUREMENT_HISTOGRAM_BUCKETS) || config.containsKey(MEASUREMENT_TIMESERIES_GRANULARITY)){
+					log.warn("{}, {} and {} are mutually exclusive parameters. Will use {}", new Object[]{prop, MEASUREMENT_HISTOGRAM_BUCKETS, MEASUREMENT_TIMESERIES_GRANULARITY, prop});
+				}
+				
+				try{
+					int digits = Integer.parseInt(value);
+					if((digits < 1) || (digits > 4)){
+						log.warn("Value for config parameter {} must be an integer between 1 and 4", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setMeasurementHdrHistogram(true);
+						Config.setMeasurementHdrHistogramDigits(digits);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be an integer between 1 and 4", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
 			} else if(SLAVE_THREADPOOL_SIZE.equalsIgnoreCase(prop)){
 				
 				try{
@@ -474,6 +753,81 @@ public class ConfigLoader {
 					log.debug("Failed parsing config parameter value", e);
 				}
 				
+			} else if(SLAVE_CREDIT_WINDOW.equalsIgnoreCase(prop)){
+				
+				try{
+					int window = Integer.parseInt(value);
+					if(window < 0){
+						log.warn("Value for config parameter {} must be a positive integer or 0", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setSlaveCreditWindow(window);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer or 0", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(SLAVE_CREDIT_BATCH.equalsIgnoreCase(prop)){
+				
+				try{
+					int batch = Integer.parseInt(value);
+					if(batch < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setSlaveCreditBatch(batch);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(SLAVE_PARENT_WAIT_TIMEOUT_MILLIS.equalsIgnoreCase(prop)){
+				
+				try{
+					int timeout = Integer.parseInt(value);
+					if(timeout < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setSlaveParentWaitTimeoutMillis(timeout);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(SLAVE_PRELOAD_THREADS.equalsIgnoreCase(prop)){
+				
+				try{
+					int threads = Integer.parseInt(value);
+					if(threads < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setSlavePreloadThreads(threads);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
+			} else if(SLAVE_PRELOAD_BATCH_SIZE.equalsIgnoreCase(prop)){
+				
+				try{
+					int batchSize = Integer.parseInt(value);
+					if(batchSize < 1){
+						log.warn("Value for config parameter {} must be a positive integer", prop);
+					} else {
+						log.debug("Set config parameter {} to {}", prop, value);
+						Config.setSlavePreloadBatchSize(batchSize);
+					}
+				} catch(NumberFormatException e){
+					log.warn("Value for config parameter {} must be a positive integer", prop);
+					log.debug("Failed parsing config parameter value", e);
+				}
+				
 			} else {
 				log.warn("Unknown config parameter: {}", prop);
 			}
@@ -0,0 +1,56 @@
+package edu.cmu.pdl.metadatabench.common;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Writes and reads integers using a variable-length encoding. Each byte carries 7 bits of the value, the
+ * highest bit signals whether further bytes follow. Small, non-negative numbers (like most directory and
+ * file ids) thus need only a few bytes instead of 8. Negative numbers always need 10 bytes.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class VarInt {
+
+	private VarInt() {}
+
+	/**
+	 * Writes a long value using the variable-length encoding
+	 *
+	 * @param out The output to write to
+	 * @param value The value to write
+	 * @throws IOException If the value cannot be written
+	 */
+	public static void writeVarLong(DataOutput out, long value) throws IOException {
+		while((value & ~0x7FL) != 0){
+			out.writeByte((int)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		out.writeByte((int)value);
+	}
+
+	/**
+	 * Reads a long value that has been written using the variable-length encoding
+	 *
+	 * @param in The input to read from
+	 * @return The value read
+	 * @throws IOException If the value cannot be read
+	 */
+	public static long readVarLong(DataInput in) throws IOException {
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			if(shift > 63){
+				throw new IOException("Malformed variable-length long");
+			}
+			b = in.readByte();
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		} while((b & 0x80) != 0);
+		return value;
+	}
+
+}
@@ -1,12 +1,7 @@
 package edu.cmu.pdl.metadatabench.master;
 
-import java.io.ByteArrayOutputStream;
-import java.io.FileWriter;
+import java.io.File;
 import java.io.IOException;
-import java.text.SimpleDateFormat;
-import java.util.Collection;
-import java.util.Date;
-import java.util.Iterator;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -14,28 +9,29 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.hazelcast.core.HazelcastInstance;
-import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
 
 import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
-import edu.cmu.pdl.metadatabench.cluster.HazelcastMapDAO;
 import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.NamespaceMapDAOFactory;
 import edu.cmu.pdl.metadatabench.cluster.communication.HazelcastDispatcher;
 import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
-import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsCollect;
-import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsReset;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceDelete;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceLoad;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressFinished;
-import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReset;
 import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.master.namespace.AbstractDirectoryCreationStrategy;
 import edu.cmu.pdl.metadatabench.master.namespace.AbstractFileCreationStrategy;
 import edu.cmu.pdl.metadatabench.master.namespace.BarabasiAlbertDirectoryCreationStrategy;
 import edu.cmu.pdl.metadatabench.master.namespace.NamespaceGenerator;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceIndex;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceSnapshot;
 import edu.cmu.pdl.metadatabench.master.namespace.ZipfianFileCreationStrategy;
 import edu.cmu.pdl.metadatabench.master.progress.ProgressMonitor;
+import edu.cmu.pdl.metadatabench.master.workload.AuditLogReplayer;
+import edu.cmu.pdl.metadatabench.master.workload.IWorkloadGenerator;
+import edu.cmu.pdl.metadatabench.master.workload.TraceReplayer;
+import edu.cmu.pdl.metadatabench.master.workload.TraceWriter;
 import edu.cmu.pdl.metadatabench.master.workload.WorkloadGenerator;
-import edu.cmu.pdl.metadatabench.measurement.MeasurementDataCollection;
-import edu.cmu.pdl.metadatabench.measurement.MeasurementDataForNode;
 
 /**
  * Starts and coordinates the namespace and workload generation.
@@ -48,14 +44,6 @@ import edu.cmu.pdl.metadatabench.measurement.MeasurementDataForNode;
  */
 public class Master {
 
-	private static final int SLEEP_AFTER_GENERATION_STEP_MILLIS = 2500;
-
-	/** Used for the timestamp in the measurement file names */
-	private static final SimpleDateFormat DATE_FORMAT_FOR_LOG = new SimpleDateFormat("yyyyMMdd-HHmmss");
-	// TODO: get log directory as external parameter
-	/** Directory where the measurement files will be saved */
-	private static final String LOG_DIRECTORY = "log/";
-	
 	private static Logger log = LoggerFactory.getLogger(Master.class);
 
 	/**
@@ -70,21 +58,83 @@ public class Master {
 	 */
 	public static void start(HazelcastInstance hazelcast, int id, int numberOfDirs, int numberOfFiles, int numberOfOperations){
 		
-		INamespaceMapDAO dao = new HazelcastMapDAO(hazelcast);
+		INamespaceMapDAO dao = NamespaceMapDAOFactory.create(hazelcast);
 		IDispatcher dispatcher = new HazelcastDispatcher(hazelcast);
 		
-		AbstractDirectoryCreationStrategy dirCreator = new BarabasiAlbertDirectoryCreationStrategy(dao, dispatcher);
-		AbstractFileCreationStrategy fileCreator = new ZipfianFileCreationStrategy(dispatcher, numberOfDirs);
-		NamespaceGenerator nsGen = new NamespaceGenerator(dirCreator, fileCreator, id);
+		String snapshotFile = Config.getNamespaceSnapshotFile();
+		boolean snapshot = !snapshotFile.isEmpty();
+		// the index is kept only if the paths are resolved by the master or a snapshot is written, it costs memory in the master
+		NamespaceIndex index = (Config.getNamespaceResolvePaths() || snapshot) ? new NamespaceIndex() : null;
+		
+		AbstractDirectoryCreationStrategy dirCreator = new BarabasiAlbertDirectoryCreationStrategy(dao, dispatcher, index);
+		AbstractFileCreationStrategy fileCreator = new ZipfianFileCreationStrategy(dispatcher, numberOfDirs, index);
+		NamespaceGenerator nsGen = new NamespaceGenerator(dirCreator, fileCreator, dispatcher, id);
+		PhaseController phases = new PhaseController(dispatcher);
+		try {
+			phases.start();
+		} catch (Exception e) {
+			log.error("Exception while starting the first phase on the slaves", e);
+			abort(dispatcher, phases);
+			return;
+		}
 		
 		// contains general measurements like runtime and throughput 
 		Map<String,Double> overallMeasurements = new LinkedHashMap<String,Double>();
 		
-		if(numberOfDirs > 0){
+		boolean preload = Config.getNamespacePreload();
+		if(preload){
+			log.info("Namespace loading started");
+			long start = System.currentTimeMillis();
+			long dirs = 0, files = 0, maxDirId = 0, maxFileId = 0;
+			try {
+				for(long[] loaded : dispatcher.dispatch(new NamespaceLoad())){
+					dirs += loaded[NamespaceLoad.DIRS];
+					files += loaded[NamespaceLoad.FILES];
+					maxDirId = Math.max(maxDirId, loaded[NamespaceLoad.MAX_DIR_ID]);
+					maxFileId = Math.max(maxFileId, loaded[NamespaceLoad.MAX_FILE_ID]);
+				}
+			} catch (Exception e) {
+				// the workload cannot operate on an unknown namespace
+				log.error("Exception while loading the namespace", e);
+				abort(dispatcher, phases);
+				return;
+			}
+			log.info("{} dirs and {} files loaded in: {} s", new Object[]{dirs, files, (System.currentTimeMillis()-start)/1000.0});
+			if((dirs != maxDirId) || (files != maxFileId)){
+				log.warn("The ids of the loaded namespace are not contiguous ({} dirs with ids up to {}, {} files with ids up to {}), " + 
+						"operations on the missing ids will fail", new Object[]{dirs, maxDirId, files, maxFileId});
+			}
+			// the workload operates on the loaded namespace
+			numberOfDirs = (int)maxDirId;
+			numberOfFiles = (int)maxFileId;
+		}
+		
+		// the files deleted by the workload of the run that wrote the snapshot
+		long[] deletedFileIds = null;
+		if(snapshot && !preload && new File(snapshotFile).exists()){
+			log.info("Namespace restoring from snapshot {} started", snapshotFile);
+			long start = System.currentTimeMillis();
+			try {
+				NamespaceSnapshot namespaceSnapshot = NamespaceSnapshot.read(index, snapshotFile);
+				namespaceSnapshot.store(dao);
+				numberOfDirs = (int)namespaceSnapshot.getNumberOfDirs();
+				numberOfFiles = (int)namespaceSnapshot.getNumberOfFiles();
+				deletedFileIds = namespaceSnapshot.getDeletedFileIds();
+				log.info("{} dirs and {} files restored in: {} s", new Object[]{numberOfDirs, numberOfFiles - deletedFileIds.length, (System.currentTimeMillis()-start)/1000.0});
+			} catch (IOException e) {
+				log.error("Exception while restoring the namespace from the snapshot, the namespace is generated instead", e);
+			}
+		}
+		// the namespace is generated if it has been neither loaded nor restored
+		boolean generate = !preload && (deletedFileIds == null);
+		
+		if(generate && numberOfDirs > 0){
 			log.info("Dir creation started");
 			long start = System.currentTimeMillis();
 			// launch directory generation
 			nsGen.generateDirs(numberOfDirs);
+			// send the operations that may still be held back by the dispatcher
+			dispatcher.flush();
 			long end = System.currentTimeMillis();
 			log.info("{} dirs generated in: {}", numberOfDirs, (end-start)/1000.0);
 			// wait for all generated operations to be executed 
@@ -99,25 +149,23 @@ public class Master {
 			log.info("Throughput: {} ops/s", throughput);
 			overallMeasurements.put("Directory creation runtime (s)", creationTime);
 			overallMeasurements.put("Directory creation throughput (ops/s)", throughput);
-			log.debug("Resetting local and remote progress");
-			// all operations executed in current phase, reset progress locally and on all slaves
-			ProgressMonitor.reset();
-			dispatcher.dispatch(new ProgressReset());
-		}
-		
-		if(numberOfFiles > 0){
-			// wait before starting the next phase
+			// all operations executed in current phase, wait until all slaves have reset their progress
 			try {
-				log.debug("Going to sleep for {} seconds after directory creation", SLEEP_AFTER_GENERATION_STEP_MILLIS);
-				Thread.sleep(SLEEP_AFTER_GENERATION_STEP_MILLIS);
-			} catch (InterruptedException e) {
-				log.warn("Thread was interrupted while sleeping", e);
+				phases.endPhase();
+			} catch (Exception e) {
+				log.error("Exception while resetting the progress of the slaves after the directory creation", e);
+				abort(dispatcher, phases);
+				return;
 			}
-
+		}
+		
+		if(generate && numberOfFiles > 0){
 			log.info("File creation started");
 			long start = System.currentTimeMillis();
 			// launch file generation
 			nsGen.generateFiles(numberOfFiles);
+			// send the operations that may still be held back by the dispatcher
+			dispatcher.flush();
 			long end = System.currentTimeMillis();
 			log.info("{} files generated in: {}", numberOfFiles, (end-start)/1000.0);
 			// wait for all generated operations to be executed 
@@ -132,31 +180,33 @@ public class Master {
 			log.info("Throughput: {} ops/s", throughput);
 			overallMeasurements.put("File creation runtime (s)", creationTime);
 			overallMeasurements.put("File creation throughput (ops/s)", throughput);
-			log.debug("Resetting local and remote progress");
-			// all operations executed in current phase, reset progress locally and on all slaves
-			ProgressMonitor.reset();
-			dispatcher.dispatch(new ProgressReset());
+			// all operations executed in current phase, wait until all slaves have reset their progress
+			try {
+				phases.endPhase();
+			} catch (Exception e) {
+				log.error("Exception while resetting the progress of the slaves after the file creation", e);
+				abort(dispatcher, phases);
+				return;
+			}
 		}
 		
-		// collect namespace creation measurements from slaves and export them 
-		collectExportAndResetMeasurements(dispatcher, "namespace", overallMeasurements);
+		if(generate){
+			// collect namespace creation measurements from slaves and export them, while the workload is generated
+			phases.exportMeasurements("namespace", overallMeasurements);
+		}
 		
 		if(numberOfOperations > 0){
 			// reset overall measurements before starting the workload generation
 			overallMeasurements = new LinkedHashMap<String,Double>();
-			// wait before starting the next phase
-			try {
-				log.debug("Going to sleep for {} seconds after namespace generation", SLEEP_AFTER_GENERATION_STEP_MILLIS);
-				Thread.sleep(SLEEP_AFTER_GENERATION_STEP_MILLIS);
-			} catch (InterruptedException e) {
-				log.warn("Thread was interrupted while sleeping", e);
-			}
-
 			log.info("Workload generation started");
 			long start = System.currentTimeMillis();
 			// launch workload generation
-			WorkloadGenerator wlGen = new WorkloadGenerator(dispatcher, numberOfOperations, numberOfDirs, numberOfFiles);
+			IWorkloadGenerator wlGen = createWorkloadGenerator(dispatcher, numberOfOperations, numberOfDirs, numberOfFiles, index, deletedFileIds);
 			wlGen.generate();
+			// send the operations that may still be held back by the dispatcher
+			dispatcher.flush();
+			// a replayed trace determines the number of operations
+			numberOfOperations = wlGen.getNumberOfOperations();
 			long end = System.currentTimeMillis();
 			log.info("{} operations generated in: {}", numberOfOperations, (end-start)/1000.0);
 			// wait for all generated operations to be executed 
@@ -172,22 +222,41 @@ public class Master {
 			overallMeasurements.put("Workload total operations", (double)numberOfOperations);
 			overallMeasurements.put("Workload runtime (s)", creationTime);
 			overallMeasurements.put("Workload throughput (ops/s)", throughput);
-			log.debug("Resetting local and remote progress");
-			// all operations executed in current phase, reset progress locally and on all slaves
-			ProgressMonitor.reset();
-			dispatcher.dispatch(new ProgressReset());
-			// collect workload measurements from slaves and export them 
-			collectExportAndResetMeasurements(dispatcher, "workload", overallMeasurements);
+			// all operations executed in current phase, wait until all slaves have reset their progress
+			try {
+				phases.endPhase();
+			} catch (Exception e) {
+				log.error("Exception while resetting the progress of the slaves after the workload", e);
+				abort(dispatcher, phases);
+				return;
+			}
+			// collect workload measurements from slaves and export them, while the namespace is written or deleted
+			phases.exportMeasurements("workload", overallMeasurements);
+			// the snapshot has to contain the elements created by the workload
+			numberOfDirs = (int)wlGen.getNumberOfDirs();
+			numberOfFiles = (int)wlGen.getNumberOfFiles();
 		}
 		
-		if(Config.getDeleteNamespace()){
-			// wait before starting the next phase
-			try {
-				log.debug("Going to sleep for {} seconds before deleting the namespace", SLEEP_AFTER_GENERATION_STEP_MILLIS);
-				Thread.sleep(SLEEP_AFTER_GENERATION_STEP_MILLIS);
-			} catch (InterruptedException e) {
-				log.warn("Thread was interrupted while sleeping", e);
+		if(snapshot){
+			if(Config.getDeleteNamespace()){
+				// the snapshot would not match the file system anymore
+				if(new File(snapshotFile).delete()){
+					log.info("Namespace snapshot {} deleted, because the namespace is deleted", snapshotFile);
+				}
+			} else if(preload){
+				log.warn("The namespace snapshot is not written, because the namespace has been loaded from the file system and is not known to the master");
+			} else {
+				long start = System.currentTimeMillis();
+				try {
+					NamespaceSnapshot.write(index, numberOfDirs, numberOfFiles, snapshotFile);
+					log.info("Namespace snapshot {} written in {} ms", snapshotFile, System.currentTimeMillis()-start);
+				} catch (IOException e) {
+					log.error("Exception while writing the namespace snapshot", e);
+				}
 			}
+		}
+		
+		if(Config.getDeleteNamespace()){
 			int deleteTime = 0;
 			try {
 				deleteTime = dispatcher.dispatch(new NamespaceDelete(Config.getWorkDir()));
@@ -197,6 +266,7 @@ public class Master {
 			log.info("Namespace deleted in {} ms", deleteTime);
 		}
 		
+		phases.awaitExports();
 		log.info("Shutting down.");
 		// Send shutdown messages to slaves
 		dispatcher.dispatch(new ProgressFinished());
@@ -204,103 +274,61 @@ public class Master {
 	}
 	
 	/**
-	 * Collects measurements from slaves, exports the combined measurements and resets the local and remote 
-	 * measurement data
+	 * Aborts the run, if it cannot continue consistently. The measurements exported so far are written, 
+	 * then the slaves and the cluster are shut down.
 	 * 
 	 * @param dispatcher The dispatcher used to send messages to other nodes
-	 * @param generationStepName Name of the generation phase (namespace or workload)
-	 * @param overallMeasurements The overall measurements (runtime, throughput)
+	 * @param phases The phase controller, which may still be exporting measurements
 	 */
-	private static void collectExportAndResetMeasurements(IDispatcher dispatcher, String generationStepName, Map<String,Double> overallMeasurements){
-		MeasurementDataCollection measurements = collectMeasurements(dispatcher);
-		String measurementString = getAndExportMeasurementText(measurements, overallMeasurements);
-		exportMeasurementTextToFile(measurementString, generationStepName);
-		log.debug("Resetting local and remote measurements");
-		dispatcher.dispatch(new MeasurementsReset());
-		measurements.reset();
+	private static void abort(IDispatcher dispatcher, PhaseController phases){
+		phases.awaitExports();
+		log.error("Aborting the run, shutting down.");
+		// Send shutdown messages to slaves
+		dispatcher.dispatch(new ProgressFinished());
+		HazelcastCluster.getInstance().stop();
 	}
-
+	
 	/**
-	 * Collects measurements from slaves
+	 * Creates the workload generator, which either generates the workload (and optionally records it in a trace), 
+	 * replays a trace or replays an audit log
 	 * 
 	 * @param dispatcher The dispatcher used to send messages to other nodes
-	 * @return The combined measurements from all slaves
+	 * @param numberOfOperations Number of operations to generate
+	 * @param numberOfDirs Number of existing directories
+	 * @param numberOfFiles Number of existing files
+	 * @param index The namespace index of the master, or null
+	 * @param deletedFileIds The ids of the deleted files of a restored namespace, or null
+	 * @return The workload generator
 	 */
-	private static MeasurementDataCollection collectMeasurements(IDispatcher dispatcher){
-		MeasurementDataCollection measurements = MeasurementDataCollection.getInstance();
-		try {
-			Collection<MeasurementDataForNode> measurementDataCollection = dispatcher.dispatch(new MeasurementsCollect());
-			for(MeasurementDataForNode measurementData : measurementDataCollection){
-				measurements.addMeasurementData(measurementData);
+	private static IWorkloadGenerator createWorkloadGenerator(IDispatcher dispatcher, int numberOfOperations, int numberOfDirs, int numberOfFiles, 
+			NamespaceIndex index, long[] deletedFileIds){
+		String auditLogFile = Config.getWorkloadAuditLogFile();
+		if(!auditLogFile.isEmpty()){
+			AuditLogReplayer replayer = new AuditLogReplayer(dispatcher, auditLogFile, Config.getWorkloadAuditLogSpeedup(), numberOfDirs, numberOfFiles, index);
+			if(deletedFileIds != null){
+				replayer.addDeletedFileIds(deletedFileIds);
 			}
-		} catch (Exception e) {
-			log.error("Exception while collecting measurements from nodes", e);
+			return replayer;
 		}
-		return measurements;
-	}
-	
-	/**
-	 * Exports measurements in a text format
-	 * 
-	 * @param measurements The combined measurements
-	 * @param overallMeasurements The overall measurements (runtime, throughput)
-	 * @return The exported measurements (in a text format)
-	 */
-	private static String getAndExportMeasurementText(MeasurementDataCollection measurements, Map<String,Double> overallMeasurements){
-		String measurementString = "";
-		try {
-			ByteArrayOutputStream baos = new ByteArrayOutputStream();
-			TextMeasurementsExporter exporter = new TextMeasurementsExporter(baos);
-			// export overall measurements
-			String OVERALL = "OVERALL";
-			Iterator<String> iterator = overallMeasurements.keySet().iterator();
-			while(iterator.hasNext()){
-				String measurement = iterator.next();
-				double value = overallMeasurements.get(measurement);
-				exporter.write(OVERALL, measurement, value);
+		String traceFile = Config.getWorkloadTraceFile();
+		if(!traceFile.isEmpty() && Config.getWorkloadTraceReplay()){
+			if(deletedFileIds != null){
+				log.debug("The deleted files of the restored namespace are ignored, the trace determines the accessed files");
 			}
-			// export detailed measurements
-			measurements.exportMeasurements(exporter);
-//			measurements.exportMeasurementsPerNode(exporter);
-			exporter.close();
-			measurementString = baos.toString();
-			log.info(measurementString);
-		} catch (IOException e) {
-			log.warn("Exception while exporting measurements to a text format", e);
+			return new TraceReplayer(dispatcher, traceFile, Config.getWorkloadTraceOriginalTiming(), numberOfDirs, numberOfFiles, index);
 		}
-		return measurementString;
-	}
-	
-	/**
-	 * Writes the exported measurement text into a file 
-	 * 
-	 * @param measurementString The exported measurements (in a text format)
-	 * @param generationStepName Name of the generation phase (namespace or workload)
-	 */
-	private static void exportMeasurementTextToFile(String measurementString, String generationStepName){
-		if((measurementString != null) && (!measurementString.isEmpty())){
-			StringBuilder fileName = new StringBuilder();
-			fileName.append(LOG_DIRECTORY);
-			fileName.append(generationStepName);
-			fileName.append("-");
-			fileName.append(DATE_FORMAT_FOR_LOG.format(new Date()));
-			fileName.append(".txt");
-			FileWriter fileWriter = null;
+		WorkloadGenerator wlGen = new WorkloadGenerator(dispatcher, numberOfOperations, numberOfDirs, numberOfFiles, index);
+		if(deletedFileIds != null){
+			wlGen.addDeletedFileIds(deletedFileIds);
+		}
+		if(!traceFile.isEmpty()){
 			try {
-				fileWriter = new FileWriter(fileName.toString());
-				fileWriter.write(measurementString);
+				wlGen.setTraceWriter(new TraceWriter(traceFile));
 			} catch (IOException e) {
-				log.warn("Exception while saving measurements to a file", e);
-			} finally {
-				if(fileWriter != null){
-					try {
-						fileWriter.close();
-					} catch (IOException e) {
-						log.warn("Exception while exporting measurements to a text format. Cannot close stream to file.", e);
-					}
-				}
+				log.error("Exception while creating the workload trace, the workload is not recorded", e);
 			}
 		}
+		return wlGen;
 	}
 	
 }
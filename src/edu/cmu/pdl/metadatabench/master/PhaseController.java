@@ -0,0 +1,234 @@
+package edu.cmu.pdl.metadatabench.master;
+
+import java.io.ByteArrayOutputStream;
+import java.io.FileWriter;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.ycsb.measurements.exporter.TextMeasurementsExporter;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.MeasurementsCollect;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReset;
+import edu.cmu.pdl.metadatabench.master.progress.ProgressMonitor;
+import edu.cmu.pdl.metadatabench.measurement.MeasurementDataCollection;
+import edu.cmu.pdl.metadatabench.measurement.MeasurementDataForNode;
+
+/**
+ * Controls the transitions between the generation phases (directory creation, file creation and workload).
+ * 
+ * The next phase starts as soon as all slaves have acknowledged the end of the previous one, without a fixed 
+ * pause in between. The phases are numbered, the slaves count the operations of the next phase after the 
+ * acknowledgment, and the progress reports of the previous phase that arrive late are ignored by the master.
+ * With the acknowledgment, each slave grants the master its credit window for the next phase.
+ * 
+ * The slaves hand over and reset their measurements in a single step, so the measurements of a phase can be 
+ * merged, exported and written to a file in the background, while the next phase is already being generated.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class PhaseController {
+
+	/** Used for the timestamp in the measurement file names */
+	private static final SimpleDateFormat DATE_FORMAT_FOR_LOG = new SimpleDateFormat("yyyyMMdd-HHmmss");
+	// TODO: get log directory as external parameter
+	/** Directory where the measurement files will be saved */
+	private static final String LOG_DIRECTORY = "log/";
+	
+	private static Logger log = LoggerFactory.getLogger(PhaseController.class);
+	
+	private final IDispatcher dispatcher;
+	/** Exports the measurements in the background, one phase after the other */
+	private final ExecutorService exporter;
+	/** The number of the current phase */
+	private int phase;
+	
+	/**
+	 * @param dispatcher The dispatcher used to send messages to other nodes
+	 */
+	public PhaseController(IDispatcher dispatcher) {
+		this.dispatcher = dispatcher;
+		this.exporter = Executors.newSingleThreadExecutor(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				return new Thread(r, "measurement-exporter");
+			}
+		});
+		this.phase = 0;
+	}
+	
+	/**
+	 * Starts the first phase. Returns when all slaves have acknowledged it and granted their credit windows.
+	 * 
+	 * @throws Exception if not all slaves have acknowledged the phase, the run has to be aborted then
+	 */
+	public void start() throws Exception {
+		log.debug("Starting phase {}", phase);
+		startPhase();
+	}
+	
+	/**
+	 * Ends the current phase, after all of its operations have been executed. Resets the progress locally and 
+	 * on all slaves and returns when all slaves have acknowledged the reset, so the next phase can start.
+	 * 
+	 * @throws Exception if not all slaves have acknowledged the reset, the run has to be aborted then, because 
+	 * the progress reports of the slaves that missed it would be ignored
+	 */
+	public void endPhase() throws Exception {
+		phase++;
+		log.debug("Resetting local and remote progress, starting phase {}", phase);
+		startPhase();
+	}
+	
+	/**
+	 * Resets the progress locally and on all slaves for the current phase, and sets the credit window to the 
+	 * sum of the windows granted by the slaves. The local progress is reset first, so that the reports of the 
+	 * slaves for the current phase are not dropped.
+	 * 
+	 * @throws Exception if not all slaves have acknowledged the reset
+	 */
+	private void startPhase() throws Exception {
+		ProgressMonitor.reset(phase);
+		long creditWindow = 0;
+		for(int slaveWindow : dispatcher.dispatch(new ProgressReset(phase))){
+			if(slaveWindow <= 0){
+				// the slave does not limit the generation
+				creditWindow = Long.MAX_VALUE;
+				break;
+			}
+			creditWindow += slaveWindow;
+		}
+		if(creditWindow == 0){
+			creditWindow = Long.MAX_VALUE;
+		}
+		log.debug("Credit window of phase {}: {} operations", phase, creditWindow);
+		ProgressMonitor.setCreditWindow(creditWindow);
+	}
+	
+	/**
+	 * Collects and resets the measurements of the slaves, then exports the combined measurements in the 
+	 * background. Has to be called after the end of a phase.
+	 * 
+	 * @param generationStepName Name of the generation phase (namespace or workload)
+	 * @param overallMeasurements The overall measurements (runtime, throughput), must not be modified afterwards
+	 */
+	public void exportMeasurements(final String generationStepName, final Map<String,Double> overallMeasurements){
+		final Collection<MeasurementDataForNode> measurementDataCollection = collectMeasurements();
+		exporter.execute(new Runnable() {
+			@Override
+			public void run() {
+				MeasurementDataCollection measurements = MeasurementDataCollection.getInstance();
+				for(MeasurementDataForNode measurementData : measurementDataCollection){
+					measurements.addMeasurementData(measurementData);
+				}
+				String measurementString = getAndExportMeasurementText(measurements, overallMeasurements);
+				exportMeasurementTextToFile(measurementString, generationStepName);
+				measurements.reset();
+			}
+		});
+	}
+	
+	/**
+	 * Blocks until the measurements of all phases have been exported. No measurements can be exported afterwards.
+	 */
+	public void awaitExports(){
+		exporter.shutdown();
+		try {
+			exporter.awaitTermination(Long.MAX_VALUE, TimeUnit.MILLISECONDS);
+		} catch (InterruptedException e) {
+			log.warn("Thread was interrupted while waiting for the measurements to be exported", e);
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	/**
+	 * Collects measurements from slaves, which reset their measurements at the same time
+	 * 
+	 * @return The measurements of all slaves
+	 */
+	private Collection<MeasurementDataForNode> collectMeasurements(){
+		try {
+			return dispatcher.dispatch(new MeasurementsCollect(true));
+		} catch (Exception e) {
+			log.error("Exception while collecting measurements from nodes", e);
+			return Collections.<MeasurementDataForNode>emptyList();
+		}
+	}
+	/**
+	 * Exports measurements in a text format
+	 * 
+	 * @param measurements The combined measurements
+	 * @param overallMeasurements The overall measurements (runtime, throughput)
+	 * @return The exported measurements (in a text format)
+	 */
+	private static String getAndExportMeasurementText(MeasurementDataCollection measurements, Map<String,Double> overallMeasurements){
+		String measurementString = "";
+		try {
+			ByteArrayOutputStream baos = new ByteArrayOutputStream();
+			TextMeasurementsExporter exporter = new TextMeasurementsExporter(baos);
+			// export overall measurements
+			String OVERALL = "OVERALL";
+			Iterator<String> iterator = overallMeasurements.keySet().iterator();
+			while(iterator.hasNext()){
+				String measurement = iterator.next();
+				double value = overallMeasurements.get(measurement);
+				exporter.write(OVERALL, measurement, value);
+			}
+			// export detailed measurements
+			measurements.exportMeasurements(exporter);
+//			measurements.exportMeasurementsPerNode(exporter);
+			exporter.close();
+			measurementString = baos.toString();
+			log.info(measurementString);
+		} catch (IOException e) {
+			log.warn("Exception while exporting measurements to a text format", e);
+		}
+		return measurementString;
+	}
+	
+	/**
+	 * Writes the exported measurement text into a file 
+	 * 
+	 * @param measurementString The exported measurements (in a text format)
+	 * @param generationStepName Name of the generation phase (namespace or workload)
+	 */
+	private static void exportMeasurementTextToFile(String measurementString, String generationStepName){
+		if((measurementString != null) && (!measurementString.isEmpty())){
+			StringBuilder fileName = new StringBuilder();
+			fileName.append(LOG_DIRECTORY);
+			fileName.append(generationStepName);
+			fileName.append("-");
+			fileName.append(DATE_FORMAT_FOR_LOG.format(new Date()));
+			fileName.append(".txt");
+			FileWriter fileWriter = null;
+			try {
+				fileWriter = new FileWriter(fileName.toString());
+				fileWriter.write(measurementString);
+			} catch (IOException e) {
+				log.warn("Exception while saving measurements to a file", e);
+			} finally {
+				if(fileWriter != null){
+					try {
+						fileWriter.close();
+					} catch (IOException e) {
+						log.warn("Exception while exporting measurements to a text format. Cannot close stream to file.", e);
+					}
+				}
+			}
+		}
+	}
+	
+}
@@ -24,18 +24,24 @@ public abstract class AbstractDirectoryCreationStrategy {
 	private String workDirectory;
 	protected INamespaceMapDAO dao;
 	protected IDispatcher dispatcher;
+	/** The master-side namespace index, null if the paths are not resolved by the master */
+	protected NamespaceIndex index;
+	/** The number of directories from which the parents are selected, 0 if not limited */
+	private int selectableDirs;
 	
 	/**
 	 * @param dao The DAO to use for accessing the namespace map
 	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param index The namespace index to record the directories in, or null
 	 */
-	public AbstractDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher){
+	public AbstractDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher, NamespaceIndex index){
 		this.workDirectory = Config.getWorkDir();
 		while(this.workDirectory.endsWith(Character.toString(PATH_SEPARATOR))){
 			this.workDirectory = this.workDirectory.substring(0, this.workDirectory.length() - 1);
 		}
 		this.dao = dao;
 		this.dispatcher = dispatcher;
+		this.index = index;
 	}
 	
 	/**
@@ -46,6 +52,27 @@ public abstract class AbstractDirectoryCreationStrategy {
 	 */
 	abstract public long selectParentDirectory(int i);
 	
+	/**
+	 * Limits the selection of parent directories to the directories with a sequence number up to the given one, 
+	 * e.g. to the directories that are known to have been created.
+	 * 
+	 * @param selectableDirs The number of directories from which the parents are selected, 0 if not limited
+	 */
+	public void setSelectableDirs(int selectableDirs){
+		this.selectableDirs = selectableDirs;
+	}
+	
+	/**
+	 * Gets the number of directories from which the parent of a new directory can be selected. These are all 
+	 * directories with a lower sequence number, unless the selection is limited.
+	 * 
+	 * @param i The sequence number of the new directory
+	 * @return The number of directories from which the parent can be selected
+	 */
+	protected int getSelectableDirs(int i){
+		return (selectableDirs > 0) ? Math.min(selectableDirs, i-1) : i-1;
+	}
+	
 	/**
 	 * Creates a new directory by selecting a parent directory, constructing and dispatching a mkdir command.
 	 * 
@@ -55,6 +82,9 @@ public abstract class AbstractDirectoryCreationStrategy {
 		long parentId = selectParentDirectory(i);
 		String name = DIR_NAME_PREFIX + i;
 		SimpleOperation op = new CreateOperation(MKDIR_TYPE, parentId, i, name);
+		if(index != null){
+			index.addDir(i, parentId, false);
+		}
 		dispatcher.dispatch(op);
 	}
 	
@@ -21,14 +21,18 @@ public abstract class AbstractFileCreationStrategy {
 	
 	protected long numberOfDirs;
 	protected IDispatcher dispatcher;
+	/** The master-side namespace index, null if the paths are not resolved by the master */
+	protected NamespaceIndex index;
 	
 	/**
 	 * @param dispatcher The dispatcher used to send commands to other nodes
 	 * @param numberOfDirs The number of existing directories
+	 * @param index The namespace index to record the files in, or null
 	 */
-	public AbstractFileCreationStrategy(IDispatcher dispatcher, long numberOfDirs){
+	public AbstractFileCreationStrategy(IDispatcher dispatcher, long numberOfDirs, NamespaceIndex index){
 		this.numberOfDirs = numberOfDirs;
 		this.dispatcher = dispatcher;
+		this.index = index;
 	}
 	
 	/**
@@ -47,6 +51,9 @@ public abstract class AbstractFileCreationStrategy {
 		long parentId = selectParentDirectory();
 		String name = FILE_NAME_PREFIX + i;
 		SimpleOperation op = new CreateOperation(CREATE_TYPE, parentId, i, name);
+		if(index != null){
+			index.addFile(i, parentId);
+		}
 		dispatcher.dispatch(op);
 	}
 	
@@ -31,9 +31,10 @@ public class BarabasiAlbertDirectoryCreationStrategy extends AbstractDirectoryCr
 	/**
 	 * @param dao The DAO to use for accessing the namespace map
 	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param index The namespace index to record the directories in, or null
 	 */
-	public BarabasiAlbertDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher){
-		super(dao, dispatcher);
+	public BarabasiAlbertDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher, NamespaceIndex index){
+		super(dao, dispatcher, index);
 		randomId = new Random();
 		randomParent = new Random();
 	}
@@ -51,6 +52,9 @@ public class BarabasiAlbertDirectoryCreationStrategy extends AbstractDirectoryCr
 		boolean parentsParent = randomParent.nextBoolean();
 		String name = DIR_NAME_PREFIX + i;
 		SimpleOperation op = new CreateOperation(MKDIR_TYPE, parentId, parentsParent, i, name);
+		if(index != null){
+			index.addDir(i, parentId, parentsParent);
+		}
 		dispatcher.dispatch(op);
 	}
 	
@@ -58,10 +62,10 @@ public class BarabasiAlbertDirectoryCreationStrategy extends AbstractDirectoryCr
 	 * Selects a parent directory from the set of existing directories using a uniform distribution.
 	 * It is assumed that all directories with a sequence number lower than the sequence number i of 
 	 * the directory to be created already exist. Thus, the id of the parent is a random number between 
-	 * 1 and i-1
+	 * 1 and i-1 (or the number of selectable directories, if it is limited)
 	 */
 	public long selectParentDirectory(int i){
-		int key = randomId.nextInt(i-1) + 1;
+		int key = randomId.nextInt(getSelectableDirs(i)) + 1;
 		return (long)key;
 	}
 	
@@ -1,11 +1,21 @@
 package edu.cmu.pdl.metadatabench.master.namespace;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
+import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.master.progress.ProgressMonitor;
 import edu.cmu.pdl.metadatabench.master.progress.Throttler;
 
 /**
  * The namespace generator can generate a given amount of directories or files by calling the corresponding 
  * creation strategy.
  * 
+ * The directories can be generated in dependency waves (see 
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getNamespaceDirWaveGrowth()}), so that the parent of each 
+ * directory has already been created when its creation is dispatched.
+ * 
  * @author emil.rakadjiev
  *
  */
@@ -13,17 +23,25 @@ public class NamespaceGenerator {
 
 	private AbstractDirectoryCreationStrategy dirCreator;
 	private AbstractFileCreationStrategy fileCreator;
+	private IDispatcher dispatcher;
 	private int id;
 	
+	private static final double DIR_WAVE_GROWTH = Config.getNamespaceDirWaveGrowth();
+	
+	private Logger log;
+	
 	/**
 	 * @param dirCreator The directory creation strategy
 	 * @param fileCreator The file creation strategy
+	 * @param dispatcher The dispatcher used by the creation strategies
 	 * @param id The id of this master node
 	 */
-	public NamespaceGenerator(AbstractDirectoryCreationStrategy dirCreator, AbstractFileCreationStrategy fileCreator, int id){
+	public NamespaceGenerator(AbstractDirectoryCreationStrategy dirCreator, AbstractFileCreationStrategy fileCreator, IDispatcher dispatcher, int id){
 		this.dirCreator = dirCreator;
 		this.fileCreator = fileCreator;
+		this.dispatcher = dispatcher;
 		this.id = id;
+		this.log = LoggerFactory.getLogger(NamespaceGenerator.class);
 	}
 	
 	/**
@@ -36,6 +54,10 @@ public class NamespaceGenerator {
 		if(id == 0){
 			dirCreator.createRoot();
 		}
+		if(DIR_WAVE_GROWTH > 0){
+			generateDirsInWaves(numberOfDirs);
+			return;
+		}
 		for(int i=2; i <= numberOfDirs; i++){
 			dirCreator.createNextDirectory(i);
 			
@@ -44,6 +66,44 @@ public class NamespaceGenerator {
 		}
 	}
 	
+	/**
+	 * Generates the directories in dependency waves. The parents of the directories in a wave are selected from the 
+	 * directories of the previous waves only, and the next wave is generated when all operations of the previous 
+	 * waves have been executed.
+	 * 
+	 * @param numberOfDirs The number of directories to create
+	 */
+	private void generateDirsInWaves(int numberOfDirs){
+		// the root is stored in the namespace map by the master before its creation is dispatched
+		int createdDirs = 1;
+		int i = 2;
+		while(i <= numberOfDirs){
+			int waveEnd = (int)Math.min(numberOfDirs, createdDirs + Math.max(1, (long)(createdDirs * DIR_WAVE_GROWTH)));
+			dirCreator.setSelectableDirs(createdDirs);
+			for(; i <= waveEnd; i++){
+				dirCreator.createNextDirectory(i);
+				
+				// If needed, throttle the generation, that is, wait for the generated operations to be executed by the slaves
+				Throttler.throttle(i);
+			}
+			if(i <= numberOfDirs){
+				// the root creation is only dispatched by the master with id 0
+				long dispatchedOperations = (id == 0) ? waveEnd : waveEnd - 1;
+				log.debug("Waiting for the directories up to {} to be created", waveEnd);
+				dispatcher.flush();
+				try {
+					ProgressMonitor.awaitOperationsDone(dispatchedOperations);
+				} catch (InterruptedException e) {
+					log.warn("Thread was interrupted while waiting for a directory creation wave", e);
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+			createdDirs = waveEnd;
+		}
+		dirCreator.setSelectableDirs(0);
+	}
+	
 	/**
 	 * Generates a given number of files by calling the file creation strategy.
 	 * 
@@ -0,0 +1,279 @@
+package edu.cmu.pdl.metadatabench.master.namespace;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * A compact index of the generated namespace kept by the master, which allows the master to resolve the path of
+ * any directory or file itself (see {@link edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths()}).
+ *
+ * The names of the elements are derived deterministically from their ids (the name prefix followed by the id and,
+ * for renamed files, the rename suffix followed by the rename count), so only the structure of the namespace has
+ * to be stored: the parent id of each directory, and the parent id and rename count of each file. These are kept
+ * in chunked integer arrays indexed by the id, thus the index needs about 4 bytes per directory and 8 bytes per file.
+ * The chunks are allocated on demand, so the ids of new elements created by the workload can be recorded as well.
+ *
+ * The index has to be updated in the same way as the namespace map is updated by the slaves, e.g. a directory
+ * created with the parentsParent flag is recorded under the parent of the selected directory, and a file moved to
+ * its own parent directory gets its rename count incremented. A path of an element that has not been recorded
+ * (yet) cannot be resolved; the operation has to look it up in the namespace map in that case.
+ *
+ * Operations on the same element are not recorded concurrently, because the workload generator claims the ids
+ * of the accessed elements. Elements are read concurrently with the creation of other elements though, so the
+ * entries are stored in atomic arrays.
+ *
+ * The stored values can be written to and restored from a {@link NamespaceSnapshot}.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class NamespaceIndex {
+
+	private static final char PATH_SEPARATOR = Config.getPathSeparator();
+	private static final String DIR_NAME_PREFIX = PATH_SEPARATOR + Config.getDirNamePrefix();
+	private static final String FILE_NAME_PREFIX = PATH_SEPARATOR + Config.getFileNamePrefix();
+	private static final String RENAME_SUFFIX = Config.getWorkloadRenameSuffix();
+
+	/** The id of the directory created as the root of the namespace */
+	private static final int ROOT_ID = 1;
+	/** The parent id denoting the work directory, which contains the root */
+	private static final int WORK_DIR_ID = 0;
+	/** The stored value of an element that has not been recorded */
+	private static final int UNKNOWN = 0;
+	/** The maximum depth of a directory, to avoid an endless loop if the index has been corrupted */
+	private static final int MAX_DEPTH = 1 << 16;
+
+	private final String workDirectory;
+	/** The parent ids of the directories incremented by one, so that the work directory can be told apart from unknown */
+	private final IntChunks dirParents;
+	/** The parent ids of the files */
+	private final IntChunks fileParents;
+	/** The rename counts of the files */
+	private final IntChunks fileRenameCounts;
+
+	public NamespaceIndex(){
+		String workDirectory = Config.getWorkDir();
+		while(workDirectory.endsWith(Character.toString(PATH_SEPARATOR))){
+			workDirectory = workDirectory.substring(0, workDirectory.length() - 1);
+		}
+		this.workDirectory = workDirectory;
+		this.dirParents = new IntChunks();
+		this.fileParents = new IntChunks();
+		this.fileRenameCounts = new IntChunks();
+		// the root is created by the first master, but its location is known to every master
+		dirParents.set(ROOT_ID, WORK_DIR_ID + 1);
+	}
+
+	/**
+	 * Records a new directory
+	 *
+	 * @param id The id of the new directory
+	 * @param parentId The id of the selected parent directory
+	 * @param parentsParent Whether the parent of the selected directory is the parent of the new directory
+	 */
+	public void addDir(long id, long parentId, boolean parentsParent){
+		int parent = (int)parentId;
+		if(parentsParent){
+			int storedParent = dirParents.get(parent);
+			if(storedParent == UNKNOWN){
+				return;
+			}
+			parent = storedParent - 1;
+		}
+		dirParents.set((int)id, parent + 1);
+	}
+
+	/**
+	 * Resolves the path of a directory
+	 *
+	 * @param id The id of the directory
+	 * @return The path of the directory, or null if the directory or one of its ancestors has not been recorded
+	 */
+	public String getDirPath(long id){
+		int[] ancestors = new int[16];
+		int depth = 0;
+		int current = (int)id;
+		while(current != WORK_DIR_ID){
+			int storedParent = dirParents.get(current);
+			if(storedParent == UNKNOWN || depth == MAX_DEPTH){
+				return null;
+			}
+			if(depth == ancestors.length){
+				int[] newAncestors = new int[depth * 2];
+				System.arraycopy(ancestors, 0, newAncestors, 0, depth);
+				ancestors = newAncestors;
+			}
+			ancestors[depth++] = current;
+			current = storedParent - 1;
+		}
+		StringBuilder path = new StringBuilder(workDirectory.length() + depth * (DIR_NAME_PREFIX.length() + 7));
+		path.append(workDirectory);
+		for(int i = depth - 1; i >= 0; i--){
+			path.append(DIR_NAME_PREFIX).append(ancestors[i]);
+		}
+		return path.toString();
+	}
+
+	/**
+	 * Records a new file. An id of a deleted file can be reused, its rename count is reset.
+	 *
+	 * @param id The id of the new file
+	 * @param parentId The id of the parent directory
+	 */
+	public void addFile(long id, long parentId){
+		fileRenameCounts.set((int)id, 0);
+		fileParents.set((int)id, (int)parentId);
+	}
+
+	/**
+	 * Removes a deleted file
+	 *
+	 * @param id The id of the deleted file
+	 */
+	public void removeFile(long id){
+		fileParents.set((int)id, UNKNOWN);
+	}
+
+	/**
+	 * Records the renaming of a file, which increments its rename count
+	 *
+	 * @param id The id of the renamed file
+	 */
+	public void renameFile(long id){
+		fileRenameCounts.increment((int)id);
+	}
+
+	/**
+	 * Records the move of a file. If the file is moved to its current parent directory, it is renamed instead,
+	 * the same way as the slaves do it.
+	 *
+	 * @param id The id of the moved file
+	 * @param parentIdNew The id of the new parent directory
+	 */
+	public void moveFile(long id, long parentIdNew){
+		int parent = fileParents.get((int)id);
+		if(parent == UNKNOWN){
+			return;
+		}
+		if(parent == (int)parentIdNew){
+			fileRenameCounts.increment((int)id);
+		} else {
+			fileParents.set((int)id, (int)parentIdNew);
+		}
+	}
+
+	/**
+	 * Resolves the path of a file
+	 *
+	 * @param id The id of the file
+	 * @return The path of the file, or null if the file or one of its ancestors has not been recorded
+	 */
+	public String getFilePath(long id){
+		int parent = fileParents.get((int)id);
+		if(parent == UNKNOWN){
+			return null;
+		}
+		String parentPath = getDirPath(parent);
+		if(parentPath == null){
+			return null;
+		}
+		int renameCount = fileRenameCounts.get((int)id);
+		if(renameCount == 0){
+			return parentPath + FILE_NAME_PREFIX + id;
+		} else {
+			return parentPath + FILE_NAME_PREFIX + id + RENAME_SUFFIX + renameCount;
+		}
+	}
+
+	/**
+	 * Gets the stored parent of a directory, used to write a snapshot
+	 *
+	 * @param id The id of the directory
+	 * @return The parent id incremented by one, or 0 if the directory has not been recorded
+	 */
+	int getStoredDirParent(int id){
+		return dirParents.get(id);
+	}
+
+	/**
+	 * Sets the stored parent of a directory, used to restore a snapshot
+	 *
+	 * @param id The id of the directory
+	 * @param storedParent The parent id incremented by one, or 0 if the directory is unknown
+	 */
+	void setStoredDirParent(int id, int storedParent){
+		dirParents.set(id, storedParent);
+	}
+
+	/**
+	 * Gets the parent of a file, used to write a snapshot
+	 *
+	 * @param id The id of the file
+	 * @return The parent id, or 0 if the file has not been recorded or has been deleted
+	 */
+	int getStoredFileParent(int id){
+		return fileParents.get(id);
+	}
+
+	/**
+	 * Gets the rename count of a file, used to write a snapshot
+	 *
+	 * @param id The id of the file
+	 * @return The rename count
+	 */
+	int getStoredFileRenameCount(int id){
+		return fileRenameCounts.get(id);
+	}
+
+	/**
+	 * Sets the parent and rename count of a file, used to restore a snapshot
+	 *
+	 * @param id The id of the file
+	 * @param parent The parent id, or 0 if the file has been deleted
+	 * @param renameCount The rename count
+	 */
+	void setStoredFile(int id, int parent, int renameCount){
+		fileRenameCounts.set(id, renameCount);
+		fileParents.set(id, parent);
+	}
+
+	/**
+	 * An array of integers indexed by a non-negative int, which is allocated in chunks as needed.
+	 * Unallocated elements are 0.
+	 */
+	private static class IntChunks {
+
+		private static final int CHUNK_BITS = 16;
+		private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+		private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+		private final AtomicReferenceArray<AtomicIntegerArray> chunks = new AtomicReferenceArray<AtomicIntegerArray>((Integer.MAX_VALUE >>> CHUNK_BITS) + 1);
+
+		private int get(int index){
+			AtomicIntegerArray chunk = chunks.get(index >>> CHUNK_BITS);
+			return (chunk != null) ? chunk.get(index & CHUNK_MASK) : 0;
+		}
+
+		private void set(int index, int value){
+			getOrCreateChunk(index).set(index & CHUNK_MASK, value);
+		}
+
+		private void increment(int index){
+			getOrCreateChunk(index).incrementAndGet(index & CHUNK_MASK);
+		}
+
+		private AtomicIntegerArray getOrCreateChunk(int index){
+			int chunkIndex = index >>> CHUNK_BITS;
+			AtomicIntegerArray chunk = chunks.get(chunkIndex);
+			if(chunk == null){
+				chunks.compareAndSet(chunkIndex, null, new AtomicIntegerArray(CHUNK_SIZE));
+				chunk = chunks.get(chunkIndex);
+			}
+			return chunk;
+		}
+
+	}
+
+}
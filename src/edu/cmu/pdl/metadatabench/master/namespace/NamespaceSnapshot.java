@@ -0,0 +1,285 @@
+package edu.cmu.pdl.metadatabench.master.namespace;
+
+import java.io.EOFException;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.NamespaceEntry;
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * A compact binary snapshot of the namespace recorded in a {@link NamespaceIndex}, which is written to the local
+ * disk of the master and restored by the next run, so that the namespace does not have to be generated again
+ * (see {@link edu.cmu.pdl.metadatabench.common.Config#getNamespaceSnapshotFile()}).
+ *
+ * The snapshot consists of a header (magic number, version, work directory, number of directories and files)
+ * followed by the stored parent of each directory and the parent and rename count of each file, in the order of
+ * their ids. The names are derived from the ids, so they are not stored. A deleted file (or an element that was
+ * not recorded) has the parent 0. The values are written and read sequentially through a large buffer.
+ *
+ * When a snapshot is restored, the namespace map is filled with the bulk methods of the {@link INamespaceMapDAO},
+ * and the ids of the deleted files are kept, so that the workload does not access them.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class NamespaceSnapshot {
+
+	/** "MDBS" */
+	private static final int MAGIC = 0x4D444253;
+	private static final int VERSION = 1;
+	private static final int BUFFER_SIZE = 1 << 20;
+	/** The number of directories or files stored in the namespace map at once */
+	private static final int BATCH_SIZE = 10000;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final NamespaceIndex index;
+	private final long numberOfDirs;
+	private final long numberOfFiles;
+	private final long[] deletedFileIds;
+
+	private static Logger log = LoggerFactory.getLogger(NamespaceSnapshot.class);
+
+	private NamespaceSnapshot(NamespaceIndex index, long numberOfDirs, long numberOfFiles, long[] deletedFileIds){
+		this.index = index;
+		this.numberOfDirs = numberOfDirs;
+		this.numberOfFiles = numberOfFiles;
+		this.deletedFileIds = deletedFileIds;
+	}
+
+	/**
+	 * Writes the namespace recorded in the index to a snapshot file. The snapshot is written to a temporary file
+	 * first, which replaces the snapshot file when it is complete, so that an interrupted write does not leave
+	 * a corrupt snapshot behind.
+	 *
+	 * @param index The index containing the namespace
+	 * @param numberOfDirs The highest directory id of the namespace
+	 * @param numberOfFiles The highest file id of the namespace
+	 * @param fileName The name of the snapshot file
+	 * @throws IOException If the snapshot cannot be written
+	 */
+	public static void write(NamespaceIndex index, long numberOfDirs, long numberOfFiles, String fileName) throws IOException {
+		File file = new File(fileName);
+		File tempFile = new File(fileName + ".tmp");
+		FileOutputStream out = new FileOutputStream(tempFile);
+		try {
+			FileChannel channel = out.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			byte[] workDirectory = Config.getWorkDir().getBytes(UTF8);
+			buffer.putInt(MAGIC);
+			buffer.putInt(VERSION);
+			buffer.putInt(workDirectory.length);
+			buffer.put(workDirectory);
+			buffer.putLong(numberOfDirs);
+			buffer.putLong(numberOfFiles);
+			for(int id = 1; id <= numberOfDirs; id++){
+				ensureRemaining(channel, buffer, 4);
+				buffer.putInt(index.getStoredDirParent(id));
+			}
+			for(int id = 1; id <= numberOfFiles; id++){
+				ensureRemaining(channel, buffer, 8);
+				int parent = index.getStoredFileParent(id);
+				buffer.putInt(parent);
+				buffer.putInt((parent != 0) ? index.getStoredFileRenameCount(id) : 0);
+			}
+			flush(channel, buffer);
+			channel.force(false);
+		} finally {
+			out.close();
+		}
+		if(file.exists() && !file.delete()){
+			throw new IOException("The old snapshot " + fileName + " cannot be replaced");
+		}
+		if(!tempFile.renameTo(file)){
+			throw new IOException("The snapshot " + tempFile + " cannot be renamed to " + fileName);
+		}
+	}
+
+	/**
+	 * Reads a snapshot file into the index. The snapshot has to be taken of the same work directory.
+	 *
+	 * If the snapshot turns out to be corrupt, the index may have been partially filled. The entries are
+	 * overwritten when the elements are generated, so the same index can still be used to generate the namespace.
+	 *
+	 * @param index The empty index to read the namespace into
+	 * @param fileName The name of the snapshot file
+	 * @return The snapshot, which can be stored in the namespace map
+	 * @throws IOException If the snapshot cannot be read or it is not a valid snapshot of the work directory
+	 */
+	public static NamespaceSnapshot read(NamespaceIndex index, String fileName) throws IOException {
+		FileInputStream in = new FileInputStream(fileName);
+		try {
+			FileChannel channel = in.getChannel();
+			ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+			buffer.flip();
+			fill(channel, buffer, 12);
+			if(buffer.getInt() != MAGIC){
+				throw new IOException(fileName + " is not a namespace snapshot");
+			}
+			int version = buffer.getInt();
+			if(version != VERSION){
+				throw new IOException("Unsupported namespace snapshot version " + version);
+			}
+			int workDirectoryLength = buffer.getInt();
+			if(workDirectoryLength < 0 || workDirectoryLength > BUFFER_SIZE - 16){
+				throw new IOException(fileName + " is corrupt");
+			}
+			fill(channel, buffer, workDirectoryLength + 16);
+			byte[] workDirectory = new byte[workDirectoryLength];
+			buffer.get(workDirectory);
+			String snapshotWorkDirectory = new String(workDirectory, UTF8);
+			if(!snapshotWorkDirectory.equals(Config.getWorkDir())){
+				throw new IOException("The snapshot has been taken of the work directory " + snapshotWorkDirectory +
+						" instead of " + Config.getWorkDir());
+			}
+			long numberOfDirs = buffer.getLong();
+			long numberOfFiles = buffer.getLong();
+			if(numberOfDirs < 0 || numberOfDirs > Integer.MAX_VALUE || numberOfFiles < 0 || numberOfFiles > Integer.MAX_VALUE){
+				throw new IOException(fileName + " is corrupt");
+			}
+			for(int id = 1; id <= numberOfDirs; id++){
+				fill(channel, buffer, 4);
+				index.setStoredDirParent(id, buffer.getInt());
+			}
+			long[] deletedFileIds = new long[16];
+			int deletedFiles = 0;
+			for(int id = 1; id <= numberOfFiles; id++){
+				fill(channel, buffer, 8);
+				int parent = buffer.getInt();
+				int renameCount = buffer.getInt();
+				index.setStoredFile(id, parent, renameCount);
+				if(parent == 0){
+					if(deletedFiles == deletedFileIds.length){
+						long[] newDeletedFileIds = new long[deletedFiles * 2];
+						System.arraycopy(deletedFileIds, 0, newDeletedFileIds, 0, deletedFiles);
+						deletedFileIds = newDeletedFileIds;
+					}
+					deletedFileIds[deletedFiles++] = id;
+				}
+			}
+			long[] trimmedDeletedFileIds = new long[deletedFiles];
+			System.arraycopy(deletedFileIds, 0, trimmedDeletedFileIds, 0, deletedFiles);
+			return new NamespaceSnapshot(index, numberOfDirs, numberOfFiles, trimmedDeletedFileIds);
+		} finally {
+			in.close();
+		}
+	}
+
+	/**
+	 * Stores the directories and files of the snapshot in the namespace map
+	 *
+	 * @param dao The DAO used to access the distributed namespace
+	 */
+	public void store(INamespaceMapDAO dao){
+		long[] ids = new long[BATCH_SIZE];
+		long[] parentIds = new long[BATCH_SIZE];
+		String[] paths = new String[BATCH_SIZE];
+		int size = 0;
+		for(int id = 1; id <= numberOfDirs; id++){
+			int storedParent = index.getStoredDirParent(id);
+			String path = (storedParent != 0) ? index.getDirPath(id) : null;
+			if(path == null){
+				log.debug("Directory {} is missing from the snapshot", id);
+				continue;
+			}
+			ids[size] = id;
+			// the work directory is not stored in the namespace map
+			parentIds[size] = (storedParent == 1) ? NamespaceEntry.NO_PARENT : storedParent - 1;
+			paths[size] = path;
+			if(++size == BATCH_SIZE){
+				dao.createDirs(ids, parentIds, paths, size);
+				size = 0;
+			}
+		}
+		if(size > 0){
+			dao.createDirs(ids, parentIds, paths, size);
+			size = 0;
+		}
+		for(int id = 1; id <= numberOfFiles; id++){
+			String path = index.getFilePath(id);
+			if(path == null){
+				continue;
+			}
+			ids[size] = id;
+			parentIds[size] = index.getStoredFileParent(id);
+			paths[size] = path;
+			if(++size == BATCH_SIZE){
+				dao.createFiles(ids, parentIds, paths, size);
+				size = 0;
+			}
+		}
+		if(size > 0){
+			dao.createFiles(ids, parentIds, paths, size);
+		}
+	}
+
+	/**
+	 * Gets the number of directories of the snapshot
+	 * @return The highest directory id
+	 */
+	public long getNumberOfDirs(){
+		return numberOfDirs;
+	}
+
+	/**
+	 * Gets the number of files of the snapshot
+	 * @return The highest file id, including the deleted files
+	 */
+	public long getNumberOfFiles(){
+		return numberOfFiles;
+	}
+
+	/**
+	 * Gets the ids of the deleted files, which must not be accessed by the workload
+	 * @return The ids of the deleted files in ascending order
+	 */
+	public long[] getDeletedFileIds(){
+		return deletedFileIds;
+	}
+
+	/**
+	 * Writes the buffer to the channel if it does not have the given number of bytes remaining
+	 */
+	private static void ensureRemaining(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if(buffer.remaining() < bytes){
+			flush(channel, buffer);
+		}
+	}
+
+	/**
+	 * Writes the content of the buffer to the channel and clears the buffer
+	 */
+	private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+		buffer.flip();
+		while(buffer.hasRemaining()){
+			channel.write(buffer);
+		}
+		buffer.clear();
+	}
+
+	/**
+	 * Reads from the channel until the buffer has the given number of bytes remaining
+	 */
+	private static void fill(FileChannel channel, ByteBuffer buffer, int bytes) throws IOException {
+		if(buffer.remaining() >= bytes){
+			return;
+		}
+		buffer.compact();
+		while(buffer.position() < bytes){
+			if(channel.read(buffer) < 0){
+				throw new EOFException("The namespace snapshot is truncated");
+			}
+		}
+		buffer.flip();
+	}
+
+}
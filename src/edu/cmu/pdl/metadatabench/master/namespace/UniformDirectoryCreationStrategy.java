@@ -19,9 +19,10 @@ public class UniformDirectoryCreationStrategy extends AbstractDirectoryCreationS
 	/**
 	 * @param dao The DAO to use for accessing the namespace map
 	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param index The namespace index to record the directories in, or null
 	 */
-	public UniformDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher) {
-		super(dao, dispatcher);
+	public UniformDirectoryCreationStrategy(INamespaceMapDAO dao, IDispatcher dispatcher, NamespaceIndex index) {
+		super(dao, dispatcher, index);
 		randomId = new Random();
 	}
 
@@ -29,12 +30,12 @@ public class UniformDirectoryCreationStrategy extends AbstractDirectoryCreationS
 	 * Selects a parent directory from the set of existing directories using a uniform distribution.
 	 * It is assumed that all directories with a sequence number lower than the sequence number i of 
 	 * the directory to be created already exist. Thus, the id of the parent is a random number between 
-	 * 1 and i-1
+	 * 1 and i-1 (or the number of selectable directories, if it is limited)
 	 */
 	@Override
 	public long selectParentDirectory(int i) {
 		// select a random number between 0 and i-2 and adjust the interval to [1,i-1] by adding 1
-		int key = randomId.nextInt(i-1) + 1;
+		int key = randomId.nextInt(getSelectableDirs(i)) + 1;
 		return (long) key;
 	}
 
@@ -18,9 +18,10 @@ public class ZipfianFileCreationStrategy extends AbstractFileCreationStrategy {
 	/**
 	 * @param dispatcher The dispatcher used to send commands to other nodes
 	 * @param numberOfDirs The number of existing directories
+	 * @param index The namespace index to record the files in, or null
 	 */
-	public ZipfianFileCreationStrategy(IDispatcher dispatcher, long numberOfDirs){
-		super(dispatcher, numberOfDirs);
+	public ZipfianFileCreationStrategy(IDispatcher dispatcher, long numberOfDirs, NamespaceIndex index){
+		super(dispatcher, numberOfDirs, index);
 		randomGenerator = new ZipfianGenerator(numberOfDirs);
 	}
 	
@@ -0,0 +1,118 @@
+package edu.cmu.pdl.metadatabench.master.progress;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Paces the workload generator in open-loop mode.
+ * 
+ * Unlike the {@link Throttler}, which lets the generator run as fast as possible and pauses it if the slaves
+ * fall behind (closed-loop), the pacer releases the operations according to a fixed schedule, derived from the
+ * target throughput and the optional ramp-up time. Every operation gets a time slot (its intended start time)
+ * and the generator waits until that time before dispatching it. The schedule does not depend on the progress
+ * of the slaves, so the latencies are measured at a known offered load and a slow operation does not delay the
+ * following ones (which would hide latency, the so-called coordinated omission).
+ * 
+ * During the ramp-up, the rate is linearly increased from 0 to the target throughput. Afterwards, the operations
+ * are released at the target throughput.
+ * 
+ * The slots are allocated atomically, so the pacer can be shared by multiple generator threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class Pacer {
+
+	/** Nanoseconds in a second */
+	private static final double NANOS_PER_SECOND = 1000000000d;
+	
+	/** The target throughput in operations per nanosecond */
+	private final double rate;
+	/** The ramp-up time in nanoseconds */
+	private final double rampUpTime;
+	/** The number of operations released during the ramp-up */
+	private final double rampUpOperations;
+	/** The number of the next operation (slot) to be released */
+	private final AtomicLong nextOperation;
+	/** The start time of the schedule (System.nanoTime) */
+	private volatile long startTime;
+	
+	/**
+	 * @param targetThroughput The target throughput in operations per second
+	 * @param rampUpTime The time in milliseconds, during which the rate is linearly increased from 0 to the
+	 * target throughput
+	 */
+	public Pacer(int targetThroughput, int rampUpTime){
+		this.rate = targetThroughput / NANOS_PER_SECOND;
+		this.rampUpTime = rampUpTime * 1000000d;
+		this.rampUpOperations = this.rate * this.rampUpTime / 2;
+		this.nextOperation = new AtomicLong();
+	}
+	
+	/**
+	 * Creates a pacer using the configured target throughput and ramp-up time
+	 * 
+	 * @return The pacer, or null if the workload should be generated closed-loop
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput()
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadRampUpTime()
+	 */
+	public static Pacer fromConfig(){
+		int targetThroughput = Config.getWorkloadTargetThroughput();
+		if(targetThroughput > 0){
+			return new Pacer(targetThroughput, Config.getWorkloadRampUpTime());
+		} else {
+			return null;
+		}
+	}
+	
+	/**
+	 * Starts the schedule. The first operation is released immediately.
+	 */
+	public void start(){
+		nextOperation.set(0);
+		startTime = System.nanoTime();
+	}
+	
+	/**
+	 * Gets the start time of the schedule
+	 * 
+	 * @return The start time of the schedule (System.nanoTime)
+	 */
+	public long getStartTime(){
+		return startTime;
+	}
+	
+	/**
+	 * Allocates the next slot of the schedule and blocks until its time has come.
+	 * 
+	 * @return The intended start time (System.nanoTime) of the operation. If the generator falls behind the
+	 * schedule, this is earlier than the time of the return.
+	 */
+	public long acquire(){
+		long intendedStartTime = startTime + getOffset(nextOperation.getAndIncrement());
+		long delay;
+		while((delay = intendedStartTime - System.nanoTime()) > 0){
+			LockSupport.parkNanos(delay);
+		}
+		return intendedStartTime;
+	}
+	
+	/**
+	 * Calculates the time of an operation's slot relative to the start of the schedule. During the linear ramp-up,
+	 * the number of released operations at time t is rate * t^2 / (2 * rampUpTime), afterwards it grows by rate
+	 * in every nanosecond.
+	 * 
+	 * @param operation The number of the operation (starting at 0)
+	 * @return The offset of the operation's slot from the start of the schedule in nanoseconds
+	 */
+	private long getOffset(long operation){
+		if(operation < rampUpOperations){
+			return (long)Math.sqrt(2 * rampUpTime * operation / rate);
+		} else {
+			return (long)(rampUpTime + (operation - rampUpOperations) / rate);
+		}
+	}
+
+}
@@ -3,15 +3,19 @@ package edu.cmu.pdl.metadatabench.master.progress;
 import java.util.Collection;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.CountDownLatch;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.cmu.pdl.metadatabench.common.Config;
+
 /**
  * Processes progress reports sent by slaves, monitors overall progress, provides possibility for the master to 
  * wait until all the operations have been executed.
  * 
+ * The executed operations are the credits returned by the slaves. Together with the credit window granted by 
+ * the slaves, they determine how many operations the master may generate, see {@link Throttler}.
+ * 
  * @author emil.rakadjiev
  *
  */
@@ -20,10 +24,14 @@ public class ProgressMonitor {
 	/** The number of operation executed by each slave */
 	private static Map<Integer,Long> operationsDonePerNode = new ConcurrentHashMap<Integer,Long>();
 	/** The total number of operations that have been executed */
-	private static long operationsDoneTotal;
-	/** The total number of operations that need to be executed */
-	private static long operationsNeeded;
-	private static CountDownLatch latch = new CountDownLatch(1);
+	private static volatile long operationsDoneTotal;
+	/** The current generation phase, the progress reports of other phases are ignored */
+	private static int phase;
+	/** The number of operations that may be outstanding (generated, but not executed yet) in the current phase */
+	private static volatile long creditWindow = Long.MAX_VALUE;
+	/** The progress is logged at most once per report frequency of the slaves, not for every report */
+	private static final long LOG_INTERVAL_MILLIS = Config.getSlaveProgressReportFrequencyMillis();
+	private static long lastLogTime;
 	
 	private static final Logger log = LoggerFactory.getLogger(ProgressMonitor.class);
 	
@@ -35,9 +43,19 @@ public class ProgressMonitor {
 	 * @throws InterruptedException If the current thread has been interrupted while waiting 
 	 */
 	public static void awaitOperationCompletion(long numberOfOperations) throws InterruptedException{
-		if(sumOfOperations() < numberOfOperations){
-			operationsNeeded = numberOfOperations;
-			latch.await();
+		awaitOperationsDone(numberOfOperations);
+	}
+	
+	/**
+	 * Blocks until at least the given number of operations have been executed. Unlike 
+	 * {@link #awaitOperationCompletion(long)}, this can be called repeatedly within a phase.
+	 * 
+	 * @param numberOfOperations The number of operations that need to be executed
+	 * @throws InterruptedException If the current thread has been interrupted while waiting 
+	 */
+	public static synchronized void awaitOperationsDone(long numberOfOperations) throws InterruptedException{
+		while(sumOfOperations() < numberOfOperations){
+			ProgressMonitor.class.wait();
 		}
 	}
 	
@@ -45,16 +63,24 @@ public class ProgressMonitor {
 	 * Report how many operations has a given node executed.
 	 * 
 	 * @param nodeId The id of the node which sends the report
+	 * @param phase The generation phase, in which the node has executed the operations
 	 * @param operationsDone The number of operations executed by the node
 	 */
-	public static synchronized void reportCompletedOperations(int nodeId, long operationsDone){
-		if(addOperations(nodeId, operationsDone)){
+	public static synchronized void reportCompletedOperations(int nodeId, int phase, long operationsDone){
+		if(phase != ProgressMonitor.phase){
+			// a report sent before the end of the previous phase, which arrived after the progress reset
+			log.debug("Received progress report of phase {} from node {} in phase {}, ignoring it.", new Object[]{phase, nodeId, ProgressMonitor.phase});
+		} else if(addOperations(nodeId, operationsDone)){
 			int opsSum = sumOfOperations();
 			operationsDoneTotal = opsSum;
-			log.info("{} operations done", opsSum);
-			if(opsSum == operationsNeeded){
-				latch.countDown();
+			long now = System.currentTimeMillis();
+			if(now - lastLogTime >= LOG_INTERVAL_MILLIS){
+				lastLogTime = now;
+				log.info("{} operations done", opsSum);
+			} else {
+				log.debug("{} operations done", opsSum);
 			}
+			ProgressMonitor.class.notifyAll();
 		} else {
 			log.debug("Received old progress report from node {}, ignoring it.", nodeId);
 		}
@@ -91,6 +117,24 @@ public class ProgressMonitor {
 		return operationsDoneTotal;
 	}
 	
+	/**
+	 * Gets the number of operations that may be outstanding (generated, but not executed yet) in the current phase
+	 * 
+	 * @return The credit window, Long.MAX_VALUE if the generation is not limited
+	 */
+	public static long getCreditWindow(){
+		return creditWindow;
+	}
+	
+	/**
+	 * Sets the number of operations that may be outstanding (generated, but not executed yet) in the current phase
+	 * 
+	 * @param window The credit window granted by the slaves, Long.MAX_VALUE if the generation is not limited
+	 */
+	public static void setCreditWindow(long window){
+		creditWindow = window;
+	}
+	
 	/**
 	 * Sums up the number of operations done by all nodes
 	 * 
@@ -106,13 +150,14 @@ public class ProgressMonitor {
 	}
 	
 	/**
-	 * Resets the progress data
+	 * Resets the progress data and starts monitoring the next phase
+	 * 
+	 * @param nextPhase The next generation phase
 	 */
-	public static void reset(){
+	public static synchronized void reset(int nextPhase){
 		operationsDonePerNode = new ConcurrentHashMap<Integer,Long>();
 		operationsDoneTotal = 0;
-		operationsNeeded = 0;
-		latch = new CountDownLatch(1);
+		phase = nextPhase;
 	}
 
 }
@@ -0,0 +1,367 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
+import edu.cmu.pdl.metadatabench.cluster.ICluster;
+import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.CreateOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.MoveOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.PathOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
+import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceIndex;
+import edu.cmu.pdl.metadatabench.master.progress.Throttler;
+
+/**
+ * A workload generator that replays recorded operations (e.g. from a trace or a log) instead of drawing them
+ * from random number generators.
+ *
+ * It constructs the operation messages, records them in the {@link NamespaceIndex} (if there is one) in the same
+ * way as the {@link WorkloadGenerator}, and dispatches them at their recorded time, scaled by a speedup factor.
+ * With a speedup of 0, the operations are dispatched as fast as possible and the replay is throttled like the
+ * generated workload. The intended start time of an operation is its scheduled time, or the time of its dispatch
+ * if it is dispatched as fast as possible.
+ *
+ * An operation on a directory or file that has been created by the replay could overtake the creation, because
+ * the operations are executed by different slaves (the creation by the owner of the parent directory). Like the
+ * accessed element cache of the {@link WorkloadGenerator}, the replay assumes that a creation has been executed
+ * after {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheTTL()}. Until then, the
+ * operations on the new element are deferred, so are the later operations on an element with deferred operations.
+ * The deferred operations are dispatched in their original order and the replay of the other operations goes on
+ * in the meantime. The intended start time of a deferred operation is the time of its dispatch.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public abstract class AbstractReplayer implements IWorkloadGenerator {
+
+	private static final String DIR_NAME_PREFIX = Config.getPathSeparator() + Config.getDirNamePrefix();
+	private static final String FILE_NAME_PREFIX = Config.getPathSeparator() + Config.getFileNamePrefix();
+	private static final boolean RESOLVE_PATHS = Config.getNamespaceResolvePaths();
+	/** The time after which a dispatched creation is assumed to have been executed */
+	private static final long CREATION_NANOS = TimeUnit.MILLISECONDS.toNanos(Config.getWorkloadAccessedElementCacheTTL());
+
+	private final IDispatcher dispatcher;
+	/** The master-side namespace index, null if the namespace is not recorded by the master */
+	protected final NamespaceIndex index;
+	private final ICluster cluster;
+	/** The factor by which the recorded time is accelerated, 0 if the operations are dispatched as fast as possible */
+	private final double speedup;
+	/** The start of the replay (System.nanoTime) */
+	private long startNanos;
+	/** The start of the replay in cluster time */
+	private long startClusterTime;
+	/** The number of dispatched operations */
+	private int numberOfOperations;
+	/** The highest directory id */
+	protected long numberOfDirs;
+	/** The highest file id */
+	protected long numberOfFiles;
+	/**
+	 * The elements whose creation may not have been executed yet and the time (System.nanoTime) until which they
+	 * are assumed not to exist, in the order of the creations. The keys are the file ids and the negated directory ids.
+	 */
+	private final LinkedHashMap<Long,Long> pendingCreations;
+	/** The operations deferred until their elements exist, in their original order */
+	private final Queue<DeferredOperation> deferredOperations;
+	/** The number of deferred operations by element (with the same keys as the pending creations) */
+	private final Map<Long,Integer> deferredElements;
+
+	/**
+	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param speedup The factor by which the recorded time is accelerated, 0 if the operations are dispatched as fast as possible
+	 * @param numberOfDirs The number of existing directories in the namespace
+	 * @param numberOfFiles The number of existing files in the namespace
+	 * @param index The namespace index in which the operations are recorded, or null
+	 */
+	protected AbstractReplayer(IDispatcher dispatcher, double speedup, long numberOfDirs, long numberOfFiles, NamespaceIndex index){
+		this.dispatcher = dispatcher;
+		this.speedup = speedup;
+		this.numberOfDirs = numberOfDirs;
+		this.numberOfFiles = numberOfFiles;
+		this.index = index;
+		this.cluster = HazelcastCluster.getInstance();
+		this.pendingCreations = new LinkedHashMap<Long,Long>();
+		this.deferredOperations = new LinkedList<DeferredOperation>();
+		this.deferredElements = new HashMap<Long,Integer>();
+	}
+
+	/**
+	 * Starts the schedule of the replay. Has to be called before the first operation is dispatched.
+	 */
+	protected void startReplay(){
+		startNanos = System.nanoTime();
+		startClusterTime = cluster.getClusterTime();
+	}
+
+	/**
+	 * Waits until the scheduled time of an operation, then sets its intended start time and dispatches it. The
+	 * operation is deferred if one of its elements has just been created or has deferred operations. The deferred
+	 * operations whose elements exist by now are dispatched while waiting.
+	 *
+	 * @param op The operation to dispatch
+	 * @param offsetMillis The recorded time of the operation relative to the first operation in milliseconds
+	 */
+	protected void dispatch(SimpleOperation op, long offsetMillis){
+		long intendedStartTime;
+		if(speedup > 0){
+			long scheduledNanos = (long)(offsetMillis * 1000000 / speedup);
+			long intendedStartNanos = startNanos + scheduledNanos;
+			long delay;
+			while((delay = intendedStartNanos - System.nanoTime()) > 0){
+				dispatchDeferred();
+				LockSupport.parkNanos(Math.min(delay, getNextDeferredNanos() - System.nanoTime()));
+			}
+			intendedStartTime = startClusterTime + scheduledNanos / 1000000;
+		} else {
+			intendedStartTime = cluster.getClusterTime();
+		}
+		dispatchDeferred();
+		long[] elements = getElements(op);
+		for(long element : elements){
+			if(getPendingCreation(element) != 0 || deferredElements.containsKey(element)){
+				defer(op, elements);
+				return;
+			}
+		}
+		send(op, intendedStartTime);
+	}
+
+	/**
+	 * Dispatches the remaining deferred operations as soon as their elements exist. Has to be called after the last
+	 * operation has been dispatched.
+	 */
+	protected void finishReplay(){
+		while(!deferredOperations.isEmpty()){
+			LockSupport.parkNanos(getNextDeferredNanos() - System.nanoTime());
+			dispatchDeferred();
+		}
+	}
+
+	/**
+	 * Sets the intended start time of an operation and sends it to a slave. A creation is recorded as pending.
+	 *
+	 * @param op The operation to send
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
+	 */
+	private void send(SimpleOperation op, long intendedStartTime){
+		op.setIntendedStartTime(intendedStartTime);
+		dispatcher.dispatch(op);
+		if(op instanceof CreateOperation){
+			// re-inserted, so that the creations stay in the order of their time
+			Long element = getElements(op)[0];
+			pendingCreations.remove(element);
+			pendingCreations.put(element, System.nanoTime() + CREATION_NANOS);
+		}
+		numberOfOperations++;
+		if(speedup <= 0){
+			Throttler.throttle(numberOfOperations);
+		}
+	}
+
+	/**
+	 * Defers an operation until its elements exist
+	 *
+	 * @param op The operation
+	 * @param elements The elements of the operation
+	 */
+	private void defer(SimpleOperation op, long[] elements){
+		deferredOperations.add(new DeferredOperation(op, elements));
+		for(long element : elements){
+			Integer count = deferredElements.get(element);
+			deferredElements.put(element, (count == null) ? 1 : count + 1);
+		}
+	}
+
+	/**
+	 * Dispatches the deferred operations in their original order, as long as the elements of the next one exist
+	 */
+	private void dispatchDeferred(){
+		while(!deferredOperations.isEmpty() && getNextDeferredNanos() <= System.nanoTime()){
+			DeferredOperation deferred = deferredOperations.poll();
+			for(long element : deferred.elements){
+				int count = deferredElements.get(element);
+				if(count == 1){
+					deferredElements.remove(element);
+				} else {
+					deferredElements.put(element, count - 1);
+				}
+			}
+			send(deferred.op, cluster.getClusterTime());
+		}
+	}
+
+	/**
+	 * @return The time (System.nanoTime) when the elements of the next deferred operation exist, Long.MAX_VALUE if there is none
+	 */
+	private long getNextDeferredNanos(){
+		DeferredOperation next = deferredOperations.peek();
+		if(next == null){
+			return Long.MAX_VALUE;
+		}
+		long nanos = System.nanoTime();
+		for(long element : next.elements){
+			long pending = getPendingCreation(element);
+			if(pending != 0){
+				nanos = Math.max(nanos, pending);
+			}
+		}
+		return nanos;
+	}
+
+	/**
+	 * Gets the time until which an element is assumed not to exist, after the expired creations have been removed
+	 *
+	 * @param element The file id or the negated directory id
+	 * @return The time (System.nanoTime) until which the element is assumed not to exist, or 0 if it exists
+	 */
+	private long getPendingCreation(long element){
+		long now = System.nanoTime();
+		Iterator<Long> pending = pendingCreations.values().iterator();
+		while(pending.hasNext() && pending.next() - now <= 0){
+			pending.remove();
+		}
+		Long until = pendingCreations.get(element);
+		return (until == null) ? 0 : until;
+	}
+
+	/**
+	 * Gets the elements an operation depends on: the new element of a creation, the target of the other operations
+	 * and additionally the new parent directory of a move. A file is identified by its id, a directory by its negated id.
+	 *
+	 * @param op The operation
+	 * @return The elements of the operation
+	 */
+	private static long[] getElements(SimpleOperation op){
+		if(op instanceof CreateOperation){
+			CreateOperation create = (CreateOperation)op;
+			return new long[]{(create.getType() == FileSystemOperationType.MKDIRS) ? -create.getId() : create.getId()};
+		} else if(op instanceof MoveOperation){
+			return new long[]{op.getTargetId(), -((MoveOperation)op).getParentIdNew()};
+		} else if(op.getType() == FileSystemOperationType.LIST_STATUS_DIR){
+			return new long[]{-op.getTargetId()};
+		}
+		return new long[]{op.getTargetId()};
+	}
+
+	/**
+	 * Constructs a create or mkdir operation and records it in the index
+	 *
+	 * @param type The operation type (create or mkdir)
+	 * @param parentId The id of the parent directory
+	 * @param parentsParent Whether the parent of the given directory is the parent of the new element
+	 * @param id The id of the new element
+	 * @param name The name of the new element, or null for the default name
+	 * @return The operation
+	 */
+	protected SimpleOperation createOperation(FileSystemOperationType type, long parentId, boolean parentsParent, long id, String name){
+		if(type == FileSystemOperationType.MKDIRS){
+			numberOfDirs = Math.max(numberOfDirs, id);
+			if(index != null){
+				index.addDir(id, parentId, parentsParent);
+			}
+		} else {
+			numberOfFiles = Math.max(numberOfFiles, id);
+			if(index != null){
+				index.addFile(id, parentId);
+			}
+		}
+		if(name == null){
+			name = ((type == FileSystemOperationType.MKDIRS) ? DIR_NAME_PREFIX : FILE_NAME_PREFIX) + id;
+		}
+		return new CreateOperation(type, parentId, parentsParent, id, name);
+	}
+
+	/**
+	 * Constructs a move operation and records it in the index
+	 *
+	 * @param id The id of the file to move
+	 * @param parentIdNew The id of the new parent directory
+	 * @return The operation
+	 */
+	protected SimpleOperation moveOperation(long id, long parentIdNew){
+		if(index != null){
+			index.moveFile(id, parentIdNew);
+		}
+		return new MoveOperation(FileSystemOperationType.MOVE_FILE, id, parentIdNew);
+	}
+
+	/**
+	 * Constructs an operation that only has a target and records it in the index. The path of a read operation
+	 * is resolved if the master resolves the paths.
+	 *
+	 * @param type The operation type
+	 * @param targetId The id of the target directory or file
+	 * @return The operation
+	 */
+	protected SimpleOperation simpleOperation(FileSystemOperationType type, long targetId){
+		switch(type){
+			case DELETE_FILE:
+				if(index != null){
+					index.removeFile(targetId);
+				}
+				break;
+			case RENAME_FILE:
+				if(index != null){
+					index.renameFile(targetId);
+				}
+				break;
+			case LIST_STATUS_DIR:
+			case LIST_STATUS_FILE:
+			case OPEN_FILE:
+				if(RESOLVE_PATHS && index != null){
+					String path = (type == FileSystemOperationType.LIST_STATUS_DIR) ? index.getDirPath(targetId) : index.getFilePath(targetId);
+					if(path != null){
+						return new PathOperation(type, targetId, path);
+					}
+				}
+				break;
+			default:
+		}
+		return new SimpleOperation(type, targetId);
+	}
+
+	@Override
+	public int getNumberOfOperations() {
+		return numberOfOperations;
+	}
+
+	@Override
+	public long getNumberOfDirs() {
+		return numberOfDirs;
+	}
+
+	@Override
+	public long getNumberOfFiles() {
+		return numberOfFiles;
+	}
+
+	/**
+	 * An operation deferred until its elements exist
+	 */
+	private static class DeferredOperation {
+
+		private final SimpleOperation op;
+		private final long[] elements;
+
+		/**
+		 * @param op The operation
+		 * @param elements The elements of the operation
+		 */
+		private DeferredOperation(SimpleOperation op, long[] elements){
+			this.op = op;
+			this.elements = elements;
+		}
+
+	}
+
+}
@@ -0,0 +1,104 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * Samples indices from a discrete probability distribution in constant time, using the alias method (Walker,
+ * with the table construction of Vose).
+ *
+ * The table consists of one column per index. Every column holds the probability of its own index and the index
+ * of an alias, which fills the rest of the column. A sample picks a column uniformly and then either the column
+ * itself or its alias, so its cost does not depend on the number of indices. The table is immutable and can be
+ * shared between threads; the random number generator is supplied by the caller.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class AliasTable {
+
+	/** The probability of the column's own index, the alias is selected otherwise */
+	private final double[] probabilities;
+	/** The alias index of every column */
+	private final int[] aliases;
+
+	/**
+	 * @param weights The non-negative weights of the indices, they do not have to sum up to 1
+	 * @throws IllegalArgumentException If there are no weights, a weight is negative, or all weights are 0
+	 */
+	public AliasTable(double[] weights){
+		int n = weights.length;
+		if(n == 0){
+			throw new IllegalArgumentException("The alias table needs at least one weight");
+		}
+		double sum = 0;
+		for(double weight : weights){
+			if(!(weight >= 0) || Double.isInfinite(weight)){
+				throw new IllegalArgumentException("Invalid weight " + weight);
+			}
+			sum += weight;
+		}
+		if(sum <= 0){
+			throw new IllegalArgumentException("The sum of the weights has to be positive");
+		}
+
+		probabilities = new double[n];
+		aliases = new int[n];
+		// the weights scaled so that the average is 1
+		double[] scaled = new double[n];
+		// stacks of the columns below and above the average, stored in one array from both ends
+		int[] work = new int[n];
+		int small = 0;
+		int large = n;
+		for(int i = 0; i < n; i++){
+			scaled[i] = weights[i] * n / sum;
+			if(scaled[i] < 1){
+				work[small++] = i;
+			} else {
+				work[--large] = i;
+			}
+		}
+		while(small > 0 && large < n){
+			int less = work[--small];
+			int more = work[large++];
+			probabilities[less] = scaled[less];
+			aliases[less] = more;
+			// the large column gives away what fills up the small column
+			scaled[more] = (scaled[more] + scaled[less]) - 1;
+			if(scaled[more] < 1){
+				work[small++] = more;
+			} else {
+				work[--large] = more;
+			}
+		}
+		// the remaining columns are full, up to rounding errors
+		while(large < n){
+			int more = work[large++];
+			probabilities[more] = 1;
+			aliases[more] = more;
+		}
+		while(small > 0){
+			int less = work[--small];
+			probabilities[less] = 1;
+			aliases[less] = less;
+		}
+	}
+
+	/**
+	 * @return The number of indices
+	 */
+	public int size(){
+		return probabilities.length;
+	}
+
+	/**
+	 * Selects a random index according to the distribution
+	 *
+	 * @param random The random number generator
+	 * @return The selected index
+	 */
+	public int sample(FastRandom random){
+		// a single random number selects both the column and the position within the column
+		double u = random.nextDouble() * probabilities.length;
+		int column = (int)u;
+		return (u - column < probabilities[column]) ? column : aliases[column];
+	}
+
+}
@@ -0,0 +1,392 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.io.BufferedReader;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.text.ParseException;
+import java.text.SimpleDateFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
+import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceIndex;
+
+/**
+ * Replays the operations of an HDFS NameNode audit log as the workload (see
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogFile()}).
+ *
+ * The log is read line by line. A line looks like
+ * <pre>2013-01-01 12:00:00,123 INFO FSNamesystem.audit: allowed=true	ugi=user	ip=/10.0.0.1	cmd=open	src=/a/b	dst=null	perm=null</pre>
+ * The commands create, mkdirs, listStatus, getfileinfo, open, rename and delete are replayed, other commands and
+ * denied accesses are skipped. The operations are dispatched at their original inter-arrival times, scaled by
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogSpeedup()}.
+ *
+ * The paths of the log are mapped onto the ids of the benchmark namespace. A path seen for the first time is
+ * mapped to an existing directory or file by its hash, afterwards it keeps its id. Created files and directories
+ * get new ids under the directory their parent path is mapped to, renamed files keep their id (a rename to
+ * another directory is replayed as a move) and deleted files release their path. The hierarchy of the paths in
+ * the log is not reproduced, but the access frequencies of the individual paths are. Operations on directories
+ * that the benchmark does not support (rename or delete of a directory) are skipped. The number of remembered
+ * paths is bounded (see {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadAuditLogMaxPaths()}), the least
+ * recently accessed paths are forgotten first.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class AuditLogReplayer extends AbstractReplayer {
+
+	private static final String TIME_FORMAT_MINUTES = "yyyy-MM-dd HH:mm";
+	/** The length of the timestamp at the beginning of a line, e.g. 2013-01-01 12:00:00,123 */
+	private static final int TIME_LENGTH = 23;
+	/** The number of ids probed to find a file that has not been deleted */
+	private static final int MAX_PROBES = 64;
+	private static final long ROOT_ID = 1;
+
+	private final String fileName;
+	/** The number of directories and files of the namespace the unknown paths are mapped to */
+	private final long existingDirs, existingFiles;
+	/** The ids of the recently accessed paths */
+	private final Map<String,Long> dirIds, fileIds;
+	/** The ids of the files deleted by the replay (or before) */
+	private final DeletedFileIdSet deletedFileIds;
+	/** The number of skipped lines by command */
+	private final Map<String,Integer> skipped;
+
+	private final SimpleDateFormat minuteFormat;
+	/** The minute part of the last parsed timestamp and its time */
+	private String minute;
+	private long minuteTime;
+
+	private Logger log;
+
+	/**
+	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param fileName The name of the audit log file
+	 * @param speedup The factor by which the original time is accelerated, 0 if the operations are dispatched as fast as possible
+	 * @param numberOfDirs The number of existing directories in the namespace
+	 * @param numberOfFiles The number of existing files in the namespace
+	 * @param index The namespace index in which the operations are recorded, or null
+	 */
+	public AuditLogReplayer(IDispatcher dispatcher, String fileName, double speedup, long numberOfDirs, long numberOfFiles, NamespaceIndex index){
+		super(dispatcher, speedup, numberOfDirs, numberOfFiles, index);
+		this.fileName = fileName;
+		this.existingDirs = Math.max(1, numberOfDirs);
+		this.existingFiles = numberOfFiles;
+		this.dirIds = new PathIdMap(Config.getWorkloadAuditLogMaxPaths());
+		this.fileIds = new PathIdMap(Config.getWorkloadAuditLogMaxPaths());
+		this.deletedFileIds = new DeletedFileIdSet(numberOfFiles);
+		this.skipped = new TreeMap<String,Integer>();
+		this.minuteFormat = new SimpleDateFormat(TIME_FORMAT_MINUTES);
+		this.log = LoggerFactory.getLogger(AuditLogReplayer.class);
+	}
+
+	/**
+	 * Marks files of the existing namespace as deleted, so that no path is mapped to them. Has to be called before
+	 * the log is replayed.
+	 *
+	 * @param ids The ids of the deleted files
+	 */
+	public void addDeletedFileIds(long[] ids){
+		for(long id : ids){
+			deletedFileIds.add(id);
+		}
+	}
+
+	/**
+	 * Replays the audit log. If the log cannot be read, the replay is stopped and the operations dispatched so far
+	 * remain the workload.
+	 */
+	@Override
+	public void generate() {
+		BufferedReader reader = null;
+		long lines = 0;
+		try {
+			reader = new BufferedReader(new InputStreamReader(new FileInputStream(fileName), "UTF-8"), 1 << 20);
+			long firstTime = -1;
+			long time = 0;
+			String line;
+			log.info("Replaying the audit log {}", fileName);
+			startReplay();
+			while((line = reader.readLine()) != null){
+				lines++;
+				long lineTime = parseTime(line);
+				if(lineTime >= 0){
+					if(firstTime < 0){
+						firstTime = lineTime;
+					}
+					// the lines are not strictly ordered if the log is written by multiple threads
+					time = Math.max(time, lineTime - firstTime);
+				}
+				replayLine(line, time);
+			}
+		} catch(IOException e){
+			log.error("Exception while replaying the audit log {}", fileName, e);
+		} finally {
+			if(reader != null){
+				try {
+					reader.close();
+				} catch(IOException e){
+					log.warn("Audit log {} cannot be closed", fileName, e);
+				}
+			}
+		}
+		finishReplay();
+		log.info("{} lines of the audit log replayed as {} operations, skipped lines by command: {}", new Object[]{lines, getNumberOfOperations(), skipped});
+	}
+
+	/**
+	 * Parses a line of the log and dispatches the corresponding operation
+	 *
+	 * @param line The line of the log
+	 * @param time The time of the line relative to the first line in milliseconds
+	 */
+	private void replayLine(String line, long time){
+		String cmd = getField(line, "cmd=");
+		String src = getField(line, "src=");
+		if(cmd == null || src == null || "false".equals(getField(line, "allowed="))){
+			skip((cmd != null) ? cmd : "unknown");
+			return;
+		}
+		src = normalize(src);
+		if("open".equals(cmd)){
+			long id = getFileId(src);
+			if(id > 0){
+				dispatch(simpleOperation(FileSystemOperationType.OPEN_FILE, id), time);
+				return;
+			}
+		} else if("listStatus".equals(cmd)){
+			Long id = fileIds.get(src);
+			if(id != null){
+				dispatch(simpleOperation(FileSystemOperationType.LIST_STATUS_FILE, id), time);
+			} else {
+				dispatch(simpleOperation(FileSystemOperationType.LIST_STATUS_DIR, getDirId(src)), time);
+			}
+			return;
+		} else if("getfileinfo".equals(cmd)){
+			Long dirId = dirIds.get(src);
+			long id;
+			if(dirId != null){
+				dispatch(simpleOperation(FileSystemOperationType.LIST_STATUS_DIR, dirId), time);
+				return;
+			} else if((id = getFileId(src)) > 0){
+				dispatch(simpleOperation(FileSystemOperationType.LIST_STATUS_FILE, id), time);
+				return;
+			}
+		} else if("create".equals(cmd)){
+			long id = numberOfFiles + 1;
+			fileIds.put(src, id);
+			dispatch(createOperation(FileSystemOperationType.CREATE, getDirId(getParent(src)), false, id, null), time);
+			return;
+		} else if("mkdirs".equals(cmd)){
+			if(!dirIds.containsKey(src) && !fileIds.containsKey(src)){
+				long id = numberOfDirs + 1;
+				long parentId = getDirId(getParent(src));
+				dirIds.put(src, id);
+				dispatch(createOperation(FileSystemOperationType.MKDIRS, parentId, false, id, null), time);
+				return;
+			}
+		} else if("delete".equals(cmd)){
+			if(!dirIds.containsKey(src)){
+				long id = getFileId(src);
+				if(id > 0){
+					fileIds.remove(src);
+					deletedFileIds.add(id);
+					dispatch(simpleOperation(FileSystemOperationType.DELETE_FILE, id), time);
+					return;
+				}
+			}
+		} else if("rename".equals(cmd)){
+			String dst = getField(line, "dst=");
+			if(dst != null && !dirIds.containsKey(src)){
+				dst = normalize(dst);
+				long id = getFileId(src);
+				if(id > 0){
+					fileIds.remove(src);
+					fileIds.put(dst, id);
+					if(getParent(src).equals(getParent(dst))){
+						dispatch(simpleOperation(FileSystemOperationType.RENAME_FILE, id), time);
+					} else {
+						dispatch(moveOperation(id, getDirId(getParent(dst))), time);
+					}
+					return;
+				}
+			}
+		}
+		skip(cmd);
+	}
+
+	/**
+	 * Gets the id of the directory a path is mapped to. A path seen for the first time is mapped to an existing
+	 * directory by its hash, the root path to the root directory.
+	 *
+	 * @param path The path of the directory
+	 * @return The id of the directory
+	 */
+	private long getDirId(String path){
+		Long id = dirIds.get(path);
+		if(id == null){
+			id = (path.isEmpty() || "/".equals(path)) ? ROOT_ID : 1 + floorMod(hash(path), existingDirs);
+			dirIds.put(path, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Gets the id of the file a path is mapped to. A path seen for the first time is mapped to an existing file by
+	 * its hash, skipping deleted files.
+	 *
+	 * @param path The path of the file
+	 * @return The id of the file, or 0 if no file that has not been deleted has been found
+	 */
+	private long getFileId(String path){
+		Long id = fileIds.get(path);
+		if(id != null && deletedFileIds.contains(id)){
+			// another path mapped to the same file has been deleted
+			fileIds.remove(path);
+			id = null;
+		}
+		if(id == null){
+			if(existingFiles == 0){
+				return 0;
+			}
+			long hash = hash(path);
+			for(int i = 0; i < MAX_PROBES; i++){
+				long candidate = 1 + floorMod(hash + i, existingFiles);
+				if(!deletedFileIds.contains(candidate)){
+					id = candidate;
+					break;
+				}
+			}
+			if(id == null){
+				return 0;
+			}
+			fileIds.put(path, id);
+		}
+		return id;
+	}
+
+	/**
+	 * Gets the value of a field of a line, e.g. the value of cmd= or src=
+	 *
+	 * @param line The line of the log
+	 * @param key The name of the field including the equals sign
+	 * @return The value of the field, or null if the line does not contain the field or its value is null
+	 */
+	private static String getField(String line, String key){
+		int start = line.indexOf(key);
+		while(start > 0 && !Character.isWhitespace(line.charAt(start - 1))){
+			start = line.indexOf(key, start + 1);
+		}
+		if(start < 0){
+			return null;
+		}
+		start += key.length();
+		int end = line.indexOf('\t', start);
+		String value = (end < 0) ? line.substring(start) : line.substring(start, end);
+		return "null".equals(value) ? null : value;
+	}
+
+	/**
+	 * Parses the timestamp at the beginning of a line. The minutes are parsed by a date format only when they
+	 * change, the seconds and milliseconds are parsed directly.
+	 *
+	 * @param line The line of the log
+	 * @return The time of the line in milliseconds, or -1 if the line does not start with a timestamp
+	 */
+	private long parseTime(String line){
+		if(line.length() < TIME_LENGTH || line.charAt(16) != ':' || line.charAt(19) != ','){
+			return -1;
+		}
+		if(minute == null || !line.regionMatches(0, minute, 0, 16)){
+			try {
+				minuteTime = minuteFormat.parse(line.substring(0, 16)).getTime();
+				minute = line.substring(0, 16);
+			} catch(ParseException e){
+				return -1;
+			}
+		}
+		int seconds = parseDigits(line, 17, 19);
+		int millis = parseDigits(line, 20, 23);
+		if(seconds < 0 || millis < 0){
+			return -1;
+		}
+		return minuteTime + seconds * 1000 + millis;
+	}
+
+	private static int parseDigits(String line, int start, int end){
+		int value = 0;
+		for(int i = start; i < end; i++){
+			char c = line.charAt(i);
+			if(c < '0' || c > '9'){
+				return -1;
+			}
+			value = value * 10 + (c - '0');
+		}
+		return value;
+	}
+
+	/**
+	 * Removes a trailing separator from a path
+	 */
+	private static String normalize(String path){
+		return (path.length() > 1 && path.endsWith("/")) ? path.substring(0, path.length() - 1) : path;
+	}
+
+	/**
+	 * Gets the parent of a path, the empty string for the root or a top-level element
+	 */
+	private static String getParent(String path){
+		int separator = path.lastIndexOf('/');
+		return (separator <= 0) ? "" : path.substring(0, separator);
+	}
+
+	/**
+	 * Spreads the hash code of a path over 64 bits, so that similar paths are mapped to distant ids
+	 */
+	private static long hash(String path){
+		long h = path.hashCode() * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 32);
+	}
+
+	private static long floorMod(long x, long y){
+		long mod = x % y;
+		return (mod < 0) ? mod + y : mod;
+	}
+
+	private void skip(String cmd){
+		Integer count = skipped.get(cmd);
+		skipped.put(cmd, (count == null) ? 1 : count + 1);
+	}
+
+	/**
+	 * Map from paths to ids, which forgets the least recently accessed path if it exceeds its maximum size
+	 */
+	private static class PathIdMap extends LinkedHashMap<String,Long> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int maxSize;
+
+		/**
+		 * @param maxSize The maximum number of paths
+		 */
+		public PathIdMap(int maxSize){
+			super(16, 0.75f, true);
+			this.maxSize = maxSize;
+		}
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<String,Long> eldest){
+			return size() > maxSize;
+		}
+
+	}
+
+}
@@ -0,0 +1,247 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * The set of the ids of deleted files, with a free list of the ids that can be reused for new files.
+ *
+ * The set is a bitmap that is split into chunks of 65536 ids, like a roaring bitmap. A chunk is only allocated
+ * when the first file in its id range is deleted, so the set needs no memory for the parts of the namespace
+ * without deletions, and at most one bit per file otherwise. The bits are set and cleared with atomic operations,
+ * so the membership checks (which are on the hot path of the id selection) are lock-free and do not box the ids.
+ *
+ * The free list is a ring buffer of primitive ids in the order of their deletion. The oldest ids are reused first,
+ * because they are the least likely to be still in the accessed element cache.
+ *
+ * The set is thread-safe.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class DeletedFileIdSet {
+
+	private static final int CHUNK_BITS = 16;
+	private static final int WORDS_PER_CHUNK = (1 << CHUNK_BITS) / 64;
+	private static final int INITIAL_FREE_LIST_CAPACITY = 1024;
+
+	/** The chunks of the bitmap, null for the chunks without deleted ids. Replaced when the namespace grows. */
+	private volatile AtomicReferenceArray<AtomicLongArray> chunks;
+	/** Guards the allocation of chunks and the replacement of the chunk array */
+	private final Object chunkLock = new Object();
+	/** The number of deleted ids */
+	private final AtomicLong size;
+
+	/** Guards the free list */
+	private final Object freeListLock = new Object();
+	/** The ring buffer of the free list */
+	private long[] freeList;
+	/** The position of the oldest id in the free list */
+	private int freeListHead;
+	/** The number of ids in the free list */
+	private int freeListSize;
+
+	/**
+	 * @param expectedIds The expected highest file id, used to size the set
+	 */
+	public DeletedFileIdSet(long expectedIds){
+		this.chunks = new AtomicReferenceArray<AtomicLongArray>(Math.max(1, chunkIndex(expectedIds) + 1));
+		this.size = new AtomicLong();
+		this.freeList = new long[INITIAL_FREE_LIST_CAPACITY];
+	}
+
+	/**
+	 * @param id The id
+	 * @return The index of the chunk of the id
+	 */
+	private static int chunkIndex(long id){
+		return (int)(id >>> CHUNK_BITS);
+	}
+
+	/**
+	 * @param id The id
+	 * @return The index of the word of the id within its chunk
+	 */
+	private static int wordIndex(long id){
+		return (int)(id & ((1 << CHUNK_BITS) - 1)) >>> 6;
+	}
+
+	/**
+	 * Gets the chunk of an id, allocating it if needed
+	 *
+	 * @param id The id
+	 * @return The chunk
+	 */
+	private AtomicLongArray getOrCreateChunk(long id){
+		int index = chunkIndex(id);
+		AtomicReferenceArray<AtomicLongArray> current = chunks;
+		AtomicLongArray chunk = (index < current.length()) ? current.get(index) : null;
+		if(chunk != null){
+			return chunk;
+		}
+		synchronized(chunkLock){
+			current = chunks;
+			if(index >= current.length()){
+				AtomicReferenceArray<AtomicLongArray> grown = new AtomicReferenceArray<AtomicLongArray>(Math.max(index + 1, current.length() * 2));
+				for(int i = 0; i < current.length(); i++){
+					grown.set(i, current.get(i));
+				}
+				chunks = grown;
+				current = grown;
+			}
+			chunk = current.get(index);
+			if(chunk == null){
+				chunk = new AtomicLongArray(WORDS_PER_CHUNK);
+				current.set(index, chunk);
+			}
+			return chunk;
+		}
+	}
+
+	/**
+	 * Checks whether an id has been deleted
+	 *
+	 * @param id The id to check
+	 * @return True if the id has been deleted and not reused yet
+	 */
+	public boolean contains(long id){
+		AtomicReferenceArray<AtomicLongArray> current = chunks;
+		int index = chunkIndex(id);
+		if(index >= current.length()){
+			return false;
+		}
+		AtomicLongArray chunk = current.get(index);
+		return chunk != null && (chunk.get(wordIndex(id)) & (1L << id)) != 0;
+	}
+
+	/**
+	 * Finds the first id that has not been deleted, starting at a given id. Runs of deleted ids are skipped 64 ids
+	 * at a time and chunks without deleted ids are not scanned at all.
+	 *
+	 * @param from The first id to check
+	 * @param to The last id to check
+	 * @return The first id between from and to (inclusive) that has not been deleted, or 0 if there is none
+	 */
+	public long nextNotDeleted(long from, long to){
+		AtomicReferenceArray<AtomicLongArray> current = chunks;
+		long id = from;
+		while(id <= to){
+			int index = chunkIndex(id);
+			AtomicLongArray chunk = (index < current.length()) ? current.get(index) : null;
+			if(chunk == null){
+				return id;
+			}
+			// the bits of the ids that have not been deleted, starting at the id
+			long free = ~chunk.get(wordIndex(id)) & (-1L << id);
+			if(free != 0){
+				long found = (id & ~63L) + Long.numberOfTrailingZeros(free);
+				return (found <= to) ? found : 0;
+			}
+			id = (id | 63L) + 1;
+		}
+		return 0;
+	}
+
+	/**
+	 * Marks an id as deleted and appends it to the free list
+	 *
+	 * @param id The id of the deleted file
+	 * @return True if the id has been added, false if it had already been deleted
+	 */
+	public boolean add(long id){
+		AtomicLongArray chunk = getOrCreateChunk(id);
+		int word = wordIndex(id);
+		long bit = 1L << id;
+		long bits;
+		do {
+			bits = chunk.get(word);
+			if((bits & bit) != 0){
+				return false;
+			}
+		} while(!chunk.compareAndSet(word, bits, bits | bit));
+		size.incrementAndGet();
+		synchronized(freeListLock){
+			offerFree(id);
+		}
+		return true;
+	}
+
+	/**
+	 * Clears the deleted mark of an id
+	 *
+	 * @param id The id
+	 */
+	private void clear(long id){
+		AtomicLongArray chunk = chunks.get(chunkIndex(id));
+		int word = wordIndex(id);
+		long bit = 1L << id;
+		long bits;
+		do {
+			bits = chunk.get(word);
+		} while(!chunk.compareAndSet(word, bits, bits & ~bit));
+		size.decrementAndGet();
+	}
+
+	/**
+	 * Appends an id to the free list, growing the ring buffer if needed. The caller holds the lock of the free list.
+	 *
+	 * @param id The id
+	 */
+	private void offerFree(long id){
+		if(freeListSize == freeList.length){
+			long[] grown = new long[freeList.length * 2];
+			for(int i = 0; i < freeListSize; i++){
+				grown[i] = freeList[(freeListHead + i) % freeList.length];
+			}
+			freeList = grown;
+			freeListHead = 0;
+		}
+		freeList[(freeListHead + freeListSize) % freeList.length] = id;
+		freeListSize++;
+	}
+
+	/**
+	 * Takes the oldest deleted id that may be reused from the free list and clears its deleted mark. Only the first
+	 * few ids of the list are considered, because the ids are in the order of their deletion and if these are still
+	 * in use, the later ones are very likely to be in use as well.
+	 * The id is claimed in the cache of the recently accessed ids while the free list is locked, so it cannot be
+	 * selected by another thread as soon as its deleted mark is cleared.
+	 *
+	 * @param inUse The cache of the recently accessed ids, which must not be reused yet and in which the id is claimed
+	 * @param maxCandidates The maximum number of ids considered
+	 * @return The reusable id, or 0 if there is none
+	 */
+	public long pollReusable(IdCache inUse, int maxCandidates){
+		long id = 0;
+		synchronized(freeListLock){
+			int candidates = Math.min(maxCandidates, freeListSize);
+			for(int i = 0; i < candidates; i++){
+				int position = (freeListHead + i) % freeList.length;
+				long candidate = freeList[position];
+				if(inUse.addFileIdIfAbsent(candidate)){
+					// keep the order of the skipped ids by moving them one position back
+					for(int j = i; j > 0; j--){
+						freeList[(freeListHead + j) % freeList.length] = freeList[(freeListHead + j - 1) % freeList.length];
+					}
+					freeListHead = (freeListHead + 1) % freeList.length;
+					freeListSize--;
+					id = candidate;
+					break;
+				}
+			}
+		}
+		if(id != 0){
+			clear(id);
+		}
+		return id;
+	}
+
+	/**
+	 * @return The number of deleted ids
+	 */
+	public long size(){
+		return size.get();
+	}
+
+}
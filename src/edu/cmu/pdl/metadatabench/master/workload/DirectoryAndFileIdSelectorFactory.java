@@ -0,0 +1,75 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Creates the {@link IDirectoryAndFileIdSelector}s of the generator threads for the configured access 
+ * distribution.
+ * 
+ * The state that is expensive to compute (the normalization constant of the Zipfian distributions) is computed 
+ * once by the factory and shared by all selectors.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class DirectoryAndFileIdSelectorFactory {
+
+	private final String distribution;
+	private final long numberOfDirs;
+	private final long numberOfFiles;
+	/** The template of the Zipfian selectors, null if the distribution is not Zipfian */
+	private final ZipfianDirectoryAndFileIdSelector zipfianTemplate;
+
+	/**
+	 * Creates a factory for the distribution set in the config
+	 * 
+	 * @param numberOfDirs The number of directories in the namespace
+	 * @param numberOfFiles The number of files in the namespace
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution()
+	 */
+	public DirectoryAndFileIdSelectorFactory(long numberOfDirs, long numberOfFiles){
+		this(Config.getWorkloadDistribution(), numberOfDirs, numberOfFiles);
+	}
+
+	/**
+	 * @param distribution The access distribution
+	 * @param numberOfDirs The number of directories in the namespace
+	 * @param numberOfFiles The number of files in the namespace
+	 * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadDistribution()
+	 */
+	public DirectoryAndFileIdSelectorFactory(String distribution, long numberOfDirs, long numberOfFiles){
+		this.distribution = distribution;
+		this.numberOfDirs = numberOfDirs;
+		this.numberOfFiles = numberOfFiles;
+		// the template is only copied and never selects ids itself, so it needs no random number generator
+		if(Config.WORKLOAD_DISTRIBUTION_UNIFORM.equals(distribution) || Config.WORKLOAD_DISTRIBUTION_HOTSPOT.equals(distribution) 
+				|| Config.WORKLOAD_DISTRIBUTION_SEQUENTIAL.equals(distribution)){
+			zipfianTemplate = null;
+		} else if(Config.WORKLOAD_DISTRIBUTION_ZIPFIAN.equals(distribution) || Config.WORKLOAD_DISTRIBUTION_SCRAMBLED_ZIPFIAN.equals(distribution)){
+			zipfianTemplate = new ZipfianDirectoryAndFileIdSelector(numberOfDirs, numberOfFiles, Config.getWorkloadZipfianConstant(), false, null);
+		} else {
+			zipfianTemplate = new ZipfianDirectoryAndFileIdSelector(numberOfDirs, numberOfFiles, Config.getWorkloadZipfianConstant(), true, null);
+		}
+	}
+
+	/**
+	 * Creates a selector for a generator thread
+	 * 
+	 * @param random The random number generator of the selector
+	 * @return The selector
+	 */
+	public IDirectoryAndFileIdSelector create(FastRandom random){
+		if(Config.WORKLOAD_DISTRIBUTION_UNIFORM.equals(distribution)){
+			return new UniformDirectoryAndFileIdSelector(random);
+		} else if(Config.WORKLOAD_DISTRIBUTION_HOTSPOT.equals(distribution)){
+			return new HotspotDirectoryAndFileIdSelector(Config.getWorkloadHotspotDataFraction(), Config.getWorkloadHotspotOpFraction(), random);
+		} else if(Config.WORKLOAD_DISTRIBUTION_SEQUENTIAL.equals(distribution)){
+			return new SequentialDirectoryAndFileIdSelector(numberOfDirs, numberOfFiles, random);
+		} else if(Config.WORKLOAD_DISTRIBUTION_SCRAMBLED_ZIPFIAN.equals(distribution)){
+			return new ScrambledZipfianDirectoryAndFileIdSelector(new ZipfianDirectoryAndFileIdSelector(zipfianTemplate, random));
+		} else {
+			return new ZipfianDirectoryAndFileIdSelector(zipfianTemplate, random);
+		}
+	}
+
+}
@@ -0,0 +1,96 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A fast pseudo-random number generator (xorshift64*) for the hot loops of the workload generator.
+ *
+ * Unlike {@link java.util.Random}, which updates its seed with an atomic compare-and-set on every call, the state
+ * is a plain field, so an instance must not be shared between threads. Every generator thread has its own
+ * instances. The state is initialized from the seed by the SplitMix64 function, so that similar seeds (e.g. the
+ * seeds of consecutive generator threads) give unrelated sequences. The quality is more than sufficient for
+ * selecting operation types and ids, but it is not suitable for cryptographic purposes.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class FastRandom {
+
+	/** Used to derive the seeds of unseeded instances */
+	private static final AtomicLong seedUniquifier = new AtomicLong(System.nanoTime());
+	private static final double DOUBLE_UNIT = 1.0 / (1L << 53);
+
+	private long state;
+
+	/**
+	 * Creates a generator with a seed that is (very likely) different from the seeds of all other instances
+	 */
+	public FastRandom(){
+		this(seedUniquifier.addAndGet(0x9E3779B97F4A7C15L) ^ System.nanoTime());
+	}
+
+	/**
+	 * @param seed The seed, for reproducible sequences
+	 */
+	public FastRandom(long seed){
+		long z = seed + 0x9E3779B97F4A7C15L;
+		z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+		z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+		z = z ^ (z >>> 31);
+		// the state of xorshift must not be 0
+		this.state = (z != 0) ? z : 0x9E3779B97F4A7C15L;
+	}
+
+	/**
+	 * @return A uniformly distributed long value
+	 */
+	public long nextLong(){
+		long x = state;
+		x ^= x >>> 12;
+		x ^= x << 25;
+		x ^= x >>> 27;
+		state = x;
+		return x * 0x2545F4914F6CDD1DL;
+	}
+
+	/**
+	 * @return A uniformly distributed double value between 0 (inclusive) and 1 (exclusive)
+	 */
+	public double nextDouble(){
+		return (nextLong() >>> 11) * DOUBLE_UNIT;
+	}
+
+	/**
+	 * @param bound The upper bound (exclusive), has to be positive
+	 * @return A uniformly distributed int value between 0 (inclusive) and the bound (exclusive)
+	 */
+	public int nextInt(int bound){
+		// the high 32 bits multiplied by the bound, without the bias of the modulo (Lemire's method)
+		long m = (nextLong() >>> 32) * bound;
+		if((m & 0xFFFFFFFFL) < bound){
+			long threshold = (0x100000000L - bound) % bound;
+			while((m & 0xFFFFFFFFL) < threshold){
+				m = (nextLong() >>> 32) * bound;
+			}
+		}
+		return (int)(m >>> 32);
+	}
+
+	/**
+	 * @param bound The upper bound (exclusive), has to be positive
+	 * @return A uniformly distributed long value between 0 (inclusive) and the bound (exclusive)
+	 */
+	public long nextLong(long bound){
+		if(bound <= Integer.MAX_VALUE){
+			return nextInt((int)bound);
+		}
+		// rejection sampling of the remainders that would cause a bias
+		long bits, value;
+		do {
+			bits = nextLong() >>> 1;
+			value = bits % bound;
+		} while(bits - value + (bound - 1) < 0);
+		return value;
+	}
+
+}
@@ -0,0 +1,72 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * Provides functionality to select a random id of an existing directory or file from a hot set and a cold set, 
+ * like YCSB's HotspotIntegerGenerator.
+ * 
+ * The hot set consists of a given fraction of the elements with the lowest ids, so its size grows with the 
+ * namespace. A given fraction of the selections is made uniformly from the hot set, the rest uniformly from 
+ * the cold set.
+ * 
+ * An instance must not be shared between threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class HotspotDirectoryAndFileIdSelector implements IDirectoryAndFileIdSelector {
+
+	private final FastRandom random;
+	/** The fraction of the elements in the hot set */
+	private final double hotDataFraction;
+	/** The fraction of the selections made from the hot set */
+	private final double hotOpFraction;
+
+	/**
+	 * @param hotDataFraction The fraction of the elements in the hot set, between 0 and 1
+	 * @param hotOpFraction The fraction of the selections made from the hot set, between 0 and 1
+	 * @param random The random number generator
+	 */
+	public HotspotDirectoryAndFileIdSelector(double hotDataFraction, double hotOpFraction, FastRandom random){
+		this.hotDataFraction = hotDataFraction;
+		this.hotOpFraction = hotOpFraction;
+		this.random = random;
+	}
+
+	/**
+	 * Selects a random id from the hot set or from the cold set
+	 * 
+	 * @param items The number of elements
+	 * @return The random id
+	 */
+	private long getRandomId(long items){
+		// the hot set has at least one element, the cold set may be empty
+		long hotItems = Math.min(items, Math.max(1, (long)(items * hotDataFraction)));
+		if(hotItems == items || random.nextDouble() < hotOpFraction){
+			return 1 + random.nextLong(hotItems);
+		}
+		return hotItems + 1 + random.nextLong(items - hotItems);
+	}
+
+	/**
+	 * Selects a random id of an existing directory from the hot set or from the cold set.
+	 * 
+	 * @param items The number of directories in the namespace
+	 * @return The random directory id
+	 */
+	@Override
+	public long getRandomDirectoryId(long items){
+		return getRandomId(items);
+	}
+
+	/**
+	 * Selects a random id of an existing file from the hot set or from the cold set.
+	 * 
+	 * @param items The number of files in the namespace
+	 * @return The random file id
+	 */
+	@Override
+	public long getRandomFileId(long items){
+		return getRandomId(items);
+	}
+
+}
@@ -0,0 +1,38 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * A source of workload operations, which dispatches the operations of the workload phase to the slaves.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public interface IWorkloadGenerator {
+
+	/**
+	 * Generates and dispatches the operations of the workload. Returns when all operations have been dispatched.
+	 */
+	public void generate();
+
+	/**
+	 * Gets the number of operations of the workload. After {@link #generate()} has returned, this is the number
+	 * of dispatched operations.
+	 *
+	 * @return The number of operations
+	 */
+	public int getNumberOfOperations();
+
+	/**
+	 * Gets the number of directories in the namespace, including the ones created by the workload
+	 *
+	 * @return The highest directory id
+	 */
+	public long getNumberOfDirs();
+
+	/**
+	 * Gets the number of files in the namespace, including the ones created and deleted by the workload
+	 *
+	 * @return The highest file id
+	 */
+	public long getNumberOfFiles();
+
+}
@@ -1,14 +1,21 @@
 package edu.cmu.pdl.metadatabench.master.workload;
 
-import java.util.Map;
+import java.util.Arrays;
 import java.util.concurrent.TimeUnit;
 
-import com.google.common.cache.Cache;
-import com.google.common.cache.CacheBuilder;
-
 /**
  * Cache for accessed directory and file ids. The cache has a maximum size and the elements have an expiry time. 
  * Elements are evicted if one of the conditions is met.
+ * The cache is thread-safe.
+ *
+ * The ids are not boxed and no entry objects are allocated. The time is divided into slots of 1/8 of the expiry
+ * time and the ids added in a slot are stored in a primitive open-addressing hash set (a bucket). The buckets
+ * form a ring, which covers the expiry time plus the current slot. When a bucket falls out of the ring, all of
+ * its ids expire at once and the bucket is reused, so an id stays in the cache for at least the expiry time and
+ * at most one slot longer. If the cache exceeds its maximum size, the oldest buckets are evicted early, but never 
+ * the bucket of the current slot.
+ * To reduce contention between the threads, the ids are distributed over independently locked stripes, each
+ * with its own ring and a share of the maximum size.
  * 
  * @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheMaxSize()
  * @author emil.rakadjiev
@@ -16,34 +23,67 @@ import com.google.common.cache.CacheBuilder;
  */
 public class IdCache {
 
-	private Map<Long, Object> dirCache;
-	private Map<Long, Object> fileCache;
+	/** The number of time slots per expiry time */
+	private static final int SLOTS_PER_EXPIRY = 8;
+	/** The number of stripes per thread modifying the cache */
+	private static final int STRIPES_PER_THREAD = 4;
 	
-	/** Since the cache provided by the library is a map and we only need a set, set the value to a dummy object */
-	private static final Object DUMMY = new Object();
+	private final Stripe[] dirStripes;
+	private final Stripe[] fileStripes;
+	/** The length of a time slot in nanoseconds */
+	private final long slotNanos;
 	
 	/**
 	 * @param maxSize Maximum size of the cache
 	 * @param expireAfterMillis Expiry time of the elements in the cache, after which they get evicted
 	 */
 	public IdCache(int maxSize, long expireAfterMillis) {
-		this.dirCache = buildCache(maxSize, expireAfterMillis).asMap();
-		this.fileCache = buildCache(maxSize, expireAfterMillis).asMap();
+		this(maxSize, expireAfterMillis, 2);
 	}
 	
 	/**
-	 * Builds a cache with the supplied parameters
-	 * 
 	 * @param maxSize Maximum size of the cache
 	 * @param expireAfterMillis Expiry time of the elements in the cache, after which they get evicted
-	 * @return The cache
+	 * @param concurrencyLevel The estimated number of threads concurrently modifying the cache
 	 */
-	private Cache<Long, Object> buildCache(int maxSize, long expireAfterMillis){
-		return CacheBuilder.newBuilder()
-				.maximumSize(maxSize)
-				.expireAfterWrite(expireAfterMillis, TimeUnit.MILLISECONDS)
-				.concurrencyLevel(2)
-				.build();
+	public IdCache(int maxSize, long expireAfterMillis, int concurrencyLevel) {
+		this.slotNanos = Math.max(1, TimeUnit.MILLISECONDS.toNanos(expireAfterMillis) / SLOTS_PER_EXPIRY);
+		// a power of two, so that the stripe can be selected with a mask
+		int stripes = Integer.highestOneBit(Math.max(1, concurrencyLevel * STRIPES_PER_THREAD - 1) << 1);
+		int stripeMaxSize = Math.max(1, (maxSize + stripes - 1) / stripes);
+		this.dirStripes = new Stripe[stripes];
+		this.fileStripes = new Stripe[stripes];
+		for(int i = 0; i < stripes; i++){
+			dirStripes[i] = new Stripe(stripeMaxSize);
+			fileStripes[i] = new Stripe(stripeMaxSize);
+		}
+	}
+	
+	/**
+	 * Spreads the bits of an id, for the selection of the stripe and the position in a hash set
+	 * 
+	 * @param id The id
+	 * @return The hash of the id
+	 */
+	private static long hash(long id){
+		long h = id * 0x9E3779B97F4A7C15L;
+		return h ^ (h >>> 32);
+	}
+
+	/**
+	 * @param stripes The stripes of the directory or the file ids
+	 * @param id The id
+	 * @return The stripe of the id
+	 */
+	private static Stripe stripe(Stripe[] stripes, long id){
+		return stripes[(int)(hash(id) >>> 40) & (stripes.length - 1)];
+	}
+
+	/**
+	 * @return The current time slot
+	 */
+	private long currentSlot(){
+		return System.nanoTime() / slotNanos;
 	}
 	
 	/**
@@ -51,7 +91,7 @@ public class IdCache {
 	 * @param id The directory id to add to the cache
 	 */
 	public void addDirId(long id){
-		dirCache.put(id, DUMMY);
+		stripe(dirStripes, id).add(id, currentSlot());
 	}
 	
 	/**
@@ -59,7 +99,27 @@ public class IdCache {
 	 * @param id The file id to add to the cache
 	 */
 	public void addFileId(long id){
-		fileCache.put(id, DUMMY);
+		stripe(fileStripes, id).add(id, currentSlot());
+	}
+	
+	/**
+	 * Adds a directory id to the cache, if it is not in the cache yet. This is an atomic operation, 
+	 * so if multiple threads try to add the same id, only one of them succeeds.
+	 * @param id The directory id to add to the cache
+	 * @return True if the directory id has been added, false if it was already in the cache
+	 */
+	public boolean addDirIdIfAbsent(long id){
+		return stripe(dirStripes, id).addIfAbsent(id, currentSlot());
+	}
+	
+	/**
+	 * Adds a file id to the cache, if it is not in the cache yet. This is an atomic operation, 
+	 * so if multiple threads try to add the same id, only one of them succeeds.
+	 * @param id The file id to add to the cache
+	 * @return True if the file id has been added, false if it was already in the cache
+	 */
+	public boolean addFileIdIfAbsent(long id){
+		return stripe(fileStripes, id).addIfAbsent(id, currentSlot());
 	}
 	
 	/**
@@ -68,7 +128,7 @@ public class IdCache {
 	 * @return True if the directory id is in the cache
 	 */
 	public boolean containsDirId(long id){
-		return dirCache.containsKey(id);
+		return stripe(dirStripes, id).contains(id, currentSlot());
 	}
 	
 	/**
@@ -77,7 +137,218 @@ public class IdCache {
 	 * @return True if the file id is in the cache
 	 */
 	public boolean containsFileId(long id){
-		return fileCache.containsKey(id);
+		return stripe(fileStripes, id).contains(id, currentSlot());
+	}
+
+	/**
+	 * A part of the cache with its own ring of buckets. The methods are synchronized on the stripe.
+	 */
+	private static class Stripe {
+
+		/** The buckets, the bucket of a slot is at the position slot modulo the number of buckets */
+		private final IdSet[] buckets;
+		/** The slot of the ids in each bucket */
+		private final long[] bucketSlots;
+		private final int maxSize;
+		/** The number of ids in all buckets (an id added again in a later slot is counted twice) */
+		private int size;
+		/** The slot of the latest operation */
+		private long slot;
+
+		/**
+		 * @param maxSize The maximum number of ids in the stripe
+		 */
+		private Stripe(int maxSize){
+			this.maxSize = maxSize;
+			// the buckets of the expiry time and the current one
+			this.buckets = new IdSet[SLOTS_PER_EXPIRY + 1];
+			this.bucketSlots = new long[buckets.length];
+			for(int i = 0; i < buckets.length; i++){
+				buckets[i] = new IdSet();
+				bucketSlots[i] = Long.MIN_VALUE;
+			}
+			this.slot = Long.MIN_VALUE;
+		}
+
+		/**
+		 * Expires the buckets that have fallen out of the ring since the previous operation and prepares the
+		 * bucket of the current slot
+		 *
+		 * @param currentSlot The current slot
+		 * @return The bucket of the current slot
+		 */
+		private IdSet advance(long currentSlot){
+			if(currentSlot > slot){
+				slot = currentSlot;
+				for(int i = 0; i < buckets.length; i++){
+					if(bucketSlots[i] != Long.MIN_VALUE && slot - bucketSlots[i] >= buckets.length){
+						evict(i);
+					}
+				}
+			}
+			// System.nanoTime() may be negative
+			int current = (int)(((slot % buckets.length) + buckets.length) % buckets.length);
+			if(bucketSlots[current] != slot){
+				evict(current);
+				bucketSlots[current] = slot;
+			}
+			return buckets[current];
+		}
+
+		/**
+		 * Removes all ids of a bucket
+		 *
+		 * @param bucket The position of the bucket
+		 */
+		private void evict(int bucket){
+			size -= buckets[bucket].size();
+			buckets[bucket].clear();
+			bucketSlots[bucket] = Long.MIN_VALUE;
+		}
+
+		/**
+		 * Evicts the oldest buckets (except for the current one) while the stripe is too large
+		 */
+		private void enforceMaxSize(){
+			while(size > maxSize){
+				int oldest = -1;
+				for(int i = 0; i < buckets.length; i++){
+					if(bucketSlots[i] != Long.MIN_VALUE && bucketSlots[i] != slot && (oldest < 0 || bucketSlots[i] < bucketSlots[oldest])){
+						oldest = i;
+					}
+				}
+				if(oldest < 0){
+					return;
+				}
+				evict(oldest);
+			}
+		}
+
+		/**
+		 * @param id The id
+		 * @return True if the id is in one of the buckets
+		 */
+		private boolean containsAny(long id){
+			for(int i = 0; i < buckets.length; i++){
+				if(bucketSlots[i] != Long.MIN_VALUE && buckets[i].contains(id)){
+					return true;
+				}
+			}
+			return false;
+		}
+
+		private synchronized void add(long id, long currentSlot){
+			if(advance(currentSlot).add(id)){
+				size++;
+				enforceMaxSize();
+			}
+		}
+
+		private synchronized boolean addIfAbsent(long id, long currentSlot){
+			IdSet bucket = advance(currentSlot);
+			if(containsAny(id)){
+				return false;
+			}
+			bucket.add(id);
+			size++;
+			enforceMaxSize();
+			return true;
+		}
+
+		private synchronized boolean contains(long id, long currentSlot){
+			advance(currentSlot);
+			return containsAny(id);
+		}
+
+	}
+
+	/**
+	 * A set of ids, stored in a primitive hash table with linear probing. Not thread-safe.
+	 */
+	private static class IdSet {
+
+		private static final int INITIAL_CAPACITY = 64;
+		/** The marker of an empty position, the id 0 is stored in a separate flag */
+		private static final long EMPTY = 0;
+
+		private long[] table = new long[INITIAL_CAPACITY];
+		private int size;
+		private boolean containsEmpty;
+
+		private int size(){
+			return size;
+		}
+
+		/**
+		 * @param id The id
+		 * @return The position of the id in the table, or the empty position where it would be stored
+		 */
+		private int position(long id){
+			int mask = table.length - 1;
+			int i = (int)hash(id) & mask;
+			while(table[i] != EMPTY && table[i] != id){
+				i = (i + 1) & mask;
+			}
+			return i;
+		}
+
+		private boolean contains(long id){
+			if(id == EMPTY){
+				return containsEmpty;
+			}
+			return table[position(id)] == id;
+		}
+
+		/**
+		 * @param id The id to add
+		 * @return True if the id has been added, false if it was already in the set
+		 */
+		private boolean add(long id){
+			if(id == EMPTY){
+				if(containsEmpty){
+					return false;
+				}
+				containsEmpty = true;
+				size++;
+				return true;
+			}
+			int i = position(id);
+			if(table[i] == id){
+				return false;
+			}
+			table[i] = id;
+			size++;
+			// keep the load factor at most 1/2
+			if(2 * size > table.length){
+				rehash(table.length * 2);
+			}
+			return true;
+		}
+
+		/**
+		 * @param capacity The new capacity of the table, a power of two
+		 */
+		private void rehash(int capacity){
+			long[] old = table;
+			table = new long[capacity];
+			for(long id : old){
+				if(id != EMPTY){
+					table[position(id)] = id;
+				}
+			}
+		}
+
+		/**
+		 * Removes all ids. The capacity is kept, because the bucket is going to be filled again in a later slot.
+		 */
+		private void clear(){
+			if(size > 0){
+				Arrays.fill(table, EMPTY);
+				size = 0;
+				containsEmpty = false;
+			}
+		}
+
 	}
 
 }
@@ -0,0 +1,126 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * Generates Zipfian distributed ranks between 0 (the most popular) and the number of items (exclusive), using the 
+ * algorithm of Gray et al. ("Quickly Generating Billion-Record Synthetic Databases"), like YCSB's ZipfianGenerator.
+ * 
+ * The normalization constant of the distribution (the generalized harmonic number zeta(n, theta)) depends on the 
+ * number of items and takes O(n) to compute from scratch. When the number of items changes (e.g. because the 
+ * namespace grows during the workload), zeta is updated incrementally, by adding or removing the terms of the 
+ * new or removed items only. Therefore the distribution is always exact for the current number of items, and 
+ * following a growing namespace costs O(1) amortized per new item.
+ * 
+ * An instance must not be shared between threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class IncrementalZipfianGenerator {
+
+	private final FastRandom random;
+	/** The skew constant */
+	private final double theta;
+	private final double alpha;
+	private final double zeta2;
+	/** The probability of rank 1 relative to rank 0 */
+	private final double half;
+	/** The current number of items */
+	private long items;
+	/** zeta(items, theta) */
+	private double zetan;
+	private double eta;
+
+	/**
+	 * @param items The initial number of items
+	 * @param theta The skew constant (Zipfian constant), 0 (uniform) or larger and smaller than 1
+	 * @param random The random number generator
+	 */
+	public IncrementalZipfianGenerator(long items, double theta, FastRandom random){
+		this(items, theta, zeta(0, items, theta, 0), random);
+	}
+
+	/**
+	 * Creates a generator sharing the (expensive) initial state of another generator
+	 * 
+	 * @param other The generator whose number of items and skew constant are copied
+	 * @param random The random number generator of the new generator
+	 */
+	public IncrementalZipfianGenerator(IncrementalZipfianGenerator other, FastRandom random){
+		this(other.items, other.theta, other.zetan, random);
+	}
+
+	/**
+	 * @param items The initial number of items
+	 * @param theta The skew constant
+	 * @param zetan zeta(items, theta)
+	 * @param random The random number generator
+	 */
+	private IncrementalZipfianGenerator(long items, double theta, double zetan, FastRandom random){
+		if(!(theta >= 0 && theta < 1)){
+			throw new IllegalArgumentException("The Zipfian constant has to be at least 0 and smaller than 1, but it is " + theta);
+		}
+		this.random = random;
+		this.theta = theta;
+		this.alpha = 1.0 / (1.0 - theta);
+		this.zeta2 = zeta(0, 2, theta, 0);
+		this.half = Math.pow(0.5, theta);
+		this.items = Math.max(items, 1);
+		this.zetan = (items >= 1) ? zetan : 1;
+		updateEta();
+	}
+
+	/**
+	 * Computes zeta(to, theta) from zeta(from, theta)
+	 * 
+	 * @param from The number of items of the initial sum
+	 * @param to The number of items of the result
+	 * @param theta The skew constant
+	 * @param initialSum zeta(from, theta)
+	 * @return zeta(to, theta)
+	 */
+	private static double zeta(long from, long to, double theta, double initialSum){
+		double sum = initialSum;
+		for(long i = from; i < to; i++){
+			sum += 1 / Math.pow(i + 1, theta);
+		}
+		for(long i = from; i > to; i--){
+			sum -= 1 / Math.pow(i, theta);
+		}
+		return sum;
+	}
+
+	/**
+	 * Updates eta after a change in the number of items
+	 */
+	private void updateEta(){
+		// eta is only used for more than 2 items, for 2 items the formula would divide by 0
+		eta = (items > 2) ? (1 - Math.pow(2.0 / items, 1 - theta)) / (1 - zeta2 / zetan) : 0;
+	}
+
+	/**
+	 * Selects a random rank for the given number of items. If the number of items differs from the previous 
+	 * call, the distribution is adjusted incrementally.
+	 * 
+	 * @param items The current number of items, has to be positive
+	 * @return The random rank, between 0 (the most popular) and items (exclusive)
+	 */
+	public long nextRank(long items){
+		if(items != this.items){
+			zetan = zeta(this.items, items, theta, zetan);
+			this.items = items;
+			updateEta();
+		}
+		double u = random.nextDouble();
+		double uz = u * zetan;
+		if(uz < 1){
+			return 0;
+		}
+		if(uz < 1 + half){
+			return 1;
+		}
+		long rank = (long)(items * Math.pow(eta * u - eta + 1, alpha));
+		// guard against rounding errors at the upper end
+		return (rank < items) ? rank : items - 1;
+	}
+
+}
@@ -1,10 +1,6 @@
 package edu.cmu.pdl.metadatabench.master.workload;
 
-import java.util.ArrayList;
-import java.util.List;
 import java.util.Map;
-import java.util.Random;
-import java.util.Set;
 
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
 
@@ -12,38 +8,57 @@ import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
  * Provides functionality to select a random operation type from a set of operation types, according to a 
  * pre-defined discrete probability distribution.
  * 
+ * The selection uses an {@link AliasTable}, so it takes constant time regardless of the number of operation 
+ * types, and does not box any values.
+ * 
+ * An instance must not be shared between threads; every workload generator thread uses its own selector 
+ * (with its own random number generator).
+ * 
  * @author emil.rakadjiev
  *
  */
 public class OperationTypeSelector {
 
-	private Random randomNumberGenerator;
+	private final FastRandom randomNumberGenerator;
 	
-	/** A list of the operation types */
-	List<FileSystemOperationType> operationTypes;
-	/** A list of cumulative operation probabilities, the indices in this list correspond the ones in the operation types map */
-	List<Double> cumulativeOperationTypeProbabilities;
+	/** The operation types, the indices in this array correspond to the ones in the alias table */
+	private final FileSystemOperationType[] operationTypes;
+	/** The alias table of the operation type probabilities */
+	private final AliasTable aliasTable;
 	
 	/**
 	 * @param operationTypeProbabilities @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadOperationProbabilities()
 	 */
 	public OperationTypeSelector(Map<FileSystemOperationType,Double> operationTypeProbabilities){
-		//TODO: use custom seed?
-		randomNumberGenerator = new Random();
-		
-		Set<FileSystemOperationType> operationTypesSet = operationTypeProbabilities.keySet();
-		int numberOfOperationTypes = operationTypesSet.size();
+		this(operationTypeProbabilities, new FastRandom());
+	}
+	
+	/**
+	 * @param operationTypeProbabilities @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadOperationProbabilities()
+	 * @param seed The seed of the random number generator, for reproducible operation type sequences
+	 */
+	public OperationTypeSelector(Map<FileSystemOperationType,Double> operationTypeProbabilities, long seed){
+		this(operationTypeProbabilities, new FastRandom(seed));
+	}
+	
+	/**
+	 * @param operationTypeProbabilities @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadOperationProbabilities()
+	 * @param randomNumberGenerator The random number generator used for the selection
+	 */
+	private OperationTypeSelector(Map<FileSystemOperationType,Double> operationTypeProbabilities, FastRandom randomNumberGenerator){
+		this.randomNumberGenerator = randomNumberGenerator;
 		
-		operationTypes = new ArrayList<FileSystemOperationType>(numberOfOperationTypes);
-		cumulativeOperationTypeProbabilities = new ArrayList<Double>(numberOfOperationTypes);
-		double sumOfProbabilities = 0;
+		int numberOfOperationTypes = operationTypeProbabilities.size();
+		operationTypes = new FileSystemOperationType[numberOfOperationTypes];
+		double[] probabilities = new double[numberOfOperationTypes];
 		
-		for(FileSystemOperationType operationType : operationTypesSet){
-			operationTypes.add(operationType);
-			double operationProbability = operationTypeProbabilities.get(operationType);
-			sumOfProbabilities += operationProbability;
-			cumulativeOperationTypeProbabilities.add(sumOfProbabilities);
+		int i = 0;
+		for(Map.Entry<FileSystemOperationType,Double> entry : operationTypeProbabilities.entrySet()){
+			operationTypes[i] = entry.getKey();
+			probabilities[i] = entry.getValue();
+			i++;
 		}
+		aliasTable = new AliasTable(probabilities);
 	}
 	
 	/**
@@ -53,15 +68,7 @@ public class OperationTypeSelector {
 	 * @return The selected operation type
 	 */
 	public FileSystemOperationType getRandomOperationType(){
-		// get a random double between 0 and 1
-		double randomNumber = randomNumberGenerator.nextDouble();
-		
-		int i;
-		// find the index in the cumulative probability list, which has a related probability higher than the random number
-		for(i = 0 ; randomNumber > cumulativeOperationTypeProbabilities.get(i) ; i++);
-		
-		// use the index to get the corresponding operation type
-		return operationTypes.get(i);
+		return operationTypes[aliasTable.sample(randomNumberGenerator)];
 	}
 	
 }
@@ -0,0 +1,64 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import com.yahoo.ycsb.Utils;
+
+/**
+ * Provides functionality to select a random id of an existing directory or file using Zipfian distribution, with 
+ * the popular elements scattered across the namespace instead of being clustered at the lowest ids, like YCSB's 
+ * ScrambledZipfianGenerator.
+ * 
+ * The Zipfian rank is hashed onto the id space, so the popularity of an element is not related to the time of 
+ * its creation. Because the hash is taken modulo the current number of elements, the popular elements change 
+ * as the namespace grows.
+ * 
+ * An instance must not be shared between threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class ScrambledZipfianDirectoryAndFileIdSelector implements IDirectoryAndFileIdSelector {
+
+	/** Selects the ranks, the most popular element has the id 1 */
+	private final ZipfianDirectoryAndFileIdSelector zipfianSelector;
+
+	/**
+	 * @param zipfianSelector The Zipfian selector (with the most popular element first) used to select the ranks
+	 */
+	public ScrambledZipfianDirectoryAndFileIdSelector(ZipfianDirectoryAndFileIdSelector zipfianSelector){
+		this.zipfianSelector = zipfianSelector;
+	}
+
+	/**
+	 * Hashes a Zipfian rank onto the id space
+	 * 
+	 * @param rankId The id selected by the Zipfian selector
+	 * @param items The number of elements
+	 * @return The scrambled id
+	 */
+	private static long scramble(long rankId, long items){
+		return 1 + (Utils.FNVhash64(rankId) & Long.MAX_VALUE) % items;
+	}
+
+	/**
+	 * Selects a random id of an existing directory using scrambled Zipfian distribution.
+	 * 
+	 * @param items The number of directories in the namespace
+	 * @return The random directory id
+	 */
+	@Override
+	public long getRandomDirectoryId(long items){
+		return scramble(zipfianSelector.getRandomDirectoryId(items), items);
+	}
+
+	/**
+	 * Selects a random id of an existing file using scrambled Zipfian distribution.
+	 * 
+	 * @param items The number of files in the namespace
+	 * @return The random file id
+	 */
+	@Override
+	public long getRandomFileId(long items){
+		return scramble(zipfianSelector.getRandomFileId(items), items);
+	}
+
+}
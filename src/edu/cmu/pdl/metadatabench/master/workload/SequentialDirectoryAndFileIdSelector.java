@@ -0,0 +1,55 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * Provides functionality to select the ids of the existing directories and files sequentially, i.e. to scan the 
+ * namespace. After the highest id, the scan continues with the id 1, so it includes the elements created in the 
+ * meantime.
+ * 
+ * The scan of each selector starts at a random id, so the generator threads scan different parts of the 
+ * namespace. An instance must not be shared between threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class SequentialDirectoryAndFileIdSelector implements IDirectoryAndFileIdSelector {
+
+	/** The previously selected directory id */
+	private long dirCursor;
+	/** The previously selected file id */
+	private long fileCursor;
+
+	/**
+	 * @param numberOfDirs The number of directories in the namespace
+	 * @param numberOfFiles The number of files in the namespace
+	 * @param random The random number generator used to select the start of the scans
+	 */
+	public SequentialDirectoryAndFileIdSelector(long numberOfDirs, long numberOfFiles, FastRandom random){
+		this.dirCursor = (numberOfDirs > 0) ? random.nextLong(numberOfDirs) : 0;
+		this.fileCursor = (numberOfFiles > 0) ? random.nextLong(numberOfFiles) : 0;
+	}
+
+	/**
+	 * Selects the next id of an existing directory.
+	 * 
+	 * @param items The number of directories in the namespace
+	 * @return The next directory id
+	 */
+	@Override
+	public long getRandomDirectoryId(long items){
+		dirCursor = (dirCursor < items) ? dirCursor + 1 : 1;
+		return dirCursor;
+	}
+
+	/**
+	 * Selects the next id of an existing file.
+	 * 
+	 * @param items The number of files in the namespace
+	 * @return The next file id
+	 */
+	@Override
+	public long getRandomFileId(long items){
+		fileCursor = (fileCursor < items) ? fileCursor + 1 : 1;
+		return fileCursor;
+	}
+
+}
@@ -0,0 +1,146 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceIndex;
+
+/**
+ * Replays a workload trace recorded by the {@link TraceWriter} (see
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile()}). The trace has to be replayed on the
+ * namespace it has been recorded on, e.g. a namespace generated with the same seed or restored from a snapshot.
+ *
+ * The trace is read sequentially from memory-mapped regions of the file and the records are decoded directly
+ * from the mapped buffer. The operations are dispatched either at their original timing (relative to the start
+ * of the replay) or as fast as possible, throttled in the same way as the {@link WorkloadGenerator}. The
+ * intended start time of an operation is its slot in the original timing, or the time of its dispatch otherwise.
+ *
+ * The operations are recorded in the {@link NamespaceIndex}, if there is one (see {@link AbstractReplayer}).
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class TraceReplayer extends AbstractReplayer {
+
+	private static final FileSystemOperationType[] TYPES = FileSystemOperationType.values();
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String fileName;
+
+	private Logger log;
+
+	/**
+	 * @param dispatcher The dispatcher used to send commands to other nodes
+	 * @param fileName The name of the trace file
+	 * @param originalTiming True if the operations are dispatched at their original timing, false if as fast as possible
+	 * @param numberOfDirs The number of existing directories in the namespace
+	 * @param numberOfFiles The number of existing files in the namespace
+	 * @param index The namespace index in which the operations are recorded, or null
+	 */
+	public TraceReplayer(IDispatcher dispatcher, String fileName, boolean originalTiming, long numberOfDirs, long numberOfFiles, NamespaceIndex index){
+		super(dispatcher, originalTiming ? 1 : 0, numberOfDirs, numberOfFiles, index);
+		this.fileName = fileName;
+		this.log = LoggerFactory.getLogger(TraceReplayer.class);
+	}
+
+	/**
+	 * Replays the trace. If the trace cannot be read, the replay is stopped and the operations dispatched so far
+	 * remain the workload.
+	 */
+	@Override
+	public void generate() {
+		RandomAccessFile file = null;
+		try {
+			file = new RandomAccessFile(fileName, "r");
+			FileChannel channel = file.getChannel();
+			MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, WorkloadTrace.HEADER_SIZE);
+			if(header.getInt() != WorkloadTrace.MAGIC){
+				throw new IOException(fileName + " is not a complete workload trace");
+			}
+			int version = header.getInt();
+			if(version != WorkloadTrace.VERSION){
+				throw new IOException("Unsupported workload trace version " + version);
+			}
+			long operations = header.getLong(WorkloadTrace.NUMBER_OF_OPERATIONS_OFFSET);
+			long end = WorkloadTrace.HEADER_SIZE + header.getLong(WorkloadTrace.RECORDS_LENGTH_OFFSET);
+			if(operations > Integer.MAX_VALUE || end > channel.size()){
+				throw new IOException(fileName + " is corrupt");
+			}
+			log.info("Replaying {} operations from the workload trace {}", operations, fileName);
+			replay(channel, end, (int)operations);
+		} catch(IOException e){
+			log.error("Exception while replaying the workload trace {}, {} operations have been replayed", new Object[]{fileName, getNumberOfOperations(), e});
+		} finally {
+			if(file != null){
+				try {
+					file.close();
+				} catch(IOException e){
+					log.warn("Workload trace {} cannot be closed", fileName, e);
+				}
+			}
+		}
+		finishReplay();
+	}
+
+	/**
+	 * Decodes and dispatches the records of the trace
+	 *
+	 * @param channel The channel of the trace file
+	 * @param end The position of the end of the records
+	 * @param operations The number of recorded operations
+	 * @throws IOException If the trace cannot be read
+	 */
+	private void replay(FileChannel channel, long end, int operations) throws IOException {
+		long regionStart = WorkloadTrace.HEADER_SIZE;
+		MappedByteBuffer region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(WorkloadTrace.REGION_SIZE, end - regionStart));
+		long recordedTime = 0;
+		long firstRecordedTime = 0;
+		startReplay();
+		for(int i = 0; i < operations; i++){
+			if(region.remaining() < WorkloadTrace.MAX_RECORD_SIZE && regionStart + region.limit() < end){
+				regionStart += region.position();
+				region = channel.map(FileChannel.MapMode.READ_ONLY, regionStart, Math.min(WorkloadTrace.REGION_SIZE, end - regionStart));
+			}
+			int typeByte = region.get() & 0xFF;
+			recordedTime += WorkloadTrace.unZigZag(WorkloadTrace.getVarLong(region));
+			if(i == 0){
+				firstRecordedTime = recordedTime;
+			}
+			int typeOrdinal = typeByte & WorkloadTrace.TYPE_MASK;
+			if(typeOrdinal >= TYPES.length){
+				throw new IOException(fileName + " is corrupt, unknown operation type " + typeOrdinal);
+			}
+			FileSystemOperationType type = TYPES[typeOrdinal];
+			long targetId = WorkloadTrace.getVarLong(region);
+			SimpleOperation op;
+			switch((typeByte >>> WorkloadTrace.KIND_SHIFT) & WorkloadTrace.KIND_MASK){
+				case WorkloadTrace.KIND_CREATE:
+					long id = WorkloadTrace.getVarLong(region);
+					String name = null;
+					if((typeByte & WorkloadTrace.FLAG_NAME) != 0){
+						byte[] nameBytes = new byte[(int)WorkloadTrace.getVarLong(region)];
+						region.get(nameBytes);
+						name = new String(nameBytes, UTF8);
+					}
+					op = createOperation(type, targetId, (typeByte & WorkloadTrace.FLAG_PARENTS_PARENT) != 0, id, name);
+					break;
+				case WorkloadTrace.KIND_MOVE:
+					op = moveOperation(targetId, WorkloadTrace.getVarLong(region));
+					break;
+				default:
+					op = simpleOperation(type, targetId);
+			}
+			dispatch(op, recordedTime - firstRecordedTime);
+		}
+	}
+
+}
@@ -0,0 +1,154 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.CreateOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.MoveOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
+import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+
+/**
+ * Records the operations dispatched by the {@link WorkloadGenerator} in a trace file, which can be replayed by
+ * the {@link TraceReplayer} (see {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadTraceFile()}). The
+ * format is described in {@link WorkloadTrace}.
+ *
+ * The operations are appended to a memory-mapped region of the file. The recording is synchronized, so the
+ * operations of multiple generator threads are recorded in the order in which they are dispatched. If the trace
+ * cannot be written, the recording is stopped, but the workload is not affected.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class TraceWriter {
+
+	private static final String DIR_NAME_PREFIX = Config.getPathSeparator() + Config.getDirNamePrefix();
+	private static final String FILE_NAME_PREFIX = Config.getPathSeparator() + Config.getFileNamePrefix();
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	private final String fileName;
+	private final RandomAccessFile file;
+	private final FileChannel channel;
+	/** The currently mapped region */
+	private MappedByteBuffer region;
+	/** The position of the current region in the file */
+	private long regionStart;
+	private long numberOfOperations;
+	/** The intended start time of the previous operation */
+	private long previousTime;
+	/** True if the trace cannot be written, the operations are not recorded anymore */
+	private boolean failed;
+
+	private Logger log;
+
+	/**
+	 * @param fileName The name of the trace file, an existing file is overwritten
+	 * @throws IOException If the trace file cannot be created
+	 */
+	public TraceWriter(String fileName) throws IOException {
+		this.fileName = fileName;
+		this.file = new RandomAccessFile(fileName, "rw");
+		this.log = LoggerFactory.getLogger(TraceWriter.class);
+		file.setLength(0);
+		this.channel = file.getChannel();
+		this.regionStart = 0;
+		this.region = channel.map(FileChannel.MapMode.READ_WRITE, 0, WorkloadTrace.REGION_SIZE);
+		// the header is written when the trace is closed
+		region.position(WorkloadTrace.HEADER_SIZE);
+	}
+
+	/**
+	 * Appends an operation to the trace
+	 *
+	 * @param op The dispatched operation
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
+	 */
+	public synchronized void record(SimpleOperation op, long intendedStartTime){
+		if(failed){
+			return;
+		}
+		try {
+			if(region.remaining() < WorkloadTrace.MAX_RECORD_SIZE){
+				regionStart += region.position();
+				region = channel.map(FileChannel.MapMode.READ_WRITE, regionStart, WorkloadTrace.REGION_SIZE);
+			}
+			FileSystemOperationType type = op.getType();
+			int typeByte = type.ordinal();
+			byte[] name = null;
+			if(op instanceof CreateOperation){
+				CreateOperation createOp = (CreateOperation)op;
+				typeByte |= WorkloadTrace.KIND_CREATE << WorkloadTrace.KIND_SHIFT;
+				if(createOp.getParentsParent()){
+					typeByte |= WorkloadTrace.FLAG_PARENTS_PARENT;
+				}
+				String prefix = (type == FileSystemOperationType.MKDIRS) ? DIR_NAME_PREFIX : FILE_NAME_PREFIX;
+				if(!createOp.getName().equals(prefix + createOp.getId())){
+					name = createOp.getName().getBytes(UTF8);
+					if(name.length > WorkloadTrace.MAX_NAME_LENGTH){
+						throw new IOException("The name " + createOp.getName() + " is too long to be recorded");
+					}
+					typeByte |= WorkloadTrace.FLAG_NAME;
+				}
+			} else if(op instanceof MoveOperation){
+				typeByte |= WorkloadTrace.KIND_MOVE << WorkloadTrace.KIND_SHIFT;
+			}
+			region.put((byte)typeByte);
+			WorkloadTrace.putVarLong(region, WorkloadTrace.zigZag(intendedStartTime - previousTime));
+			previousTime = intendedStartTime;
+			WorkloadTrace.putVarLong(region, op.getTargetId());
+			if(op instanceof CreateOperation){
+				WorkloadTrace.putVarLong(region, ((CreateOperation)op).getId());
+				if(name != null){
+					WorkloadTrace.putVarLong(region, name.length);
+					region.put(name);
+				}
+			} else if(op instanceof MoveOperation){
+				WorkloadTrace.putVarLong(region, ((MoveOperation)op).getParentIdNew());
+			}
+			numberOfOperations++;
+		} catch(IOException e){
+			log.error("Exception while recording the workload trace {}, the recording is stopped", fileName, e);
+			failed = true;
+		}
+	}
+
+	/**
+	 * Completes the trace by writing its header and truncates the file to the length of the recorded operations
+	 */
+	public synchronized void close(){
+		try {
+			long length = regionStart + region.position();
+			region.force();
+			if(!failed){
+				ByteBuffer header = ByteBuffer.allocate(WorkloadTrace.HEADER_SIZE);
+				header.putInt(WorkloadTrace.MAGIC);
+				header.putInt(WorkloadTrace.VERSION);
+				header.putLong(numberOfOperations);
+				header.putLong(length - WorkloadTrace.HEADER_SIZE);
+				header.flip();
+				while(header.hasRemaining()){
+					channel.write(header, header.position());
+				}
+			}
+			channel.truncate(length);
+			log.info("{} operations recorded in the workload trace {}", numberOfOperations, fileName);
+		} catch(IOException e){
+			log.error("Exception while closing the workload trace {}", fileName, e);
+		} finally {
+			try {
+				file.close();
+			} catch(IOException e){
+				log.warn("Workload trace {} cannot be closed", fileName, e);
+			}
+		}
+	}
+
+}
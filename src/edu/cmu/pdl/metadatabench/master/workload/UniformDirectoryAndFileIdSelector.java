@@ -0,0 +1,44 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+/**
+ * Provides functionality to select a random id of an existing directory or file using uniform distribution.
+ * 
+ * An instance must not be shared between threads.
+ * 
+ * @author emil.rakadjiev
+ *
+ */
+public class UniformDirectoryAndFileIdSelector implements IDirectoryAndFileIdSelector {
+
+	private final FastRandom random;
+
+	/**
+	 * @param random The random number generator
+	 */
+	public UniformDirectoryAndFileIdSelector(FastRandom random){
+		this.random = random;
+	}
+
+	/**
+	 * Selects a random id of an existing directory using uniform distribution.
+	 * 
+	 * @param items The number of directories in the namespace
+	 * @return The random directory id
+	 */
+	@Override
+	public long getRandomDirectoryId(long items){
+		return 1 + random.nextLong(items);
+	}
+
+	/**
+	 * Selects a random id of an existing file using uniform distribution.
+	 * 
+	 * @param items The number of files in the namespace
+	 * @return The random file id
+	 */
+	@Override
+	public long getRandomFileId(long items){
+		return 1 + random.nextLong(items);
+	}
+
+}
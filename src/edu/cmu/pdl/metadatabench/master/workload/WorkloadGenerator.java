@@ -1,19 +1,24 @@
 package edu.cmu.pdl.metadatabench.master.workload;
 
-import java.util.Iterator;
-import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.Set;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
+import edu.cmu.pdl.metadatabench.cluster.ICluster;
 import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.CreateOperation;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.MoveOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.PathOperation;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
 import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.master.namespace.NamespaceIndex;
+import edu.cmu.pdl.metadatabench.master.progress.Pacer;
 import edu.cmu.pdl.metadatabench.master.progress.Throttler;
 
 /**
@@ -31,16 +36,53 @@ import edu.cmu.pdl.metadatabench.master.progress.Throttler;
  * The deleted elements are tracked as well. Their ids cannot be be used, except when reusing them for newly created 
  * elements.
  * 
+ * The workload can be generated by multiple threads in parallel (see 
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadGeneratorThreads()}). Each thread generates an equal 
+ * share of the operations and has its own operation type and id selectors (and thus random number generators), 
+ * so the threads do not contend on them. The new ids are allocated from shared atomic counters and the sets 
+ * of deleted and accessed ids are shared, thread-safe data structures. An id that is selected by a thread is 
+ * atomically claimed in the accessed element cache, so that two threads never access the same element at 
+ * the same time.
+ * 
+ * By default, the operations are generated as fast as possible and the generation is throttled if the slaves 
+ * fall behind (closed-loop). If a target throughput is configured, the operations are released by a {@link Pacer} 
+ * at the given rate instead (open-loop), see {@link edu.cmu.pdl.metadatabench.common.Config#getWorkloadTargetThroughput()}.
+ * Every operation carries its intended start time (in cluster time), which is the time of its slot in open-loop 
+ * mode and the time of its generation in closed-loop mode. The slaves use it to measure response times.
+ * 
+ * If the master keeps a {@link NamespaceIndex} (to resolve the paths or to write a snapshot of the namespace), every 
+ * generated operation is recorded in it. If the master resolves the paths (see 
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths()}), the read operations are dispatched 
+ * with the resolved path of their target.
+ * 
+ * The dispatched operations can be recorded in a trace (see {@link #setTraceWriter(TraceWriter)}), which can be 
+ * replayed by the {@link TraceReplayer}.
+ * 
  * @author emil.rakadjiev
  *
  */
-public class WorkloadGenerator {
+public class WorkloadGenerator implements IWorkloadGenerator {
 
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheMaxSize() */
 	private static final int ACCESSED_ELEMENT_CACHE_MAX_SIZE = Config.getWorkloadAccessedElementCacheMaxSize();
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadAccessedElementCacheTTL() */
 	private static final long ACCESSED_ELEMENT_CACHE_TTL = Config.getWorkloadAccessedElementCacheTTL();
 	
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadGeneratorThreads() */
+	private static final int GENERATOR_THREADS = Config.getWorkloadGeneratorThreads();
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadSeed() */
+	private static final long SEED = Config.getWorkloadSeed();
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getNamespaceResolvePaths() */
+	private static final boolean RESOLVE_PATHS = Config.getNamespaceResolvePaths();
+	/** Used to derive well-distributed seeds for the generator threads from the configured seed */
+	private static final long SEED_INCREMENT = 0x9E3779B97F4A7C15L;
+	/** The number of the oldest deleted file ids that are considered for reuse when a file is created */
+	private static final int REUSE_CANDIDATES = 16;
+	/** The number of times an id is drawn, before the search skips to the next eligible id */
+	private static final int REDRAWS = 16;
+	/** The time to wait if all ids have been accessed recently, a fraction of the expiry time of the accessed element cache */
+	private static final long EXPIRY_WAIT_MILLIS = Math.max(1, ACCESSED_ELEMENT_CACHE_TTL / 10);
+	
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getPathSeparator() */
 	protected static char PATH_SEPARATOR = Config.getPathSeparator();
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getDirNamePrefix() */
@@ -53,13 +95,25 @@ public class WorkloadGenerator {
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getWorkloadOperationProbabilities() */
 	private static final Map<FileSystemOperationType,Double> OPERATION_PROBABILITIES = Config.getWorkloadOperationProbabilities();
 	
-	/** The number of existing directories in the namespace */
-	private long numberOfDirs;
-	/** The number of existing files in the namespace */
-	private long numberOfFiles;
+	/** The number of existing directories in the namespace (also the highest allocated directory id) */
+	private AtomicLong numberOfDirs;
+	/** The number of existing files in the namespace (also the highest allocated file id) */
+	private AtomicLong numberOfFiles;
+	/** The number of operations generated so far by all generator threads (used for throttling) */
+	private AtomicInteger generatedOperations;
+	/** Releases the operations at the target throughput in open-loop mode, null in closed-loop mode */
+	private Pacer pacer;
+	/** The cluster time when the pacer was started, used to convert the intended start times to cluster time */
+	private long pacerStartClusterTime;
+	/** Provides the cluster time for the intended start times of the operations */
+	private ICluster cluster;
 	private IDispatcher dispatcher;
-	private OperationTypeSelector operationTypeSelector;
-	private ZipfianDirectoryAndFileIdSelector randomSelector;
+	/** The master-side namespace index, null if the namespace is not recorded by the master */
+	private NamespaceIndex index;
+	/** Records the dispatched operations, null if no trace is recorded */
+	private TraceWriter traceWriter;
+	/** The generator threads, each generating a part of the operations */
+	private GeneratorThread[] generatorThreads;
 	
 	/** 
 	 * True if no operations are present in the workload that modify files. In that case, 
@@ -72,8 +126,8 @@ public class WorkloadGenerator {
 	 */
 	private boolean dirsReadOnlyWorkload;
 
-	/** Set of ids of deleted files. These ids can be reused for newly created files. */
-	private Set<Long> deletedFileIds;
+	/** Set of ids of deleted files, with a free list in the order of their deletion. These ids can be reused for newly created files. */
+	private DeletedFileIdSet deletedFileIds;
 	/** 
 	 * Caches the accessed elements' ids for a given time, in order to prevent further access to them that 
 	 * could cause conflicts.
@@ -90,47 +144,80 @@ public class WorkloadGenerator {
 	 * @param numberOfOperations The number of workload operations to be generated
 	 * @param numberOfDirs The number of existing directories in the namespace
 	 * @param numberOfFiles The number of existing files in the namespace
+	 * @param index The namespace index in which the operations are recorded, or null
 	 */
-	public WorkloadGenerator(IDispatcher dispatcher, int numberOfOperations, long numberOfDirs, long numberOfFiles){
+	public WorkloadGenerator(IDispatcher dispatcher, int numberOfOperations, long numberOfDirs, long numberOfFiles, NamespaceIndex index){
 		this.numberOfOperations = numberOfOperations;
-		this.numberOfDirs = numberOfDirs;
-		this.numberOfFiles = numberOfFiles;
+		this.numberOfDirs = new AtomicLong(numberOfDirs);
+		this.numberOfFiles = new AtomicLong(numberOfFiles);
+		this.generatedOperations = new AtomicInteger();
+		this.pacer = Pacer.fromConfig();
+		this.cluster = HazelcastCluster.getInstance();
 		this.dispatcher = dispatcher;
-		this.operationTypeSelector = new OperationTypeSelector(OPERATION_PROBABILITIES);
-		this.randomSelector = new ZipfianDirectoryAndFileIdSelector(numberOfDirs, numberOfFiles);
+		this.index = index;
+		
+		long seed = (SEED != 0) ? SEED : new Random().nextLong();
+		this.generatorThreads = new GeneratorThread[GENERATOR_THREADS];
+		DirectoryAndFileIdSelectorFactory selectorFactory = new DirectoryAndFileIdSelectorFactory(numberOfDirs, numberOfFiles);
+		for(int i = 0; i < GENERATOR_THREADS; i++){
+			// distribute the operations evenly, the first threads get the remainder
+			int threadOperations = numberOfOperations / GENERATOR_THREADS + ((i < numberOfOperations % GENERATOR_THREADS) ? 1 : 0);
+			OperationTypeSelector operationTypeSelector = new OperationTypeSelector(OPERATION_PROBABILITIES, seed + i * SEED_INCREMENT);
+			IDirectoryAndFileIdSelector randomSelector = selectorFactory.create(new FastRandom(~(seed + i * SEED_INCREMENT)));
+			generatorThreads[i] = new GeneratorThread(threadOperations, operationTypeSelector, randomSelector);
+		}
 		
 		filesReadOnlyWorkload = isFilesReadOnlyWorkload();
 		dirsReadOnlyWorkload = isDirsReadOnlyWorkload();
-		int deleteOps = getNumberOfOperations(FileSystemOperationType.DELETE_FILE);
-		int createOps = getNumberOfOperations(FileSystemOperationType.CREATE);
 		/*
-		 * The set of deleted file ids is a linked hash set. This data structure offers fast, constant-time 
-		 * performance for add and contains operations (like a hash set), which is important during operation 
-		 * generation, because deleted ids have to be saved and selected ids have to be checked, whether they 
-		 * have been deleted previously. Furthermore, the linked hash set provides a generally faster iteration 
-		 * speed than a hash set and FIFO iteration order, which is useful when selecting ids to reuse. 
-		 * The older ids are selected first and they are less likely to be still in the accessed element cache. 
-		 *
-		 * If there are more delete operations than create operations in the workload, initialize the hash set 
-		 * with larger capacity to avoid too many rehashings when the capacity is automatically increased.
+		 * The deleted file ids are checked for every selected file id, so they are kept in a bitmap, which 
+		 * offers lock-free, constant-time add and contains operations without boxing the ids. The deleted ids 
+		 * are additionally kept in a primitive FIFO free list, which is useful when selecting ids to reuse. The 
+		 * older ids are selected first and they are less likely to be still in the accessed element cache. 
 		 */
-		if(deleteOps > createOps){
-			/*
-			 * The initial capacity is chosen to be 1/5th (random choice) of the delete operations, because 
-			 * starting off with a too large capacity may negatively affect performance. Furthermore, create 
-			 * operations remove elements from the set, so that capacity may never be reached.
-			 * 0.75 is the optimal load factor.
-			 *   
-			 */
-			this.deletedFileIds = new LinkedHashSet<Long>((int)(deleteOps / (5 * 0.75)));
-		} else {
-			this.deletedFileIds = new LinkedHashSet<Long>();
-		}
-		this.accessedElementIdCache = new IdCache(ACCESSED_ELEMENT_CACHE_MAX_SIZE, ACCESSED_ELEMENT_CACHE_TTL);
+		this.deletedFileIds = new DeletedFileIdSet(numberOfFiles + getNumberOfOperations(FileSystemOperationType.CREATE));
+		this.accessedElementIdCache = new IdCache(ACCESSED_ELEMENT_CACHE_MAX_SIZE, ACCESSED_ELEMENT_CACHE_TTL, Math.max(2, GENERATOR_THREADS));
 		
 		log = LoggerFactory.getLogger(WorkloadGenerator.class);
 	}
 	
+	/**
+	 * Marks files of the existing namespace as deleted, e.g. the files deleted by the workload of a previous run. 
+	 * Has to be called before the workload is generated.
+	 * 
+	 * @param ids The ids of the deleted files
+	 */
+	public void addDeletedFileIds(long[] ids){
+		for(long id : ids){
+			deletedFileIds.add(id);
+		}
+	}
+	
+	/**
+	 * Sets the trace writer which records the dispatched operations. Has to be called before the workload is 
+	 * generated, the trace is closed when the generation is complete.
+	 * 
+	 * @param traceWriter The trace writer
+	 */
+	public void setTraceWriter(TraceWriter traceWriter){
+		this.traceWriter = traceWriter;
+	}
+	
+	@Override
+	public int getNumberOfOperations(){
+		return numberOfOperations;
+	}
+	
+	@Override
+	public long getNumberOfDirs(){
+		return numberOfDirs.get();
+	}
+	
+	@Override
+	public long getNumberOfFiles(){
+		return numberOfFiles.get();
+	}
+	
 	/**
 	 * Gets the approximate number of operations of a given type that will be generated in the workload
 	 * 
@@ -185,227 +272,475 @@ public class WorkloadGenerator {
 	 * In each step, an operation type is randomly selected according to a user-specified probability distribution. 
 	 * It chooses the needed parameters for the respective operation, for example the parent directory id, 
 	 * the new id, the name, etc, and dispatches the operation to a slave.
+	 * If multiple generator threads are configured, the operations are generated in parallel and the method 
+	 * returns when all threads have finished.
 	 */
+	@Override
 	public void generate(){
-		int create = 0;
-		int mkdir = 0;
-		int delete = 0;
-		int lsfile = 0;
-		int lsdir = 0;
-		int open = 0;
-		int rename = 0;
-		int move = 0;
-		for(int i = 1; i <= numberOfOperations; i++){
-			FileSystemOperationType operation = operationTypeSelector.getRandomOperationType();
-			switch(operation){
-				case CREATE:
-					create++;
-					create();
-					break;
-				case MKDIRS:
-					mkdir++;
-					mkdir();
-					break;
-				case DELETE_FILE:
-					delete++;
-					deleteFile();
-					break;
-				case LIST_STATUS_FILE:
-					lsfile++;
-					listStatusFile();
-					break;
-				case LIST_STATUS_DIR:
-					lsdir++;
-					listStatusDir();
-					break;
-				case OPEN_FILE:
-					open++;
-					openFile();
-					break;
-				case RENAME_FILE:
-					rename++;
-					renameFile();
-					break;
-				case MOVE_FILE:
-					move++;
-					moveFile();
-					break;
-				default:
-					log.warn("Internal error: Invalid operation type generated");
+		if(pacer != null){
+			pacer.start();
+			pacerStartClusterTime = cluster.getClusterTime();
+		}
+		if(generatorThreads.length == 1){
+			generatorThreads[0].run();
+		} else {
+			Thread[] threads = new Thread[generatorThreads.length];
+			for(int i = 0; i < threads.length; i++){
+				threads[i] = new Thread(generatorThreads[i], "workload-generator-" + i);
+				threads[i].start();
+			}
+			for(Thread thread : threads){
+				try {
+					thread.join();
+				} catch (InterruptedException e) {
+					log.warn("Thread was interrupted while waiting for the workload generator threads", e);
+					Thread.currentThread().interrupt();
+					return;
+				}
+			}
+		}
+		if(traceWriter != null){
+			traceWriter.close();
+		}
+		int[] operationCounts = new int[FileSystemOperationType.values().length];
+		for(GeneratorThread generatorThread : generatorThreads){
+			for(int i = 0; i < operationCounts.length; i++){
+				operationCounts[i] += generatorThread.operationCounts[i];
 			}
-			Throttler.throttle(i);
 		}
 		StringBuilder sb = new StringBuilder();
 		sb.append("Number of each operation type in generated workload:");
 		sb.append("\n");
 		sb.append("create: ");
-		sb.append(create);
+		sb.append(operationCounts[FileSystemOperationType.CREATE.ordinal()]);
 		sb.append("\n");
 		sb.append("mkdir: ");
-		sb.append(mkdir);
+		sb.append(operationCounts[FileSystemOperationType.MKDIRS.ordinal()]);
 		sb.append("\n");
 		sb.append("delete: ");
-		sb.append(delete);
+		sb.append(operationCounts[FileSystemOperationType.DELETE_FILE.ordinal()]);
 		sb.append("\n");
 		sb.append("lsfile: ");
-		sb.append(lsfile);
+		sb.append(operationCounts[FileSystemOperationType.LIST_STATUS_FILE.ordinal()]);
 		sb.append("\n");
 		sb.append("lsdir: ");
-		sb.append(lsdir);
+		sb.append(operationCounts[FileSystemOperationType.LIST_STATUS_DIR.ordinal()]);
 		sb.append("\n");
 		sb.append("open: ");
-		sb.append(open);
+		sb.append(operationCounts[FileSystemOperationType.OPEN_FILE.ordinal()]);
 		sb.append("\n");
 		sb.append("rename: ");
-		sb.append(rename);
+		sb.append(operationCounts[FileSystemOperationType.RENAME_FILE.ordinal()]);
 		sb.append("\n");
 		sb.append("move: ");
-		sb.append(move);
+		sb.append(operationCounts[FileSystemOperationType.MOVE_FILE.ordinal()]);
 		log.debug(sb.toString());
 	}
 	
 	/**
-	 * Gets an id for a new file. First it tries to reuse an id of a deleted file (that is not in the 
-	 * accessed element cache anymore). If that fails, it simply takes the next highest sequence number 
+	 * Generates a part of the workload in its own thread, using its own operation type and id selectors.
+	 */
+	private class GeneratorThread implements Runnable {
+		
+		/** The number of operations to generate by this thread */
+		private final int numberOfOperations;
+		private final OperationTypeSelector operationTypeSelector;
+		private final IDirectoryAndFileIdSelector randomSelector;
+		/** The number of generated operations of each type, indexed by the ordinal of the operation type */
+		private final int[] operationCounts;
+		
+		/**
+		 * @param numberOfOperations The number of operations to generate by this thread
+		 * @param operationTypeSelector The operation type selector used by this thread
+		 * @param randomSelector The id selector used by this thread
+		 */
+		private GeneratorThread(int numberOfOperations, OperationTypeSelector operationTypeSelector, IDirectoryAndFileIdSelector randomSelector){
+			this.numberOfOperations = numberOfOperations;
+			this.operationTypeSelector = operationTypeSelector;
+			this.randomSelector = randomSelector;
+			this.operationCounts = new int[FileSystemOperationType.values().length];
+		}
+		
+		@Override
+		public void run() {
+			for(int i = 1; i <= numberOfOperations; i++){
+				long intendedStartTime;
+				if(pacer != null){
+					intendedStartTime = pacerStartClusterTime + (pacer.acquire() - pacer.getStartTime()) / 1000000;
+				} else {
+					intendedStartTime = cluster.getClusterTime();
+				}
+				FileSystemOperationType operation = operationTypeSelector.getRandomOperationType();
+				operationCounts[operation.ordinal()]++;
+				switch(operation){
+					case CREATE:
+						create(randomSelector, intendedStartTime);
+						break;
+					case MKDIRS:
+						mkdir(randomSelector, intendedStartTime);
+						break;
+					case DELETE_FILE:
+						deleteFile(randomSelector, intendedStartTime);
+						break;
+					case LIST_STATUS_FILE:
+						listStatusFile(randomSelector, intendedStartTime);
+						break;
+					case LIST_STATUS_DIR:
+						listStatusDir(randomSelector, intendedStartTime);
+						break;
+					case OPEN_FILE:
+						openFile(randomSelector, intendedStartTime);
+						break;
+					case RENAME_FILE:
+						renameFile(randomSelector, intendedStartTime);
+						break;
+					case MOVE_FILE:
+						moveFile(randomSelector, intendedStartTime);
+						break;
+					default:
+						log.warn("Internal error: Invalid operation type generated");
+				}
+				if(pacer == null){
+					Throttler.throttle(generatedOperations.incrementAndGet());
+				}
+			}
+		}
+		
+	}
+	
+	/**
+	 * Gets an id for a new file. First it tries to reuse one of the oldest ids of deleted files (that is not 
+	 * in the accessed element cache anymore). If that fails, it simply takes the next highest sequence number 
 	 * that has not been assigned yet.
+	 * A reused id is atomically removed from the deleted ids, so it cannot be reused by another thread.
+	 * In both cases the id is claimed in the accessed element cache before it can be selected by another thread.
 	 *  
 	 * @return The id for the new file
 	 */
 	private long getNewFileId(){
-		if(!deletedFileIds.isEmpty()){
-			Iterator<Long> iterator = deletedFileIds.iterator();
-			Long id = iterator.next();
-			while(iterator.hasNext() && accessedElementIdCache.containsFileId(id)){
-				id = iterator.next();
-			}
+		long id = deletedFileIds.pollReusable(accessedElementIdCache, REUSE_CANDIDATES);
+		if(id != 0){
 			return id;
-		} else {
-			return ++numberOfFiles;
+		}
+		return allocateNewId(numberOfFiles, false);
+	}
+	
+	/**
+	 * Allocates the next highest sequence number of the directories or files. The id is claimed in the accessed 
+	 * element cache before the counter is increased, so other generator threads cannot select the new element 
+	 * before its creation has been dispatched. Only one thread can claim the id following the current counter, 
+	 * so the thread that has claimed it increases the counter, unless the id has been evicted from the cache 
+	 * in the meantime.
+	 * 
+	 * @param counter The number of directories or files
+	 * @param dir True if the id of a directory is allocated, false if the id of a file is allocated
+	 * @return The new id
+	 */
+	private long allocateNewId(AtomicLong counter, boolean dir){
+		while(true){
+			long current = counter.get();
+			long id = current + 1;
+			boolean claimed = dir ? claimDirId(id) : claimFileId(id);
+			if(claimed && counter.compareAndSet(current, id)){
+				return id;
+			}
 		}
 	}
 	
 	/**
-	 * Selects the id of a random file that has not been deleted and has not been accessed recently
+	 * Selects the id of a random file that has not been deleted and has not been accessed recently. 
+	 * The id is claimed in the accessed element cache, so that it is not selected by other threads.
 	 * 
+	 * If the drawn file is not eligible, the id is drawn again a few times (which keeps the distribution exact). 
+	 * Under a skewed distribution, the most popular files are often exactly the recently accessed ones, so the 
+	 * draws would keep hitting them. Then the search skips from the last drawn id to the next eligible file, 
+	 * skipping the deleted files in runs (see {@link DeletedFileIdSet#nextNotDeleted(long, long)}). Thus at most 
+	 * one pass over the ids is made, which only has to step over the ids in the accessed element cache, so its 
+	 * length is bounded by the size of the cache. If no file is eligible, because all existing files have been 
+	 * accessed recently, the thread waits for the oldest entries of the cache to expire and then searches again.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
 	 * @return The id of a random, existing file
 	 */
-	private long getRandomFileId(){
-		long id = randomSelector.getRandomFileId(numberOfFiles);
-		while(deletedFileIds.contains(id) || accessedElementIdCache.containsFileId(id)){
-			if(deletedFileIds.size() >= numberOfFiles){
+	private long getRandomFileId(IDirectoryAndFileIdSelector randomSelector){
+		while(true){
+			long files = numberOfFiles.get();
+			if(deletedFileIds.size() >= files){
 				log.error("Error: All files have been deleted while executing the workload.");
 				System.exit(0);
 			}
-			id = randomSelector.getRandomFileId(numberOfFiles);
+			long id = 0;
+			for(int draw = 0; draw < REDRAWS; draw++){
+				id = randomSelector.getRandomFileId(files);
+				if(!deletedFileIds.contains(id) && claimFileId(id)){
+					return id;
+				}
+			}
+			// skip to the next eligible file, wrapping around to the first file
+			long remaining = files;
+			while(remaining > 0){
+				id = wrap(id + 1, files);
+				long candidate = deletedFileIds.nextNotDeleted(id, files);
+				if(candidate == 0){
+					remaining -= files - id + 1;
+					id = files;
+					continue;
+				}
+				remaining -= candidate - id + 1;
+				id = candidate;
+				if(claimFileId(candidate)){
+					return candidate;
+				}
+			}
+			awaitExpiry("files", files - deletedFileIds.size());
 		}
-		return id;
+	}
+	
+	/**
+	 * Maps an id that may be beyond the highest id back into the id range
+	 * 
+	 * @param id The id, positive
+	 * @param items The number of elements (the highest id)
+	 * @return The id in the range from 1 to the number of elements
+	 */
+	private static long wrap(long id, long items){
+		return (id - 1) % items + 1;
 	}
 	
 	/**
 	 * Gets an id for a new directory. Because currently directories are not deleted, simply the next highest 
-	 * sequence number is returned.
+	 * sequence number is returned. It is claimed in the accessed element cache before it can be selected by 
+	 * another thread.
 	 * 
 	 * @return The id for the new directory
 	 */
 	private long getNewDirId(){
-		return ++numberOfDirs;
+		return allocateNewId(numberOfDirs, true);
 	}
 	
 	/**
-	 * Selects the id of a random directory that has not been accessed recently
+	 * Selects the id of a random directory that has not been accessed recently. 
+	 * The id is claimed in the accessed element cache, so that it is not selected by other threads.
+	 * If the drawn directory has been accessed recently, it is drawn again a few times, then the search skips to 
+	 * the next eligible directory (see {@link #getRandomFileId(IDirectoryAndFileIdSelector)}).
 	 * 
+	 * @param randomSelector The id selector of the calling generator thread
 	 * @return The id of a random directory
 	 */
-	private long getRandomDirId(){
-		long id = randomSelector.getRandomDirectoryId(numberOfDirs);
-		while(accessedElementIdCache.containsDirId(id)){
-			id = randomSelector.getRandomDirectoryId(numberOfDirs);
+	private long getRandomDirId(IDirectoryAndFileIdSelector randomSelector){
+		while(true){
+			long dirs = numberOfDirs.get();
+			if(dirs < 1){
+				log.error("Error: No directories exist while executing the workload.");
+				System.exit(0);
+			}
+			long id = 0;
+			for(int draw = 0; draw < REDRAWS; draw++){
+				id = randomSelector.getRandomDirectoryId(dirs);
+				if(claimDirId(id)){
+					return id;
+				}
+			}
+			// skip to the next eligible directory, wrapping around to the first directory
+			for(long remaining = dirs; remaining > 0; remaining--){
+				id = wrap(id + 1, dirs);
+				if(claimDirId(id)){
+					return id;
+				}
+			}
+			awaitExpiry("directories", dirs);
+		}
+	}
+	
+	/**
+	 * Waits for the oldest entries of the accessed element cache to expire, because all existing directories 
+	 * or files have been accessed recently, e.g. if the namespace is small compared to the cache or the number 
+	 * of generator threads.
+	 * 
+	 * @param elements The kind of the elements (directories or files)
+	 * @param count The number of existing elements
+	 */
+	private void awaitExpiry(String elements, long count){
+		log.warn("All {} {} have been accessed recently, waiting {} ms for the accessed element cache to expire", new Object[]{count, elements, EXPIRY_WAIT_MILLIS});
+		try {
+			Thread.sleep(EXPIRY_WAIT_MILLIS);
+		} catch (InterruptedException e) {
+			log.warn("Thread interrupted while waiting for the accessed element cache to expire", e);
 		}
-		return id;
 	}
 	
 	/**
 	 * Constructs and dispatches a create operation. Selects a parent directory id, an id for the new file and 
 	 * creates its name.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void create() {
-		long parentId = randomSelector.getRandomDirectoryId(numberOfDirs);
+	private void create(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long parentId = randomSelector.getRandomDirectoryId(numberOfDirs.get());
 		long id = getNewFileId();
 		String name = FILE_NAME_PREFIX + id;
 		SimpleOperation op = new CreateOperation(FileSystemOperationType.CREATE, parentId, id, name);
-		dispatcher.dispatch(op);
-		fileAccessed(id);
+		if(index != null){
+			index.addFile(id, parentId);
+		}
+		dispatch(op, intendedStartTime);
 	}
 	
 	/**
 	 * Constructs and dispatches a mkdir operation. Selects a parent directory id, an id for the new directory and 
 	 * creates its name.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void mkdir() {
-		long parentId = randomSelector.getRandomDirectoryId(numberOfDirs);
+	private void mkdir(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long parentId = randomSelector.getRandomDirectoryId(numberOfDirs.get());
 		long id = getNewDirId();
 		String name = DIR_NAME_PREFIX + id;
 		SimpleOperation op = new CreateOperation(FileSystemOperationType.MKDIRS, parentId, id, name);
-		dispatcher.dispatch(op);
-		dirAccessed(id);
+		if(index != null){
+			index.addDir(id, parentId, false);
+		}
+		dispatch(op, intendedStartTime);
 	}
 
 	/**
 	 * Constructs and dispatches a delete operation. Selects a random file id.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void deleteFile() {
-		long id = getRandomFileId();
-		dispatcher.dispatch(new SimpleOperation(FileSystemOperationType.DELETE_FILE, id));
+	private void deleteFile(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomFileId(randomSelector);
+		dispatch(new SimpleOperation(FileSystemOperationType.DELETE_FILE, id), intendedStartTime);
+		if(index != null){
+			index.removeFile(id);
+		}
 		deletedFileIds.add(id);
 		fileAccessed(id);
 	}
 
 	/**
 	 * Constructs and dispatches an ls file operation. Selects a random file id. 
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void listStatusFile() {
-		long id = getRandomFileId();
-		dispatcher.dispatch(new SimpleOperation(FileSystemOperationType.LIST_STATUS_FILE, id));
+	private void listStatusFile(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomFileId(randomSelector);
+		dispatch(createReadOperation(FileSystemOperationType.LIST_STATUS_FILE, id, false), intendedStartTime);
 		fileAccessed(id);
 	}
 	
 	/**
 	 * Constructs and dispatches an ls dir operation. Selects a random directory.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void listStatusDir() {
-		long id = getRandomDirId();
-		dispatcher.dispatch(new SimpleOperation(FileSystemOperationType.LIST_STATUS_DIR, id));
+	private void listStatusDir(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomDirId(randomSelector);
+		dispatch(createReadOperation(FileSystemOperationType.LIST_STATUS_DIR, id, true), intendedStartTime);
 		dirAccessed(id);
 	}
 
 	/**
 	 * Constructs and dispatches an open file operation. Selects a random file.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void openFile() {
-		long id = getRandomFileId();
-		dispatcher.dispatch(new SimpleOperation(FileSystemOperationType.OPEN_FILE, id));
+	private void openFile(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomFileId(randomSelector);
+		dispatch(createReadOperation(FileSystemOperationType.OPEN_FILE, id, false), intendedStartTime);
 		fileAccessed(id);
 	}
 
 	/**
 	 * Constructs and dispatches a rename operation. Selects a random file.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void renameFile() {
-		long id = getRandomFileId();
-		dispatcher.dispatch(new SimpleOperation(FileSystemOperationType.RENAME_FILE, id));
+	private void renameFile(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomFileId(randomSelector);
+		dispatch(new SimpleOperation(FileSystemOperationType.RENAME_FILE, id), intendedStartTime);
+		if(index != null){
+			index.renameFile(id);
+		}
 		fileAccessed(id);
 	}
 	
 	/**
 	 * Constructs and dispatches a move operation. Selects a random file and a random new parent directory.
+	 * 
+	 * @param randomSelector The id selector of the calling generator thread
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
 	 */
-	private void moveFile() {
-		long id = getRandomFileId();
-		long parentIdNew = randomSelector.getRandomDirectoryId(numberOfDirs);
-		dispatcher.dispatch(new MoveOperation(FileSystemOperationType.MOVE_FILE, id, parentIdNew));
+	private void moveFile(IDirectoryAndFileIdSelector randomSelector, long intendedStartTime) {
+		long id = getRandomFileId(randomSelector);
+		long parentIdNew = randomSelector.getRandomDirectoryId(numberOfDirs.get());
+		dispatch(new MoveOperation(FileSystemOperationType.MOVE_FILE, id, parentIdNew), intendedStartTime);
+		if(index != null){
+			index.moveFile(id, parentIdNew);
+		}
 		fileAccessed(id);
 	}
 	
+	/**
+	 * Constructs a read operation. If the master resolves the paths and the path of the target is known, the 
+	 * operation carries the path, so that the slave does not have to look it up in the namespace map.
+	 * 
+	 * @param type The operation type
+	 * @param id The id of the target directory or file
+	 * @param dir True if the target is a directory, false if it is a file
+	 * @return The read operation
+	 */
+	private SimpleOperation createReadOperation(FileSystemOperationType type, long id, boolean dir){
+		if(RESOLVE_PATHS && index != null){
+			String path = dir ? index.getDirPath(id) : index.getFilePath(id);
+			if(path != null){
+				return new PathOperation(type, id, path);
+			}
+		}
+		return new SimpleOperation(type, id);
+	}
+	
+	/**
+	 * Sets the intended start time of an operation and dispatches it
+	 * 
+	 * @param op The operation to dispatch
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time)
+	 */
+	private void dispatch(SimpleOperation op, long intendedStartTime){
+		op.setIntendedStartTime(intendedStartTime);
+		if(traceWriter != null){
+			traceWriter.record(op, intendedStartTime);
+		}
+		dispatcher.dispatch(op);
+	}
+	
+	/**
+	 * Claims a file id by adding it to the accessed file ids' cache, if it is not there yet. If the workload 
+	 * is read-only for files, no claiming is needed.
+	 * @param id The id of the file to claim
+	 * @return True if the id has been claimed, false if it has been accessed recently
+	 */
+	private boolean claimFileId(long id){
+		return filesReadOnlyWorkload || accessedElementIdCache.addFileIdIfAbsent(id);
+	}
+	
+	/**
+	 * Claims a directory id by adding it to the accessed directory ids' cache, if it is not there yet. If the 
+	 * workload is read-only for directories, no claiming is needed.
+	 * @param id The id of the directory to claim
+	 * @return True if the id has been claimed, false if it has been accessed recently
+	 */
+	private boolean claimDirId(long id){
+		return dirsReadOnlyWorkload || accessedElementIdCache.addDirIdIfAbsent(id);
+	}
+	
 	/**
 	 * Add the file id to the accessed file ids' cache, except if the workload is read-only for files.
 	 * @param id The id of the file to add to the accessed file ids' cache
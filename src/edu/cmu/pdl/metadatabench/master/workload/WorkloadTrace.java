@@ -0,0 +1,99 @@
+package edu.cmu.pdl.metadatabench.master.workload;
+
+import java.nio.ByteBuffer;
+
+/**
+ * The binary format of a workload trace, written by the {@link TraceWriter} and read by the {@link TraceReplayer}.
+ *
+ * A trace consists of a header (magic number, version, number of operations, length of the records) followed by
+ * one record per operation. A record starts with a byte containing the operation type (the ordinal of
+ * {@link edu.cmu.pdl.metadatabench.common.FileSystemOperationType}), the kind of the operation message and its
+ * flags. It is followed by the difference of the intended start time to the one of the previous record, the
+ * target id and, depending on the kind, the id of the new element, the name of the new element or the id of
+ * the new parent directory. The numbers are written in a variable-length encoding (the time difference in
+ * zig-zag encoding, because it can be negative if multiple generator threads are used). The names of new
+ * elements are only stored if they are not the default names derived from the ids.
+ *
+ * The traces are written and read through memory-mapped regions of the file. A region is remapped when less
+ * than {@link #MAX_RECORD_SIZE} bytes are left in it, so a record never spans two regions.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+final class WorkloadTrace {
+
+	/** "MDBT" */
+	static final int MAGIC = 0x4D444254;
+	static final int VERSION = 1;
+	/** Magic, version, number of operations, length of the records */
+	static final int HEADER_SIZE = 24;
+	static final int NUMBER_OF_OPERATIONS_OFFSET = 8;
+	static final int RECORDS_LENGTH_OFFSET = 16;
+
+	/** The size of a mapped region of the trace file */
+	static final int REGION_SIZE = 64 << 20;
+	/** The maximum length of a name in bytes */
+	static final int MAX_NAME_LENGTH = 0xFFFF;
+	/** Type byte, 4 variable-length numbers and a name */
+	static final int MAX_RECORD_SIZE = 1 + 4 * 10 + 3 + MAX_NAME_LENGTH;
+
+	static final int TYPE_MASK = 0x0F;
+	/* The kinds of the operation messages */
+	static final int KIND_SHIFT = 4;
+	static final int KIND_MASK = 0x03;
+	static final int KIND_SIMPLE = 0;
+	static final int KIND_CREATE = 1;
+	static final int KIND_MOVE = 2;
+	/* The flags of create operations */
+	static final int FLAG_PARENTS_PARENT = 0x40;
+	static final int FLAG_NAME = 0x80;
+
+	private WorkloadTrace() {}
+
+	/**
+	 * Writes a long value using the variable-length encoding of {@link edu.cmu.pdl.metadatabench.common.VarInt}
+	 *
+	 * @param buffer The buffer to write to
+	 * @param value The value to write
+	 */
+	static void putVarLong(ByteBuffer buffer, long value){
+		while((value & ~0x7FL) != 0){
+			buffer.put((byte)((value & 0x7F) | 0x80));
+			value >>>= 7;
+		}
+		buffer.put((byte)value);
+	}
+
+	/**
+	 * Reads a long value that has been written using the variable-length encoding
+	 *
+	 * @param buffer The buffer to read from
+	 * @return The value read
+	 */
+	static long getVarLong(ByteBuffer buffer){
+		long value = 0;
+		int shift = 0;
+		byte b;
+		do {
+			b = buffer.get();
+			value |= (long)(b & 0x7F) << shift;
+			shift += 7;
+		} while((b & 0x80) != 0 && shift < 64);
+		return value;
+	}
+
+	/**
+	 * Maps a signed value to an unsigned one, so that values close to 0 have a short variable-length encoding
+	 */
+	static long zigZag(long value){
+		return (value << 1) ^ (value >> 63);
+	}
+
+	/**
+	 * Reverses {@link #zigZag(long)}
+	 */
+	static long unZigZag(long value){
+		return (value >>> 1) ^ -(value & 1);
+	}
+
+}
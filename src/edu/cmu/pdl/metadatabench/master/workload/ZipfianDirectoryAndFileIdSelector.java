@@ -1,29 +1,60 @@
 package edu.cmu.pdl.metadatabench.master.workload;
 
-import com.yahoo.ycsb.generator.ZipfianGenerator;
+import edu.cmu.pdl.metadatabench.common.Config;
 
 /**
  * Provides functionality to select a random id of an existing directory or file using Zipfian distribution.
  * 
+ * The most popular element is either the one with the lowest id (the first created one, so the popularity of 
+ * the elements is stable), or the one with the highest id (the most recently created one, so the popularity 
+ * moves to the new elements, like YCSB's "latest" distribution). The distribution follows the growth of the 
+ * namespace exactly (see {@link IncrementalZipfianGenerator}), so directories and files created during the 
+ * workload are selected as well.
+ * 
+ * An instance must not be shared between threads.
+ * 
  * @author emil.rakadjiev
  *
  */
 public class ZipfianDirectoryAndFileIdSelector implements IDirectoryAndFileIdSelector {
 	
-	private final ZipfianGenerator dirRNG;
-	private final ZipfianGenerator fileRNG;
-	private final long numberOfDirs;
-	private final long numberOfFiles;
+	private final IncrementalZipfianGenerator dirRNG;
+	private final IncrementalZipfianGenerator fileRNG;
+	/** True if the most recently created element is the most popular one, false if the first created one */
+	private final boolean latest;
 	
 	/**
 	 * @param numberOfDirs The number of directories in the namespace
 	 * @param numberOfFiles The number of files in the namespace
+	 * @param latest True if the most recently created element is the most popular one, false if the first created one
+	 */
+	public ZipfianDirectoryAndFileIdSelector(long numberOfDirs, long numberOfFiles, boolean latest){
+		this(numberOfDirs, numberOfFiles, Config.getWorkloadZipfianConstant(), latest, new FastRandom());
+	}
+	
+	/**
+	 * @param numberOfDirs The number of directories in the namespace
+	 * @param numberOfFiles The number of files in the namespace
+	 * @param zipfianConstant The skew constant of the distribution
+	 * @param latest True if the most recently created element is the most popular one, false if the first created one
+	 * @param random The random number generator
+	 */
+	public ZipfianDirectoryAndFileIdSelector(long numberOfDirs, long numberOfFiles, double zipfianConstant, boolean latest, FastRandom random){
+		this.dirRNG = new IncrementalZipfianGenerator(numberOfDirs, zipfianConstant, random);
+		this.fileRNG = new IncrementalZipfianGenerator(numberOfFiles, zipfianConstant, random);
+		this.latest = latest;
+	}
+	
+	/**
+	 * Creates a selector with the same distribution as another selector, without computing it again
+	 * 
+	 * @param other The selector whose distribution is copied
+	 * @param random The random number generator of the new selector
 	 */
-	public ZipfianDirectoryAndFileIdSelector(long numberOfDirs, long numberOfFiles){
-		this.numberOfDirs = numberOfDirs;
-		this.numberOfFiles = numberOfFiles;
-		this.dirRNG = new ZipfianGenerator(numberOfDirs);
-		this.fileRNG = new ZipfianGenerator(numberOfFiles);
+	public ZipfianDirectoryAndFileIdSelector(ZipfianDirectoryAndFileIdSelector other, FastRandom random){
+		this.dirRNG = new IncrementalZipfianGenerator(other.dirRNG, random);
+		this.fileRNG = new IncrementalZipfianGenerator(other.fileRNG, random);
+		this.latest = other.latest;
 	}
 	
 	/**
@@ -34,13 +65,8 @@ public class ZipfianDirectoryAndFileIdSelector implements IDirectoryAndFileIdSel
 	 */
 	@Override
 	public long getRandomDirectoryId(long items){
-		/*
-		 * Re-initializing the Zipfian generator with a new interval is very expensive, so we just scale the 
-		 * random number to the new interval.
-		 */
-		double scaling = items/numberOfDirs; 
-		long id = (long)(dirRNG.nextLong() * scaling);
-		return items - id;
+		long rank = dirRNG.nextRank(items);
+		return latest ? items - rank : rank + 1;
 	}
 	
 	/**
@@ -51,13 +77,8 @@ public class ZipfianDirectoryAndFileIdSelector implements IDirectoryAndFileIdSel
 	 */
 	@Override
 	public long getRandomFileId(long items){
-		/*
-		 * Re-initializing the Zipfian generator with a new interval is very expensive, so we just scale the 
-		 * random number to the new interval.
-		 */
-		double scaling = items/numberOfFiles; 
-		long id = (long)(fileRNG.nextLong() * scaling);
-		return items - id;
+		long rank = fileRNG.nextRank(items);
+		return latest ? items - rank : rank + 1;
 	}
 	
 }
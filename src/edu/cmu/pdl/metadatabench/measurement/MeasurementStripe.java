@@ -0,0 +1,110 @@
+package edu.cmu.pdl.metadatabench.measurement;
+
+import java.util.HashMap;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+
+/**
+ * The measurements recorded by a single thread. Each thread that reports measurements by operation type gets its
+ * own stripe, which holds one service time and one response time measurement per operation type, indexed by the
+ * ordinal of the {@link FileSystemOperationType}. Thus, the threads do not share any measurement objects and
+ * the monitors of the measurement objects are never contended while measuring (only when the stripes are merged
+ * into the measurement data, which is done rarely).
+ *
+ * The measurement objects are created lazily by the owner thread, so a stripe only contains the operation types
+ * that its thread has executed.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+class MeasurementStripe {
+
+	private static final String[] SERVICE_TIME_NAMES;
+	private static final String[] RESPONSE_TIME_NAMES;
+
+	static {
+		FileSystemOperationType[] types = FileSystemOperationType.values();
+		SERVICE_TIME_NAMES = new String[types.length];
+		RESPONSE_TIME_NAMES = new String[types.length];
+		for(FileSystemOperationType type : types){
+			SERVICE_TIME_NAMES[type.ordinal()] = type.getName();
+			RESPONSE_TIME_NAMES[type.ordinal()] = type.getName() + Measurements.RESPONSE_TIME_SUFFIX;
+		}
+	}
+
+	private final Measurements measurements;
+	/** The generation of the measurements (incremented on each reset) to which this stripe belongs */
+	private final int generation;
+	private final AtomicReferenceArray<OneMeasurement> serviceTimes;
+	private final AtomicReferenceArray<OneMeasurement> responseTimes;
+
+	/**
+	 * @param measurements The measurements used to construct the measurement objects
+	 * @param generation The generation of the measurements to which this stripe belongs
+	 */
+	MeasurementStripe(Measurements measurements, int generation){
+		this.measurements = measurements;
+		this.generation = generation;
+		this.serviceTimes = new AtomicReferenceArray<OneMeasurement>(SERVICE_TIME_NAMES.length);
+		this.responseTimes = new AtomicReferenceArray<OneMeasurement>(RESPONSE_TIME_NAMES.length);
+	}
+
+	/**
+	 * Gets the generation of the measurements to which this stripe belongs
+	 *
+	 * @return The generation of the measurements to which this stripe belongs
+	 */
+	int getGeneration(){
+		return generation;
+	}
+
+	/**
+	 * Gets the service time measurement of an operation type. Must only be called by the owner thread.
+	 *
+	 * @param type The type of operation
+	 * @return The service time measurement
+	 */
+	OneMeasurement getServiceTime(FileSystemOperationType type){
+		return getMeasurement(serviceTimes, SERVICE_TIME_NAMES, type.ordinal());
+	}
+
+	/**
+	 * Gets the response time measurement of an operation type. Must only be called by the owner thread.
+	 *
+	 * @param type The type of operation
+	 * @return The response time measurement
+	 */
+	OneMeasurement getResponseTime(FileSystemOperationType type){
+		return getMeasurement(responseTimes, RESPONSE_TIME_NAMES, type.ordinal());
+	}
+
+	private OneMeasurement getMeasurement(AtomicReferenceArray<OneMeasurement> array, String[] names, int index){
+		OneMeasurement measurement = array.get(index);
+		if(measurement == null){
+			measurement = measurements.constructOneMeasurement(names[index]);
+			array.set(index, measurement);
+		}
+		return measurement;
+	}
+
+	/**
+	 * Adds copies of the measurements of this stripe to the given measurement data
+	 *
+	 * @param data The measurement data, keyed by the name of the metric
+	 */
+	void mergeInto(HashMap<String, OneMeasurement> data){
+		mergeInto(serviceTimes, data);
+		mergeInto(responseTimes, data);
+	}
+
+	private void mergeInto(AtomicReferenceArray<OneMeasurement> array, HashMap<String, OneMeasurement> data){
+		for(int i = 0; i < array.length(); i++){
+			OneMeasurement measurement = array.get(i);
+			if(measurement != null){
+				Measurements.mergeCopy(data, measurement);
+			}
+		}
+	}
+
+}
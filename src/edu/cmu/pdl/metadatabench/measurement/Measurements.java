@@ -21,6 +21,9 @@ import java.io.IOException;
 import java.text.DecimalFormat;
 import java.util.HashMap;
 import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,12 +32,18 @@ import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
 import com.yahoo.ycsb.measurements.reporter.Reporter;
 
 import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
 
 /**
  * Collects latency measurements, and reports them when requested.
  * 
  * Changes to YCSB class: added warm-up time, added reporting of exceptions, 
- * added method to get raw measurement data, further smaller refactorings.
+ * added method to get raw measurement data, added high dynamic range histogram measurement type, 
+ * added per-thread recording of operation measurements, further smaller refactorings.
+ * 
+ * Measurements reported by operation type (see {@link FileSystemOperationType}) are recorded by each thread in 
+ * its own {@link MeasurementStripe}, without any shared lock. The stripes are only merged when the measurement 
+ * data is requested. Measurements reported by name are recorded in a shared map, like in YCSB.
  * 
  * @author cooperb
  * @author emil.rakadjiev
@@ -45,10 +54,16 @@ public class Measurements{
 	public static final String MEASUREMENT_TYPE = "measurementtype";
 	public static final String MEASUREMENT_TYPE_HISTOGRAM = "histogram";
 	public static final String MEASUREMENT_TYPE_TIMESERIES = "timeseries";
+	public static final String MEASUREMENT_TYPE_HDR_HISTOGRAM = "hdrhistogram";
 	/** @see edu.cmu.pdl.metadatabench.common.Config#getMeasurementWarmUpTime() */
 	public static final String MEASUREMENT_WARM_UP = "measurementwarmup";
 	private static final String MEASUREMENT_WARM_UP_TIME_DEFAULT = String.valueOf(Config.getMeasurementWarmUpTime());
 	public static final String NODE_ID = "nodeid";
+	/** 
+	 * Appended to the operation name for the response time metric (measured from the intended start of the 
+	 * operation to its completion). The metric with the plain operation name is the service time. 
+	 */
+	public static final String RESPONSE_TIME_SUFFIX = "ResponseTime";
 
 	static Measurements singleton = null;
 	static Properties measurementproperties = null;
@@ -68,11 +83,17 @@ public class Measurements{
 	}
 
 	HashMap<String, OneMeasurement> data;
+	/** The stripes of the threads that have reported measurements by operation type */
+	private volatile Queue<MeasurementStripe> stripes;
+	private final ThreadLocal<MeasurementStripe> localStripe;
+	/** Incremented on each reset, so that the threads replace their stripes */
+	private volatile int generation;
 	boolean histogram = true;
+	boolean hdrHistogram = false;
 
 	private int warmUpTime;
-	private long firstMeasurementTimeStamp;
-	private boolean warmUpDone;
+	private final AtomicLong firstMeasurementTimeStamp;
+	private volatile boolean warmUpDone;
 	
 	private Properties _props;
 	
@@ -83,14 +104,21 @@ public class Measurements{
 	 */
 	public Measurements(Properties props) {
 		data = new HashMap<String, OneMeasurement>();
+		stripes = new ConcurrentLinkedQueue<MeasurementStripe>();
+		localStripe = new ThreadLocal<MeasurementStripe>();
+		generation = 0;
 
 		_props = props;
 
 		warmUpTime = Integer.parseInt(_props.getProperty(MEASUREMENT_WARM_UP, MEASUREMENT_WARM_UP_TIME_DEFAULT));
-		firstMeasurementTimeStamp = 0;
+		firstMeasurementTimeStamp = new AtomicLong();
 		warmUpDone = (warmUpTime == 0) ? true : false;
 		
-		if (_props.getProperty(MEASUREMENT_TYPE, MEASUREMENT_TYPE_HISTOGRAM).compareTo("histogram") == 0) {
+		String measurementType = _props.getProperty(MEASUREMENT_TYPE, MEASUREMENT_TYPE_HISTOGRAM);
+		if (measurementType.compareTo(MEASUREMENT_TYPE_HDR_HISTOGRAM) == 0) {
+			histogram = true;
+			hdrHistogram = true;
+		} else if (measurementType.compareTo("histogram") == 0) {
 			histogram = true;
 		} else {
 			histogram = false;
@@ -100,7 +128,9 @@ public class Measurements{
 	}
 
 	OneMeasurement constructOneMeasurement(String name) {
-		if (histogram) {
+		if (hdrHistogram) {
+			return new OneMeasurementHdrHistogram(name, _props);
+		} else if (histogram) {
 			return new OneMeasurementHistogram(name, _props);
 		} else {
 			return new OneMeasurementTimeSeries(name, _props);
@@ -110,9 +140,11 @@ public class Measurements{
 	/**
 	 * Resets the measurement data
 	 */
-	public void cleanMeasurement() {
+	public synchronized void cleanMeasurement() {
 		data = new HashMap<String, OneMeasurement>();
-		firstMeasurementTimeStamp = 0;
+		stripes = new ConcurrentLinkedQueue<MeasurementStripe>();
+		generation++;
+		firstMeasurementTimeStamp.set(0);
 		warmUpDone = (warmUpTime == 0) ? true : false;
 	}
 
@@ -123,27 +155,93 @@ public class Measurements{
 	 * Change to original method: added warm-up time, when measurements are ignored.
 	 */
 	public synchronized void measure(String operation, int latency) {
-		if(!warmUpDone){
-			long now = System.currentTimeMillis();
-			if(firstMeasurementTimeStamp == 0){
-				log.info("Will start measurements in {} seconds (warm-up time)", warmUpTime/1000);
-				firstMeasurementTimeStamp = now;
-			} else if((now - firstMeasurementTimeStamp) > warmUpTime){
-				warmUpDone = true;
-				log.info("Warm-up done, starting measurements.");
-				doMeasurement(operation, latency);
+		if(isMeasuring()){
+			initOperation(operation);
+			try {
+				data.get(operation).measure(latency);
+			} catch (java.lang.ArrayIndexOutOfBoundsException e) {
+				log.debug("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing", e);
 			}
-		} else {
-			doMeasurement(operation, latency);
 		}
 	}
 	
-	private void doMeasurement(String operation, int latency){
-		initOperation(operation);
-		try {
-			data.get(operation).measure(latency);
-		} catch (java.lang.ArrayIndexOutOfBoundsException e) {
-			log.debug("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing", e);
+	/**
+	 * Report a single value of a single metric, measured in nanoseconds. The measurement type decides 
+	 * with which resolution the value is recorded.
+	 * 
+	 * @param operation The name of the metric
+	 * @param latency The measured value in nanoseconds
+	 */
+	public synchronized void measureNanos(String operation, long latency) {
+		if(isMeasuring()){
+			initOperation(operation);
+			try {
+				data.get(operation).measureNanos(latency);
+			} catch (java.lang.ArrayIndexOutOfBoundsException e) {
+				log.debug("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing", e);
+			}
+		}
+	}
+	
+	/**
+	 * Reports the service time of an operation, measured in nanoseconds. The value is recorded by the calling 
+	 * thread in its own stripe, so this method does not block other threads.
+	 * 
+	 * @param type The type of operation
+	 * @param latency The measured value in nanoseconds
+	 */
+	public void measureNanos(FileSystemOperationType type, long latency) {
+		if(isMeasuring()){
+			try {
+				getStripe().getServiceTime(type).measureNanos(latency);
+			} catch (java.lang.ArrayIndexOutOfBoundsException e) {
+				log.debug("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing", e);
+			}
+		}
+	}
+	
+	/**
+	 * Reports the response time of an operation, measured in nanoseconds. The value is recorded by the calling 
+	 * thread in its own stripe, so this method does not block other threads.
+	 * 
+	 * @param type The type of operation
+	 * @param latency The measured value in nanoseconds
+	 * @see #RESPONSE_TIME_SUFFIX
+	 */
+	public void measureResponseTimeNanos(FileSystemOperationType type, long latency) {
+		if(isMeasuring()){
+			try {
+				getStripe().getResponseTime(type).measureNanos(latency);
+			} catch (java.lang.ArrayIndexOutOfBoundsException e) {
+				log.debug("ERROR: java.lang.ArrayIndexOutOfBoundsException - ignoring and continuing", e);
+			}
+		}
+	}
+	
+	/**
+	 * Checks whether the warm-up time is over and the measurements should be recorded. The warm-up time 
+	 * starts with the first measurement.
+	 * 
+	 * @return True if the measurements should be recorded
+	 */
+	private boolean isMeasuring(){
+		if(!warmUpDone){
+			long now = System.currentTimeMillis();
+			long firstMeasurement = firstMeasurementTimeStamp.get();
+			if(firstMeasurement == 0){
+				if(firstMeasurementTimeStamp.compareAndSet(0, now)){
+					log.info("Will start measurements in {} seconds (warm-up time)", warmUpTime/1000);
+				}
+			} else if((now - firstMeasurement) > warmUpTime){
+				if(!warmUpDone){
+					warmUpDone = true;
+					log.info("Warm-up done, starting measurements.");
+				}
+				return true;
+			}
+			return false;
+		} else {
+			return true;
 		}
 	}
 	
@@ -165,6 +263,16 @@ public class Measurements{
 		initOperation(operation);
 		data.get(operation).reportException(exceptionType);
 	}
+	
+	/**
+	 * Reports a failed operation. The exception is recorded by the calling thread in its own stripe.
+	 * 
+	 * @param type The type of operation that has failed
+	 * @param exceptionType The name of the exception that has occured
+	 */
+	public void reportException(FileSystemOperationType type, String exceptionType) {
+		getStripe().getServiceTime(type).reportException(exceptionType);
+	}
 
 	/**
 	 * Export the current measurements to a suitable format.
@@ -175,7 +283,7 @@ public class Measurements{
 	 *             Thrown if the export failed.
 	 */
 	public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
-		for (OneMeasurement measurement : data.values()) {
+		for (OneMeasurement measurement : getMergedData().values()) {
 			measurement.exportMeasurements(exporter);
 		}
 	}
@@ -186,7 +294,7 @@ public class Measurements{
 	public String getSummary(Reporter rep) {
 		String ret = "";
 		DecimalFormat d = new DecimalFormat("#.##");
-		for (OneMeasurement m : data.values()) {
+		for (OneMeasurement m : getMergedData().values()) {
 			double latency = m.getAvgLatency();
 			if (rep != null) {
 				rep.send("latency_" + m.getName().toLowerCase(), latency);
@@ -197,24 +305,124 @@ public class Measurements{
 	}
 	
 	/**
-	 * Gets the raw measurements data
+	 * Gets the raw measurements data. The data is a snapshot, which includes the merged stripes of all threads.
 	 * @return The raw measurement data
 	 */
 	public MeasurementData getMeasurementData(){
-		return new MeasurementData(data, histogram);
+		return new MeasurementData(getMergedData(), histogram);
 	}
 	
 	/**
-	 * Gets the raw measurements data including the id of this node
+	 * Gets the raw measurements data including the id of this node. The data is a snapshot, which includes the 
+	 * merged stripes of all threads.
 	 * @return The raw measurement data including the id of this node
 	 */
 	public MeasurementDataForNode getMeasurementDataForNode(){
+		return new MeasurementDataForNode(getNodeId(), getMergedData(), histogram);
+	}
+	
+	/**
+	 * Gets the raw measurements data including the id of this node and resets the measurements in one step. 
+	 * The measurements reported after the reset are not included in the data, they are recorded for the next 
+	 * phase, even while the data of this phase is still being merged.
+	 * @return The raw measurement data including the id of this node
+	 */
+	public MeasurementDataForNode getMeasurementDataForNodeAndClean(){
+		HashMap<String, OneMeasurement> oldData;
+		Queue<MeasurementStripe> oldStripes;
+		synchronized (this) {
+			oldData = data;
+			oldStripes = stripes;
+			cleanMeasurement();
+		}
+		return new MeasurementDataForNode(getNodeId(), mergeData(oldData, oldStripes), histogram);
+	}
+	
+	/**
+	 * @return The id of this node
+	 */
+	private int getNodeId(){
 		int nodeId = 0;
 		String prop = _props.getProperty(NODE_ID);
 		if(prop != null){
 			nodeId = Integer.parseInt(prop);
 		}
-		return new MeasurementDataForNode(nodeId, data, histogram);
+		return nodeId;
+	}
+	
+	/**
+	 * Gets the stripe of the calling thread. A new stripe is created and registered if the thread has not 
+	 * reported any measurements by operation type since the last reset.
+	 * 
+	 * @return The stripe of the calling thread
+	 */
+	private MeasurementStripe getStripe(){
+		MeasurementStripe stripe = localStripe.get();
+		int currentGeneration = generation;
+		if(stripe == null || stripe.getGeneration() != currentGeneration){
+			stripe = new MeasurementStripe(this, currentGeneration);
+			localStripe.set(stripe);
+			stripes.add(stripe);
+		}
+		return stripe;
+	}
+	
+	/**
+	 * Merges copies of the shared measurements and of the stripes of all threads
+	 * 
+	 * @return The merged measurement data, keyed by the name of the metric
+	 */
+	private HashMap<String, OneMeasurement> getMergedData(){
+		HashMap<String, OneMeasurement> sharedData;
+		synchronized (this) {
+			sharedData = data;
+		}
+		return mergeData(sharedData, stripes);
+	}
+	
+	/**
+	 * Merges copies of the given shared measurements and stripes
+	 * 
+	 * @param sharedData The measurements reported by name
+	 * @param threadStripes The stripes of the threads
+	 * @return The merged measurement data, keyed by the name of the metric
+	 */
+	private HashMap<String, OneMeasurement> mergeData(HashMap<String, OneMeasurement> sharedData, Queue<MeasurementStripe> threadStripes){
+		HashMap<String, OneMeasurement> merged = new HashMap<String, OneMeasurement>();
+		synchronized (this) {
+			for (OneMeasurement measurement : sharedData.values()) {
+				mergeCopy(merged, measurement);
+			}
+		}
+		for (MeasurementStripe stripe : threadStripes) {
+			stripe.mergeInto(merged);
+		}
+		return merged;
+	}
+	
+	/**
+	 * Adds a copy of a measurement to the measurement data. The measurement is copied while holding its 
+	 * monitor, so the copy is consistent even if the measurement is being updated.
+	 * 
+	 * @param data The measurement data, keyed by the name of the metric
+	 * @param measurement The measurement to add
+	 */
+	static void mergeCopy(HashMap<String, OneMeasurement> data, OneMeasurement measurement){
+		OneMeasurement copy;
+		synchronized (measurement) {
+			try {
+				copy = measurement.clone();
+			} catch (CloneNotSupportedException e) {
+				LoggerFactory.getLogger(Measurements.class).warn("Measurement object cannot be cloned, skipping {}.", measurement.getName());
+				return;
+			}
+		}
+		OneMeasurement existing = data.get(copy.getName());
+		if (existing == null) {
+			data.put(copy.getName(), copy);
+		} else {
+			existing.addMeasurement(copy);
+		}
 	}
 	
 	private void initOperation(String operation){
@@ -65,6 +65,16 @@ public abstract class OneMeasurement implements Serializable, Cloneable {
 	}
 	
 	public abstract void measure(int latency);
+	
+	/**
+	 * Records a latency measured in nanoseconds. By default, the latency is truncated to milliseconds. 
+	 * Measurement types with a finer resolution should override this method.
+	 * 
+	 * @param latency The latency in nanoseconds
+	 */
+	public void measureNanos(long latency) {
+		measure((int)(latency / 1000000));
+	}
 
 	public abstract String getSummary();
 
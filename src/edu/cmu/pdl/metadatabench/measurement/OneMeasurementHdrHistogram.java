@@ -0,0 +1,294 @@
+package edu.cmu.pdl.metadatabench.measurement;
+
+import java.io.IOException;
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Properties;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.yahoo.ycsb.measurements.exporter.MeasurementsExporter;
+
+import edu.cmu.pdl.metadatabench.common.Config;
+
+/**
+ * Takes measurements and maintains a high dynamic range histogram of a given metric.
+ *
+ * Unlike {@link OneMeasurementHistogram}, which has a fixed number of 1 ms buckets and counts all larger values
+ * in a single overflow bucket, this histogram records values with microsecond resolution from 1 us up to one
+ * hour, with a fixed relative precision (given as the number of significant decimal digits).
+ * The buckets are organized like in HdrHistogram: the value range is divided into buckets whose size is doubled
+ * from one bucket to the next, and each bucket is divided into the same number of linear sub-buckets. Thus, the
+ * memory usage is bounded and does not depend on the range of the recorded values, but only on the precision
+ * (approximately 26 KB for 2 significant digits).
+ * Histograms with the same precision can be merged exactly, so the tail latencies of all slaves can be computed
+ * accurately by the master.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+@SuppressWarnings("serial")
+public class OneMeasurementHdrHistogram extends OneMeasurement {
+	public static final String SIGNIFICANT_DIGITS = "hdrhistogram.significantdigits";
+	public static final String SIGNIFICANT_DIGITS_DEFAULT = String.valueOf(Config.getMeasurementHdrHistogramDigits());
+
+	/** The highest value that can be recorded (one hour in microseconds). Larger values are recorded as this value. */
+	private static final long HIGHEST_TRACKABLE_VALUE = 3600L * 1000 * 1000;
+	/** The percentiles that are exported */
+	private static final double[] PERCENTILES = {50, 90, 99, 99.9, 99.99};
+	private static final String[] PERCENTILE_NAMES = {"50th", "90th", "99th", "99.9th", "99.99th"};
+
+	int significantDigits;
+	/** The number of linear sub-buckets in each bucket (a power of two) */
+	int subBucketCount;
+	int subBucketHalfCount;
+	int subBucketHalfCountMagnitude;
+	long subBucketMask;
+	long[] counts;
+
+	long operations;
+	/** The sum of all recorded values in microseconds */
+	long totallatency;
+
+	// keep a windowed version of these stats for printing status
+	int windowoperations;
+	long windowtotallatency;
+
+	/** The smallest recorded value in microseconds */
+	long min;
+	/** The largest recorded value in microseconds */
+	long max;
+	HashMap<Integer, int[]> returncodes;
+
+	private Logger log;
+
+	public OneMeasurementHdrHistogram(String name, Properties props) {
+		super(name);
+		significantDigits = Integer.parseInt(props.getProperty(SIGNIFICANT_DIGITS, SIGNIFICANT_DIGITS_DEFAULT));
+
+		// the sub-buckets have to be small enough to distinguish values with the given number of significant digits
+		long largestValueWithSingleUnitResolution = 2 * (long)Math.pow(10, significantDigits);
+		int subBucketCountMagnitude = (int)Math.ceil(Math.log(largestValueWithSingleUnitResolution) / Math.log(2));
+		subBucketHalfCountMagnitude = Math.max(subBucketCountMagnitude, 1) - 1;
+		subBucketCount = 1 << (subBucketHalfCountMagnitude + 1);
+		subBucketHalfCount = subBucketCount / 2;
+		subBucketMask = subBucketCount - 1;
+
+		// the number of buckets needed to cover the value range
+		long smallestUntrackableValue = subBucketCount;
+		int bucketCount = 1;
+		while(smallestUntrackableValue <= HIGHEST_TRACKABLE_VALUE){
+			smallestUntrackableValue <<= 1;
+			bucketCount++;
+		}
+		counts = new long[(bucketCount + 1) * subBucketHalfCount];
+
+		operations = 0;
+		totallatency = 0;
+		windowoperations = 0;
+		windowtotallatency = 0;
+		min = -1;
+		max = -1;
+		returncodes = new HashMap<Integer, int[]>();
+		log = LoggerFactory.getLogger(OneMeasurementHdrHistogram.class);
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.yahoo.ycsb.OneMeasurement#reportReturnCode(int)
+	 */
+	public synchronized void reportReturnCode(int code) {
+		Integer Icode = code;
+		if (!returncodes.containsKey(Icode)) {
+			int[] val = new int[1];
+			val[0] = 0;
+			returncodes.put(Icode, val);
+		}
+		returncodes.get(Icode)[0]++;
+	}
+
+	/*
+	 * (non-Javadoc)
+	 *
+	 * @see com.yahoo.ycsb.OneMeasurement#measure(int)
+	 */
+	public void measure(int latency) {
+		measureMicros(latency * 1000L);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * 
+	 * The latency is recorded with microsecond resolution.
+	 */
+	@Override
+	public void measureNanos(long latency) {
+		measureMicros(latency / 1000);
+	}
+
+	/**
+	 * Records a value with microsecond resolution
+	 *
+	 * @param latency The value in microseconds
+	 */
+	public synchronized void measureMicros(long latency) {
+		if(latency < 0){
+			latency = 0;
+		}
+		counts[getCountsIndex(Math.min(latency, HIGHEST_TRACKABLE_VALUE))]++;
+		operations++;
+		totallatency += latency;
+		windowoperations++;
+		windowtotallatency += latency;
+
+		if ((min < 0) || (latency < min)) {
+			min = latency;
+		}
+
+		if ((max < 0) || (latency > max)) {
+			max = latency;
+		}
+	}
+
+	/**
+	 * Gets the index in the counts array of the sub-bucket that contains the given value
+	 *
+	 * @param value The value in microseconds
+	 * @return The index in the counts array
+	 */
+	private int getCountsIndex(long value){
+		// the bucket is determined by the position of the highest set bit (above the sub-bucket range)
+		int bucketIndex = (64 - subBucketHalfCountMagnitude - 1) - Long.numberOfLeadingZeros(value | subBucketMask);
+		int subBucketIndex = (int)(value >>> bucketIndex);
+		return ((bucketIndex + 1) << subBucketHalfCountMagnitude) + (subBucketIndex - subBucketHalfCount);
+	}
+
+	/**
+	 * Gets the highest value that is recorded in the sub-bucket with the given index in the counts array
+	 *
+	 * @param index The index in the counts array
+	 * @return The highest value of the sub-bucket in microseconds
+	 */
+	private long getHighestValueAtIndex(int index){
+		int bucketIndex = (index >> subBucketHalfCountMagnitude) - 1;
+		int subBucketIndex = (index & (subBucketHalfCount - 1)) + subBucketHalfCount;
+		if(bucketIndex < 0){
+			subBucketIndex -= subBucketHalfCount;
+			bucketIndex = 0;
+		}
+		long lowestValue = ((long)subBucketIndex) << bucketIndex;
+		return lowestValue + (1L << bucketIndex) - 1;
+	}
+
+	/**
+	 * Gets the value below which the given percentage of the recorded values fall
+	 *
+	 * @param percentile The percentile (between 0 and 100)
+	 * @return The value at the given percentile in microseconds (with the precision of the histogram)
+	 */
+	long getValueAtPercentile(double percentile){
+		long countAtPercentile = Math.max(1, (long)(((percentile / 100) * operations) + 0.5));
+		long totalToCurrentIndex = 0;
+		for(int i = 0; i < counts.length; i++){
+			totalToCurrentIndex += counts[i];
+			if(totalToCurrentIndex >= countAtPercentile){
+				return Math.min(getHighestValueAtIndex(i), max);
+			}
+		}
+		return max;
+	}
+
+	@Override
+	public void exportMeasurements(MeasurementsExporter exporter) throws IOException {
+		exporter.write(getName(), "Operations", (int)operations);
+		exporter.write(getName(), "AverageLatency(ms)", (((double) totallatency) / ((double) operations)) / 1000);
+		exporter.write(getName(), "MinLatency(ms)", min / 1000d);
+		exporter.write(getName(), "MaxLatency(ms)", max / 1000d);
+
+		if(operations > 0){
+			for(int i = 0; i < PERCENTILES.length; i++){
+				exporter.write(getName(), PERCENTILE_NAMES[i] + "PercentileLatency(ms)", getValueAtPercentile(PERCENTILES[i]) / 1000d);
+			}
+		}
+
+		for (Integer I : returncodes.keySet()) {
+			int[] val = returncodes.get(I);
+			exporter.write(getName(), "Return=" + I, val[0]);
+		}
+
+		Set<String> exceptionSet = exceptions.keySet();
+		for (String exception : exceptionSet){
+			exporter.write(getName(), exception, exceptions.get(exception));
+		}
+	}
+
+	@Override
+	public double getAvgLatency() {
+		if (windowoperations == 0) {
+			return 0;
+		}
+		double report = ((double) windowtotallatency) / ((double) windowoperations) / 1000;
+		windowtotallatency = 0;
+		windowoperations = 0;
+		return report;
+	}
+
+	@Override
+	public String getSummary() {
+		if (windowoperations == 0) {
+			return "";
+		}
+		DecimalFormat d = new DecimalFormat("#.##");
+		double report = ((double) windowtotallatency) / ((double) windowoperations) / 1000;
+		windowtotallatency = 0;
+		windowoperations = 0;
+		return "[" + getName() + " AverageLatency(ms)=" + d.format(report) + "]";
+	}
+
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void addMeasurement(OneMeasurement measurement) {
+		if(!(measurement instanceof OneMeasurementHdrHistogram)){
+			log.error("Error: Measurement cannot be added, because it is not a high dynamic range histogram.");
+			return;
+		}
+		OneMeasurementHdrHistogram measurementHistogram = (OneMeasurementHdrHistogram) measurement;
+		if(significantDigits != measurementHistogram.significantDigits){
+			log.error("Error: Measurement cannot be added, because the two histograms have a different precision.");
+		} else {
+			for(int i = 0; i < counts.length; i++){
+				counts[i] += measurementHistogram.counts[i];
+			}
+			operations += measurementHistogram.operations;
+			totallatency += measurementHistogram.totallatency;
+			windowoperations += measurementHistogram.windowoperations;
+			windowtotallatency += measurementHistogram.windowtotallatency;
+			if((min < 0) || ((measurementHistogram.min >= 0) && (min > measurementHistogram.min))){
+				min = measurementHistogram.min;
+			}
+			if(max < measurementHistogram.max){
+				max = measurementHistogram.max;
+			}
+			combineReturnCodeMaps(returncodes, measurementHistogram.returncodes);
+			combineExceptionMaps(exceptions, measurementHistogram.exceptions);
+		}
+	}
+
+	/**
+	 * Deep-clones this measurement
+	 * @return the cloned measurement
+	 */
+	public OneMeasurementHdrHistogram clone() throws CloneNotSupportedException {
+		OneMeasurementHdrHistogram clone = (OneMeasurementHdrHistogram) super.clone();
+		clone.counts = counts.clone();
+		clone.returncodes = cloneReturnCodeMap(returncodes);
+		clone.exceptions = cloneExceptionMap(exceptions);
+		return clone;
+	}
+
+}
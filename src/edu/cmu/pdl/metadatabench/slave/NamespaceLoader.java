@@ -0,0 +1,302 @@
+package edu.cmu.pdl.metadatabench.slave;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.hazelcast.core.Member;
+import com.hazelcast.partition.PartitionService;
+
+import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.NamespaceEntry;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.NamespaceLoad;
+import edu.cmu.pdl.metadatabench.common.Config;
+import edu.cmu.pdl.metadatabench.slave.fs.IFileSystemClient;
+
+/**
+ * Loads a namespace that already exists in the file system (e.g. generated by a previous run) into the namespace
+ * map, so that a workload can be executed on it without generating it again.
+ *
+ * The ids of the directories and files are parsed from their names, which consist of the name prefix, the id and
+ * optionally the rename suffix and count. Elements with other names are skipped.
+ *
+ * The loading is distributed among the slaves by the subdirectories of the root directory: each slave loads the
+ * subtrees whose topmost directory is owned by it, the root directory and its files are loaded by the owner of
+ * the root. Within a slave, the directories are listed by a pool of threads in parallel. The entries are collected
+ * in per-thread batches and stored with the bulk methods of the {@link INamespaceMapDAO}.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class NamespaceLoader {
+
+	private static final char PATH_SEPARATOR = Config.getPathSeparator();
+	private static final String DIR_NAME_PREFIX = Config.getDirNamePrefix();
+	private static final String FILE_NAME_PREFIX = Config.getFileNamePrefix();
+	private static final String RENAME_SUFFIX = Config.getWorkloadRenameSuffix();
+	private static final long ROOT_ID = 1;
+
+	private final IFileSystemClient client;
+	private final INamespaceMapDAO dao;
+	private final PartitionService partitionService;
+
+	private Logger log;
+
+	/**
+	 * @param client The file system client used to list the directories
+	 * @param dao The DAO used to store the namespace
+	 * @param partitionService Determines the owners of the directories
+	 */
+	public NamespaceLoader(IFileSystemClient client, INamespaceMapDAO dao, PartitionService partitionService){
+		this.client = client;
+		this.dao = dao;
+		this.partitionService = partitionService;
+		this.log = LoggerFactory.getLogger(NamespaceLoader.class);
+	}
+
+	/**
+	 * Loads the part of the namespace assigned to this slave and waits until it is stored in the namespace map
+	 *
+	 * @return The number of loaded directories and files and the highest loaded directory and file ids, see
+	 * {@link NamespaceLoad}
+	 * @throws IOException If the root directory cannot be listed
+	 * @throws InterruptedException If the thread has been interrupted while waiting for the loader threads
+	 */
+	public synchronized long[] load() throws IOException, InterruptedException {
+		String workDirectory = Config.getWorkDir();
+		while(workDirectory.endsWith(Character.toString(PATH_SEPARATOR))){
+			workDirectory = workDirectory.substring(0, workDirectory.length() - 1);
+		}
+		String rootPath = workDirectory + PATH_SEPARATOR + DIR_NAME_PREFIX + ROOT_ID;
+		Load load = new Load();
+		List<String> dirNames = new ArrayList<String>();
+		List<String> fileNames = new ArrayList<String>();
+		client.listChildren(rootPath, dirNames, fileNames);
+		if(isLocal(ROOT_ID)){
+			Batch batch = load.getBatch();
+			batch.addDir(ROOT_ID, NamespaceEntry.NO_PARENT, rootPath);
+			addFiles(batch, ROOT_ID, rootPath, fileNames);
+		}
+		for(String dirName : dirNames){
+			long id = parseId(dirName, DIR_NAME_PREFIX);
+			if(id > 0 && isLocal(id)){
+				load.submit(id, ROOT_ID, rootPath + PATH_SEPARATOR + dirName);
+			}
+		}
+		return load.await();
+	}
+
+	/**
+	 * Adds the files of a directory to a batch
+	 *
+	 * @param batch The batch of the current thread
+	 * @param parentId The id of the directory
+	 * @param parentPath The path of the directory
+	 * @param fileNames The names of the files in the directory
+	 */
+	private void addFiles(Batch batch, long parentId, String parentPath, List<String> fileNames){
+		for(String fileName : fileNames){
+			long id = parseId(fileName, FILE_NAME_PREFIX);
+			if(id > 0){
+				batch.addFile(id, parentId, parentPath + PATH_SEPARATOR + fileName);
+			}
+		}
+	}
+
+	/**
+	 * Parses the id of an element from its name
+	 *
+	 * @param name The name of the directory or file
+	 * @param prefix The name prefix of directories or files
+	 * @return The id of the element, or 0 if the name is not a generated name
+	 */
+	private long parseId(String name, String prefix){
+		if(!name.startsWith(prefix)){
+			return 0;
+		}
+		int end = name.indexOf(RENAME_SUFFIX, prefix.length());
+		try {
+			return Long.parseLong((end < 0) ? name.substring(prefix.length()) : name.substring(prefix.length(), end));
+		} catch(NumberFormatException e){
+			log.debug("Skipping element {}, its name is not generated by the benchmark", name);
+			return 0;
+		}
+	}
+
+	/**
+	 * Checks whether the given id is owned by this node
+	 *
+	 * @param id The id of a directory
+	 * @return True if the id is owned by this node
+	 */
+	private boolean isLocal(long id){
+		Member owner = partitionService.getPartition(id).getOwner();
+		return (owner != null) && owner.localMember();
+	}
+
+	/**
+	 * The state of a single load: the pool of loader threads, their batches and the number of directories that
+	 * still have to be listed.
+	 */
+	private class Load {
+
+		private final ExecutorService threadPool;
+		private final ThreadLocal<Batch> batch;
+		/** The batches of all threads, flushed when the load is complete */
+		private final List<Batch> batches;
+		/** The number of directories submitted, but not yet listed */
+		private final AtomicLong pending;
+
+		private Load(){
+			this.threadPool = Executors.newFixedThreadPool(Config.getSlavePreloadThreads());
+			this.batches = new ArrayList<Batch>();
+			this.pending = new AtomicLong();
+			this.batch = new ThreadLocal<Batch>(){
+				@Override
+				protected Batch initialValue() {
+					Batch batch = new Batch(Config.getSlavePreloadBatchSize());
+					synchronized(batches){
+						batches.add(batch);
+					}
+					return batch;
+				}
+			};
+		}
+
+		private Batch getBatch(){
+			return batch.get();
+		}
+
+		/**
+		 * Submits a directory for listing. Its entry and the entries of its files and subdirectories are loaded.
+		 *
+		 * @param id The id of the directory
+		 * @param parentId The id of the parent directory
+		 * @param path The path of the directory
+		 */
+		private void submit(final long id, final long parentId, final String path){
+			pending.incrementAndGet();
+			threadPool.execute(new Runnable(){
+				@Override
+				public void run() {
+					try {
+						Batch batch = getBatch();
+						batch.addDir(id, parentId, path);
+						List<String> dirNames = new ArrayList<String>();
+						List<String> fileNames = new ArrayList<String>();
+						client.listChildren(path, dirNames, fileNames);
+						addFiles(batch, id, path, fileNames);
+						for(String dirName : dirNames){
+							long childId = parseId(dirName, DIR_NAME_PREFIX);
+							if(childId > 0){
+								submit(childId, id, path + PATH_SEPARATOR + dirName);
+							}
+						}
+					} catch(IOException e) {
+						log.warn("Directory {} cannot be listed", path, e);
+					} finally {
+						if(pending.decrementAndGet() == 0){
+							synchronized(pending){
+								pending.notifyAll();
+							}
+						}
+					}
+				}
+			});
+		}
+
+		/**
+		 * Waits until all directories have been listed, stores the remaining entries and stops the threads
+		 *
+		 * @return The number of loaded directories and files and the highest loaded directory and file ids
+		 * @throws InterruptedException If the thread has been interrupted while waiting
+		 */
+		private long[] await() throws InterruptedException {
+			synchronized(pending){
+				while(pending.get() > 0){
+					pending.wait();
+				}
+			}
+			threadPool.shutdown();
+			long[] result = new long[4];
+			synchronized(batches){
+				for(Batch batch : batches){
+					batch.flush();
+					result[NamespaceLoad.DIRS] += batch.dirs;
+					result[NamespaceLoad.FILES] += batch.files;
+					result[NamespaceLoad.MAX_DIR_ID] = Math.max(result[NamespaceLoad.MAX_DIR_ID], batch.maxDirId);
+					result[NamespaceLoad.MAX_FILE_ID] = Math.max(result[NamespaceLoad.MAX_FILE_ID], batch.maxFileId);
+				}
+			}
+			log.info("Loaded {} directories and {} files", result[NamespaceLoad.DIRS], result[NamespaceLoad.FILES]);
+			return result;
+		}
+
+	}
+
+	/**
+	 * The directories and files collected by a loader thread, stored in the namespace map when the batch is full
+	 */
+	private class Batch {
+
+		private final int capacity;
+		private final long[] dirIds, dirParentIds, fileIds, fileParentIds;
+		private final String[] dirPaths, filePaths;
+		private int dirCount, fileCount;
+		/* Statistics of the loaded elements */
+		private long dirs, files, maxDirId, maxFileId;
+
+		private Batch(int capacity){
+			this.capacity = capacity;
+			this.dirIds = new long[capacity];
+			this.dirParentIds = new long[capacity];
+			this.dirPaths = new String[capacity];
+			this.fileIds = new long[capacity];
+			this.fileParentIds = new long[capacity];
+			this.filePaths = new String[capacity];
+		}
+
+		private void addDir(long id, long parentId, String path){
+			dirIds[dirCount] = id;
+			dirParentIds[dirCount] = parentId;
+			dirPaths[dirCount] = path;
+			dirs++;
+			maxDirId = Math.max(maxDirId, id);
+			if(++dirCount == capacity){
+				dao.createDirs(dirIds, dirParentIds, dirPaths, dirCount);
+				dirCount = 0;
+			}
+		}
+
+		private void addFile(long id, long parentId, String path){
+			fileIds[fileCount] = id;
+			fileParentIds[fileCount] = parentId;
+			filePaths[fileCount] = path;
+			files++;
+			maxFileId = Math.max(maxFileId, id);
+			if(++fileCount == capacity){
+				dao.createFiles(fileIds, fileParentIds, filePaths, fileCount);
+				fileCount = 0;
+			}
+		}
+
+		private void flush(){
+			if(dirCount > 0){
+				dao.createDirs(dirIds, dirParentIds, dirPaths, dirCount);
+				dirCount = 0;
+			}
+			if(fileCount > 0){
+				dao.createFiles(fileIds, fileParentIds, filePaths, fileCount);
+				fileCount = 0;
+			}
+		}
+
+	}
+
+}
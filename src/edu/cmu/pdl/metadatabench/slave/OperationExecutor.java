@@ -2,10 +2,13 @@ package edu.cmu.pdl.metadatabench.slave;
 
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
+import edu.cmu.pdl.metadatabench.cluster.ICluster;
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
 import edu.cmu.pdl.metadatabench.measurement.Measurements;
 import edu.cmu.pdl.metadatabench.slave.fs.IFileSystemClient;
@@ -15,6 +18,16 @@ import edu.cmu.pdl.metadatabench.slave.progress.Progress;
  * Executes operations on the underlying file system and reports latencies, exceptions and progress.
  * Each operation is wrapped into a runnable and submitted to a thread pool for execution.
  * 
+ * Two latencies are reported for each successful operation: the service time, that is the duration of the 
+ * file system call (measured in nanoseconds by the file system client), and the response time, that is the 
+ * time from the intended start of the operation (set by the generator in the master) until its completion. 
+ * The latter includes the time spent in dispatching and in the queues of the slave, so it reveals overload 
+ * that the service time hides. The response time is based on the cluster time, so its resolution is one 
+ * millisecond.
+ * 
+ * The latencies and exceptions are reported by operation type, so each thread of the pool records them in its 
+ * own measurement objects, without contending for a shared lock.
+ * 
  * @author emil.rakadjiev
  *
  */
@@ -32,6 +45,8 @@ public class OperationExecutor {
 	private final IFileSystemClient client;
 	private final ExecutorService threadPool;
 	private final Measurements measurements;
+	/** Provides the cluster time, which is needed to calculate response times */
+	private final ICluster cluster;
 	
 	private Logger log;
 	
@@ -43,6 +58,7 @@ public class OperationExecutor {
 		this.client = client;
 		this.threadPool = Executors.newFixedThreadPool(threadCount);
 		this.measurements = Measurements.getMeasurements();
+		this.cluster = HazelcastCluster.getInstance();
 		this.log = LoggerFactory.getLogger(OperationExecutor.class);
 	}
 	
@@ -50,19 +66,21 @@ public class OperationExecutor {
 	 * Submits a create operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file to create
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void create(final String path){
+	public void create(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.create(path);
-					if(runtime > 10000){
+					long runtime = client.create(path);
+					if(TimeUnit.NANOSECONDS.toMillis(runtime) > 10000){
 						log.debug("File creation took too long: {}", path);
 					}
-					measurements.measure(CREATE_NAME, runtime);
+					measurements.measureNanos(FileSystemOperationType.CREATE, runtime);
+					measureResponseTime(FileSystemOperationType.CREATE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(CREATE_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.CREATE, e.getClass().getName());
 					log.debug(CREATE_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -76,16 +94,18 @@ public class OperationExecutor {
 	 * Submits a delete operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file to delete
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void delete(final String path){
+	public void delete(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.delete(path);
-					measurements.measure(DELETE_NAME, runtime);
+					long runtime = client.delete(path);
+					measurements.measureNanos(FileSystemOperationType.DELETE_FILE, runtime);
+					measureResponseTime(FileSystemOperationType.DELETE_FILE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(DELETE_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.DELETE_FILE, e.getClass().getName());
 					log.debug(DELETE_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -99,16 +119,18 @@ public class OperationExecutor {
 	 * Submits an ls file operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void listStatusFile(final String path){
+	public void listStatusFile(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.listStatus(path);
-					measurements.measure(LIST_STATUS_FILE_NAME, runtime);
+					long runtime = client.listStatus(path);
+					measurements.measureNanos(FileSystemOperationType.LIST_STATUS_FILE, runtime);
+					measureResponseTime(FileSystemOperationType.LIST_STATUS_FILE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(LIST_STATUS_FILE_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.LIST_STATUS_FILE, e.getClass().getName());
 					log.debug(LIST_STATUS_FILE_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -122,16 +144,18 @@ public class OperationExecutor {
 	 * Submits an ls dir operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the directory
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void listStatusDir(final String path){
+	public void listStatusDir(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.listStatus(path);
-					measurements.measure(LIST_STATUS_DIR_NAME, runtime);
+					long runtime = client.listStatus(path);
+					measurements.measureNanos(FileSystemOperationType.LIST_STATUS_DIR, runtime);
+					measureResponseTime(FileSystemOperationType.LIST_STATUS_DIR, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(LIST_STATUS_DIR_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.LIST_STATUS_DIR, e.getClass().getName());
 					log.debug(LIST_STATUS_DIR_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -145,16 +169,18 @@ public class OperationExecutor {
 	 * Submits a mkdir operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the directory to create
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void mkdir(final String path){
+	public void mkdir(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.mkdir(path);
-					measurements.measure(MKDIR_NAME, runtime);
+					long runtime = client.mkdir(path);
+					measurements.measureNanos(FileSystemOperationType.MKDIRS, runtime);
+					measureResponseTime(FileSystemOperationType.MKDIRS, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(MKDIR_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.MKDIRS, e.getClass().getName());
 					log.debug(MKDIR_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -168,16 +194,18 @@ public class OperationExecutor {
 	 * Submits an open operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file to open
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void open(final String path){
+	public void open(final String path, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.open(path);
-					measurements.measure(OPEN_NAME, runtime);
+					long runtime = client.open(path);
+					measurements.measureNanos(FileSystemOperationType.OPEN_FILE, runtime);
+					measureResponseTime(FileSystemOperationType.OPEN_FILE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(OPEN_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.OPEN_FILE, e.getClass().getName());
 					log.debug(OPEN_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -191,16 +219,18 @@ public class OperationExecutor {
 	 * Submits a rename operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file to rename
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void rename(final String fromPath, final String toPath){
+	public void rename(final String fromPath, final String toPath, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.rename(fromPath, toPath);
-					measurements.measure(RENAME_NAME, runtime);
+					long runtime = client.rename(fromPath, toPath);
+					measurements.measureNanos(FileSystemOperationType.RENAME_FILE, runtime);
+					measureResponseTime(FileSystemOperationType.RENAME_FILE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(RENAME_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.RENAME_FILE, e.getClass().getName());
 					log.debug(RENAME_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -214,16 +244,18 @@ public class OperationExecutor {
 	 * Submits a move operation to the thread pool for execution.
 	 * Includes reporting of latencies, exceptions and progress.
 	 * @param path The path of the file to move
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	public void move(final String fromPath, final String toPath){
+	public void move(final String fromPath, final String toPath, final long intendedStartTime){
 		Runnable op = new Runnable(){
 			@Override
 			public void run() {
 				try {
-					int runtime = client.move(fromPath, toPath);
-					measurements.measure(MOVE_NAME, runtime);
+					long runtime = client.move(fromPath, toPath);
+					measurements.measureNanos(FileSystemOperationType.MOVE_FILE, runtime);
+					measureResponseTime(FileSystemOperationType.MOVE_FILE, intendedStartTime);
 				} catch (Exception e) {
-					measurements.reportException(MOVE_NAME, e.getClass().getName());
+					measurements.reportException(FileSystemOperationType.MOVE_FILE, e.getClass().getName());
 					log.debug(MOVE_NAME + " operation cannot be executed", e);
 				} finally {
 					Progress.reportCompletedOperation();
@@ -233,6 +265,19 @@ public class OperationExecutor {
 		threadPool.submit(op);
 	}
 	
+	/**
+	 * Reports the response time of a completed operation, that is the time from its intended start until now 
+	 * (measured using the cluster time). Nothing is reported if the intended start time is unknown.
+	 * 
+	 * @param type The type of the operation
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
+	 */
+	private void measureResponseTime(FileSystemOperationType type, long intendedStartTime){
+		if(intendedStartTime > 0){
+			measurements.measureResponseTimeNanos(type, TimeUnit.MILLISECONDS.toNanos(cluster.getClusterTime() - intendedStartTime));
+		}
+	}
+	
 	/**
 	 * @return The client used to access the file system
 	 */
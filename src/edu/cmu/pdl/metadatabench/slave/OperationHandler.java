@@ -6,6 +6,7 @@ import org.slf4j.LoggerFactory;
 import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.CreateOperation;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.MoveOperation;
+import edu.cmu.pdl.metadatabench.cluster.communication.messages.PathOperation;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.SimpleOperation;
 import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
@@ -24,6 +25,8 @@ public class OperationHandler {
 	
 	private OperationExecutor executor;
 	private INamespaceMapDAO dao;
+	/** Holds back the operations whose parent directory has not been created yet */
+	private ParentDirectoryWaiters parentWaiters;
 	
 	private Logger log;
 	
@@ -34,6 +37,7 @@ public class OperationHandler {
 	public OperationHandler(OperationExecutor executor, INamespaceMapDAO dao){
 		this.executor = executor;
 		this.dao = dao;
+		this.parentWaiters = new ParentDirectoryWaiters(dao, Config.getSlaveParentWaitTimeoutMillis());
 		this.log = LoggerFactory.getLogger(OperationHandler.class);
 	};
 	
@@ -42,42 +46,47 @@ public class OperationHandler {
 	 * @param op The operation to handle
 	 */
 	public void handleOperation(SimpleOperation op){
+		if(op instanceof PathOperation){
+			handlePathOperation((PathOperation)op);
+			return;
+		}
 		FileSystemOperationType type = op.getType();
 		long targetId = op.getTargetId();
+		long intendedStartTime = op.getIntendedStartTime();
 		switch(type){
 			case CREATE:
 				if(op instanceof CreateOperation){
-					create(targetId, ((CreateOperation)op).getId(), ((CreateOperation)op).getName());
+					create(targetId, ((CreateOperation)op).getId(), ((CreateOperation)op).getName(), intendedStartTime);
 				} else {
 					log.warn("Error: {} operation type has to have a CreateOperation object", FileSystemOperationType.CREATE.getName());
 				}
 				break;
 			case MKDIRS:
 				if(op instanceof CreateOperation){
-					mkdir(targetId, ((CreateOperation)op).getParentsParent(), ((CreateOperation)op).getId(), ((CreateOperation)op).getName());
+					mkdir(targetId, ((CreateOperation)op).getParentsParent(), ((CreateOperation)op).getId(), ((CreateOperation)op).getName(), intendedStartTime);
 				} else {
 					// create a directory in the file system which is already stored in the distributed namespace map
-					mkdir(targetId);
+					mkdir(targetId, intendedStartTime);
 				}
 				break;
 			case DELETE_FILE:
-				deleteFile(targetId);
+				deleteFile(targetId, intendedStartTime);
 				break;
 			case LIST_STATUS_FILE:
-				listStatusFile(targetId);
+				listStatusFile(targetId, intendedStartTime);
 				break;
 			case LIST_STATUS_DIR:
-				listStatusDir(targetId);
+				listStatusDir(targetId, intendedStartTime);
 				break;
 			case OPEN_FILE:
-				openFile(targetId);
+				openFile(targetId, intendedStartTime);
 				break;
 			case RENAME_FILE:
-				renameFile(targetId);
+				renameFile(targetId, intendedStartTime);
 				break;
 			case MOVE_FILE:
 				if(op instanceof MoveOperation){
-					moveFile(targetId, ((MoveOperation)op).getParentIdNew());
+					moveFile(targetId, ((MoveOperation)op).getParentIdNew(), intendedStartTime);
 				} else {
 					log.warn("Error: {} operation type has to have a MoveOperation object", FileSystemOperationType.MOVE_FILE.getName());
 				}
@@ -88,73 +97,103 @@ public class OperationHandler {
 	}
 	
 	/**
-	 * Handles a create operation. Reads the path of the parent directory from the distributed namespace map, 
-	 * constructs the path of the new file, updates the distributed namespace map and forwards the operation 
-	 * for execution on the underlying file system. 
+	 * Handles a read operation whose path has been resolved by the master. The operation is forwarded for execution 
+	 * on the underlying file system without accessing the distributed namespace map.
+	 * 
+	 * @param op The operation to handle
+	 */
+	private void handlePathOperation(PathOperation op){
+		String path = op.getPath();
+		long intendedStartTime = op.getIntendedStartTime();
+		switch(op.getType()){
+			case LIST_STATUS_FILE:
+				executor.listStatusFile(path, intendedStartTime);
+				break;
+			case LIST_STATUS_DIR:
+				executor.listStatusDir(path, intendedStartTime);
+				break;
+			case OPEN_FILE:
+				executor.open(path, intendedStartTime);
+				break;
+			default:
+				log.warn("Error: {} operation type cannot be executed on a resolved path", op.getType().getName());
+		}
+	}
+	
+	/**
+	 * Handles a create operation. Inserts the new file into the distributed namespace map (which resolves the 
+	 * path of the parent directory) and forwards the operation for execution on the underlying file system. 
+	 * 
+	 * It can happen that the parent directory has not yet been created, because this operation "overtook" the 
+	 * corresponding mkdir operation. The operation is then held back until the parent directory is created.
 	 * 
 	 * @param parentId The id of the parent directory
 	 * @param id The id of the file to be created
 	 * @param name The name of the file to be created
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void create(long parentId, long id, String name) {
-		String parentPath = dao.getDir(parentId);
-		// TODO: timeout if parent directory not found
-		/*
-		 * It can happen that the parent directory has not yet been created, because this operation "overtook" the 
-		 * corresponding mkdir operation
-		 */
-		while(parentPath == null){
-			parentPath = dao.getDir(parentId);
-		}
-		String path = parentPath + name;
-		dao.createFile(id, path);
-		executor.create(path);
+	private void create(final long parentId, final long id, final String name, final long intendedStartTime) {
+		parentWaiters.execute(new ParentDirectoryWaiters.WaitingOperation(FileSystemOperationType.CREATE, parentId){
+			@Override
+			protected boolean tryExecute() {
+				String path = dao.createFile(id, parentId, name);
+				if(path == null){
+					return false;
+				}
+				executor.create(path, intendedStartTime);
+				return true;
+			}
+		});
 	}
 	
 	/**
 	 * Handles a mkdir operation for a directory that has already been inserted into the distributed namespace map 
 	 * (but not yet executed on the namespace map).
+	 * It can happen that directory has not yet been inserted into the distributed namespace map, the operation is 
+	 * then held back until it is inserted.
 	 * @param id The id of the directory to create
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void mkdir(long id){
-		String path = dao.getDir(id);
-		// TODO: timeout if parent directory not found
-		/*
-		 * It can happen that directory has not yet been inserted into the distributed namespace map.
-		 */
-		while(path == null){
-			path = dao.getDir(id);
-		}
-		executor.mkdir(path);
+	private void mkdir(final long id, final long intendedStartTime){
+		parentWaiters.execute(new ParentDirectoryWaiters.WaitingOperation(FileSystemOperationType.MKDIRS, id){
+			@Override
+			protected boolean tryExecute() {
+				String path = dao.getDir(id);
+				if(path == null){
+					return false;
+				}
+				executor.mkdir(path, intendedStartTime);
+				return true;
+			}
+		});
 	}
 	
 	/**
-	 * Handles a mkdir operation. Reads the path of the parent directory (or its parent) from the distributed 
-	 * namespace map, constructs the path of the new directory, updates the distributed namespace map and forwards 
-	 * the operation for execution on the underlying file system. 
+	 * Handles a mkdir operation. Inserts the new directory into the distributed namespace map (which resolves the 
+	 * path of the parent directory or its parent) and forwards the operation for execution on the underlying 
+	 * file system. 
+	 * 
+	 * It can happen that the parent directory has not yet been created, because this operation "overtook" the 
+	 * corresponding mkdir operation. The operation is then held back until the parent directory is created.
 	 * 
 	 * @param parentId The id of the parent directory
 	 * @param parentsParent Whether the parent directories parent should be the parent of the new directory  
 	 * @param id The id of the directory to be created
 	 * @param name The name of the directory to be created
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void mkdir(long parentId, boolean parentsParent, long id, String name) {
-		String parentPath = dao.getDir(parentId);
-		// TODO: timeout if parent directory not found
-		/*
-		 * It can happen that the parent directory has not yet been created, because this operation "overtook" the 
-		 * corresponding mkdir operation
-		 */
-		while(parentPath == null){
-			parentPath = dao.getDir(parentId);
-		}
-		if(parentsParent){
-			int slashIdx = parentPath.lastIndexOf(PATH_SEPARATOR);
-			parentPath = parentPath.substring(0, slashIdx);
-		}
-		String path = parentPath + name;
-		dao.createDir(id, path);
-		executor.mkdir(path);
+	private void mkdir(final long parentId, final boolean parentsParent, final long id, final String name, final long intendedStartTime) {
+		parentWaiters.execute(new ParentDirectoryWaiters.WaitingOperation(FileSystemOperationType.MKDIRS, parentId){
+			@Override
+			protected boolean tryExecute() {
+				String path = dao.createDir(id, parentId, parentsParent, name);
+				if(path == null){
+					return false;
+				}
+				executor.mkdir(path, intendedStartTime);
+				return true;
+			}
+		});
 	}
 
 	/**
@@ -162,10 +201,11 @@ public class OperationHandler {
 	 * distributed namespace map and forwards the operation for execution on the underlying file system. 
 	 * 
 	 * @param id The id of the file to be deleted
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void deleteFile(long id) {
+	private void deleteFile(long id, long intendedStartTime) {
 		String path = dao.getFile(id);
-		executor.delete(path);
+		executor.delete(path, intendedStartTime);
 		dao.deleteFile(id);
 	}
 
@@ -174,10 +214,11 @@ public class OperationHandler {
 	 * and forwards the operation for execution on the underlying file system. 
 	 * 
 	 * @param id The id of the file
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void listStatusFile(long id) {
+	private void listStatusFile(long id, long intendedStartTime) {
 		String path = dao.getFile(id);
-		executor.listStatusFile(path);
+		executor.listStatusFile(path, intendedStartTime);
 	}
 	
 	/**
@@ -185,10 +226,11 @@ public class OperationHandler {
 	 * and forwards the operation for execution on the underlying file system. 
 	 * 
 	 * @param id The id of the directory
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void listStatusDir(long id) {
+	private void listStatusDir(long id, long intendedStartTime) {
 		String path = dao.getDir(id);
-		executor.listStatusDir(path);
+		executor.listStatusDir(path, intendedStartTime);
 	}
 
 	/**
@@ -196,10 +238,11 @@ public class OperationHandler {
 	 * and forwards the operation for execution on the underlying file system. 
 	 * 
 	 * @param id The id of the file to open
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void openFile(long id) {
+	private void openFile(long id, long intendedStartTime) {
 		String path = dao.getFile(id);
-		executor.open(path);
+		executor.open(path, intendedStartTime);
 	}
 
 	/**
@@ -208,8 +251,9 @@ public class OperationHandler {
 	 * execution on the underlying file system. 
 	 * 
 	 * @param id The id of the file to rename
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void renameFile(long id) {
+	private void renameFile(long id, long intendedStartTime) {
 		String path = dao.getFile(id);
 		String pathNew = path;
 		try{
@@ -217,7 +261,7 @@ public class OperationHandler {
 			dao.renameFile(id, pathNew);
 		} catch (NullPointerException e){
 		} finally {
-			executor.rename(path, pathNew);
+			executor.rename(path, pathNew, intendedStartTime);
 		}
 	}
 	
@@ -228,8 +272,9 @@ public class OperationHandler {
 	 * 
 	 * @param id The id of the file to move
 	 * @param parentIdNew The id of the new parent directory
+	 * @param intendedStartTime The intended start time of the operation in milliseconds (cluster time), 0 if unknown
 	 */
-	private void moveFile(long id, long parentIdNew) {
+	private void moveFile(long id, long parentIdNew, long intendedStartTime) {
 		String path = dao.getFile(id);
 		String parentPathNew = dao.getDir(parentIdNew);
 		String pathNew = path;
@@ -240,10 +285,10 @@ public class OperationHandler {
 			if(pathNew.equals(path)){
 				pathNew = incrementRenameCounterExtension(pathNew);
 			}
-			dao.renameFile(id, pathNew);
+			dao.moveFile(id, parentIdNew, pathNew);
 		} catch(NullPointerException e){
 		} finally {
-			executor.move(path, pathNew);
+			executor.move(path, pathNew, intendedStartTime);
 		}
 	}
 	
@@ -0,0 +1,244 @@
+package edu.cmu.pdl.metadatabench.slave;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import edu.cmu.pdl.metadatabench.cluster.IDirCreationListener;
+import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
+import edu.cmu.pdl.metadatabench.common.FileSystemOperationType;
+import edu.cmu.pdl.metadatabench.measurement.Measurements;
+import edu.cmu.pdl.metadatabench.slave.progress.Progress;
+
+/**
+ * Holds back the operations that depend on a directory that has not been created yet, until the directory is
+ * created.
+ *
+ * An operation can "overtake" the creation of its parent directory, because the operations are executed
+ * asynchronously by multiple nodes. Instead of repeatedly looking up the parent directory, the operation is
+ * parked in a waiter list of the directory. The namespace map notifies the registry when a directory is stored
+ * by the local node, and the operations waiting for it are released and executed by a separate thread pool.
+ * The operations are dispatched to the owner of the id of their parent directory, which is also the node where
+ * the entry of the parent directory is stored, so a local notification is sufficient.
+ *
+ * An operation whose directory is not created within the timeout (see
+ * {@link edu.cmu.pdl.metadatabench.common.Config#getSlaveParentWaitTimeoutMillis()}) is tried a last time and
+ * then reported as failed (and completed, so that the benchmark can proceed). A parked operation stays in the
+ * queue of the deadlines until its deadline, even if it has been executed before, and is dropped then. Thus the
+ * release of an operation does not have to search the queue of the deadlines.
+ *
+ * @author emil.rakadjiev
+ *
+ */
+public class ParentDirectoryWaiters implements IDirCreationListener {
+
+	/** The time after which an operation that was being released when its deadline passed is checked again */
+	private static final long RECHECK_NANOS = TimeUnit.MILLISECONDS.toNanos(10);
+
+	private final INamespaceMapDAO dao;
+	private final long timeoutNanos;
+	/** The waiting operations by the id of the directory they are waiting for */
+	private final ConcurrentMap<Long,Queue<WaitingOperation>> waiters;
+	/** All the waiting operations (and the executed ones whose deadline has not passed yet) ordered by their deadline */
+	private final DelayQueue<WaitingOperation> deadlines;
+	/** Executes the released operations */
+	private final ExecutorService releasePool;
+	private final Measurements measurements;
+
+	private Logger log;
+
+	/**
+	 * @param dao The DAO used to access the distributed namespace, which notifies the registry about new directories
+	 * @param timeoutMillis The maximum time an operation waits for a directory in milliseconds
+	 */
+	public ParentDirectoryWaiters(INamespaceMapDAO dao, long timeoutMillis){
+		this.dao = dao;
+		this.timeoutNanos = TimeUnit.MILLISECONDS.toNanos(timeoutMillis);
+		this.waiters = new ConcurrentHashMap<Long,Queue<WaitingOperation>>();
+		this.deadlines = new DelayQueue<WaitingOperation>();
+		// daemon threads, so that the pool does not keep the slave alive after it has been shut down
+		this.releasePool = Executors.newFixedThreadPool(Math.max(2, Runtime.getRuntime().availableProcessors()), new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread thread = new Thread(r, "parent-directory-release");
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+		this.measurements = Measurements.getMeasurements();
+		this.log = LoggerFactory.getLogger(ParentDirectoryWaiters.class);
+		Thread timeoutThread = new Thread(new TimeoutHandler(), "parent-directory-timeouts");
+		timeoutThread.setDaemon(true);
+		timeoutThread.start();
+		dao.addLocalDirCreationListener(this);
+	}
+
+	/**
+	 * Executes an operation if the directory it depends on exists, otherwise parks it until the directory is created
+	 *
+	 * @param op The operation to execute
+	 */
+	public void execute(WaitingOperation op){
+		if(!op.tryExecute()){
+			op.deadline = System.nanoTime() + timeoutNanos;
+			deadlines.add(op);
+			park(op);
+		}
+	}
+
+	/**
+	 * Releases the operations waiting for the created directory
+	 */
+	@Override
+	public void dirCreated(long id) {
+		Queue<WaitingOperation> queue = waiters.remove(id);
+		if(queue != null){
+			for(WaitingOperation op : queue){
+				release(op);
+			}
+		}
+	}
+
+	/**
+	 * Adds an operation to the waiter list of its directory. The directory is looked up again after the operation
+	 * has been added, because it might have been created (and the waiters released) in the meantime.
+	 *
+	 * @param op The operation to park
+	 */
+	private void park(WaitingOperation op){
+		op.claimed.set(false);
+		Queue<WaitingOperation> queue = waiters.get(op.dirId);
+		if(queue == null){
+			Queue<WaitingOperation> newQueue = new ConcurrentLinkedQueue<WaitingOperation>();
+			queue = waiters.putIfAbsent(op.dirId, newQueue);
+			if(queue == null){
+				queue = newQueue;
+			}
+		}
+		queue.add(op);
+		if(dao.getDir(op.dirId) != null){
+			dirCreated(op.dirId);
+			// the waiter list might have been removed before the operation was added to it
+			release(op);
+		}
+	}
+
+	/**
+	 * Executes a released operation in the release thread pool, unless it has already been released or timed out.
+	 * If the directory is still not found, the operation is parked again, otherwise it is marked as executed, so 
+	 * that it is dropped when its deadline has passed.
+	 *
+	 * @param op The released operation
+	 */
+	private void release(final WaitingOperation op){
+		if(op.claimed.compareAndSet(false, true)){
+			releasePool.execute(new Runnable(){
+				@Override
+				public void run() {
+					if(op.tryExecute()){
+						op.executed = true;
+					} else {
+						park(op);
+					}
+				}
+			});
+		}
+	}
+
+	/**
+	 * Handles the operations whose deadline has passed: tries to execute them a last time and reports them as failed
+	 * if the directory is still not found. The operations that have been executed in the meantime are dropped. An 
+	 * operation that is just being released is checked again shortly, because it might be parked again.
+	 */
+	private class TimeoutHandler implements Runnable {
+
+		@Override
+		public void run() {
+			while(true){
+				WaitingOperation op;
+				try {
+					op = deadlines.take();
+				} catch (InterruptedException e) {
+					log.warn("Thread was interrupted while waiting for the timeout of an operation", e);
+					return;
+				}
+				if(op.executed){
+					// executed after its release, nothing to do
+					continue;
+				}
+				if(op.claimed.compareAndSet(false, true)){
+					Queue<WaitingOperation> queue = waiters.get(op.dirId);
+					if(queue != null){
+						queue.remove(op);
+					}
+					if(!op.tryExecute()){
+						log.warn("Directory {} was not found within the timeout, {} operation failed", op.dirId, op.type.getName());
+						measurements.reportException(op.type, TimeoutException.class.getName());
+						Progress.reportCompletedOperation();
+					}
+				} else {
+					// being released, it is either executed or parked again
+					op.deadline = System.nanoTime() + RECHECK_NANOS;
+					deadlines.add(op);
+				}
+			}
+		}
+
+	}
+
+	/**
+	 * An operation that can only be executed if a given directory exists
+	 */
+	public static abstract class WaitingOperation implements Delayed {
+
+		private final FileSystemOperationType type;
+		private final long dirId;
+		/** The time (System.nanoTime()) when the operation times out */
+		private volatile long deadline;
+		/** Set by the thread that releases the operation or times it out, so that it is only handled once */
+		private final AtomicBoolean claimed = new AtomicBoolean();
+		/** Set when the operation has been executed after its release */
+		private volatile boolean executed;
+
+		/**
+		 * @param type The type of the operation
+		 * @param dirId The id of the directory the operation depends on
+		 */
+		public WaitingOperation(FileSystemOperationType type, long dirId){
+			this.type = type;
+			this.dirId = dirId;
+		}
+
+		/**
+		 * Tries to execute the operation
+		 *
+		 * @return True if the operation has been executed, false if the directory it depends on does not exist yet
+		 */
+		protected abstract boolean tryExecute();
+
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+
+		@Override
+		public int compareTo(Delayed other) {
+			long diff = deadline - ((WaitingOperation)other).deadline;
+			return (diff < 0) ? -1 : ((diff > 0) ? 1 : 0);
+		}
+
+	}
+
+}
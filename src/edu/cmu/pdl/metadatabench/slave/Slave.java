@@ -8,13 +8,16 @@ import org.slf4j.LoggerFactory;
 import com.hazelcast.core.HazelcastInstance;
 
 import edu.cmu.pdl.metadatabench.cluster.HazelcastCluster;
-import edu.cmu.pdl.metadatabench.cluster.HazelcastMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.INamespaceMapDAO;
+import edu.cmu.pdl.metadatabench.cluster.NamespaceMapDAOFactory;
 import edu.cmu.pdl.metadatabench.cluster.communication.HazelcastDispatcher;
 import edu.cmu.pdl.metadatabench.common.Config;
 import edu.cmu.pdl.metadatabench.measurement.Measurements;
+import edu.cmu.pdl.metadatabench.measurement.OneMeasurementHdrHistogram;
 import edu.cmu.pdl.metadatabench.measurement.OneMeasurementHistogram;
 import edu.cmu.pdl.metadatabench.measurement.OneMeasurementTimeSeries;
 import edu.cmu.pdl.metadatabench.slave.fs.HDFSClient;
+import edu.cmu.pdl.metadatabench.slave.fs.IFileSystemClient;
 import edu.cmu.pdl.metadatabench.slave.progress.ProgressReporter;
 
 /**
@@ -31,6 +34,7 @@ public class Slave{
 
 	private static OperationExecutor executor;
 	private static OperationHandler handler;
+	private static NamespaceLoader loader;
 	
 	private static Logger log = LoggerFactory.getLogger(Slave.class);
 	
@@ -45,7 +49,10 @@ public class Slave{
 		Properties props = new Properties();
 		String warmUp = String.valueOf(Config.getMeasurementWarmUpTime());
 		props.setProperty(Measurements.MEASUREMENT_WARM_UP, warmUp);
-		if(Config.isMeasurementHistogram()){
+		if(Config.isMeasurementHdrHistogram()){
+			props.setProperty(Measurements.MEASUREMENT_TYPE, Measurements.MEASUREMENT_TYPE_HDR_HISTOGRAM);
+			props.setProperty(OneMeasurementHdrHistogram.SIGNIFICANT_DIGITS, String.valueOf(Config.getMeasurementHdrHistogramDigits()));
+		} else if(Config.isMeasurementHistogram()){
 			props.setProperty(Measurements.MEASUREMENT_TYPE, Measurements.MEASUREMENT_TYPE_HISTOGRAM);
 			props.setProperty(OneMeasurementHistogram.BUCKETS, String.valueOf(Config.getMeasurementHistogramBuckets()));
 		} else {
@@ -56,9 +63,12 @@ public class Slave{
 		Measurements.setProperties(props);
 		
 		int threads = Config.getSlaveThreadPoolSize();
-		executor = new OperationExecutor(new HDFSClient(fileSystemAddress), threads);
-//		executor = new OperationExecutor(new DummyClient(), threads);
-		handler = new OperationHandler(executor, new HazelcastMapDAO(hazelcast));
+		IFileSystemClient client = new HDFSClient(fileSystemAddress);
+//		IFileSystemClient client = new DummyClient();
+		INamespaceMapDAO dao = NamespaceMapDAOFactory.create(hazelcast);
+		executor = new OperationExecutor(client, threads);
+		handler = new OperationHandler(executor, dao);
+		loader = new NamespaceLoader(client, dao, hazelcast.getPartitionService());
 		
 		long reportFrequency = Config.getSlaveProgressReportFrequencyMillis();
 		
@@ -73,6 +83,14 @@ public class Slave{
 		return handler;
 	}
 	
+	/**
+	 * Gets the namespace loader
+	 * @return The namespace loader
+	 */
+	public static NamespaceLoader getNamespaceLoader(){
+		return loader;
+	}
+	
 	/**
 	 * Gets the operation executor
 	 * @return The operation executor
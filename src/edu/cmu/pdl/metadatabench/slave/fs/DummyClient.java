@@ -1,6 +1,7 @@
 package edu.cmu.pdl.metadatabench.slave.fs;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * A dummy file system client used for testing purposes. It does not access any file system, 
@@ -16,51 +17,56 @@ public class DummyClient implements IFileSystemClient {
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int create(String path) throws IOException {
+	public long create(String path) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int delete(String path) throws IOException {
+	public long delete(String path) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int listStatus(String path) throws IOException {
+	public long listStatus(String path) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int mkdir(String path) throws IOException {
+	public long mkdir(String path) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int open(String path) throws IOException {
+	public long open(String path) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int rename(String fromPath, String toPath) throws IOException {
+	public long rename(String fromPath, String toPath) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
 	/** Doesn't do anything, just returns 0. */
 	@Override
-	public int move(String fromPath, String toPath) throws IOException {
+	public long move(String fromPath, String toPath) throws IOException {
 		// TODO Auto-generated method stub
 		return 0;
 	}
 
+	/** Doesn't do anything, the directory is empty. */
+	@Override
+	public void listChildren(String path, List<String> dirNames, List<String> fileNames) throws IOException {
+	}
+
 }
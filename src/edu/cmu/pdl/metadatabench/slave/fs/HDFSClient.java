@@ -3,12 +3,15 @@ package edu.cmu.pdl.metadatabench.slave.fs;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.EnumSet;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.CreateFlag;
 import org.apache.hadoop.fs.FSDataOutputStream;
 import org.apache.hadoop.fs.FileContext;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
 import org.slf4j.LoggerFactory;
 
 /**
@@ -38,71 +41,87 @@ public class HDFSClient implements IFileSystemClient {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int create(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long create(String path) throws IOException{
+		long startTime = System.nanoTime();
 		FSDataOutputStream out = fileContext.create(new Path(path), EnumSet.of(CreateFlag.CREATE, CreateFlag.OVERWRITE));
 		out.close();
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int delete(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long delete(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileContext.delete(new Path(path), true);
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int listStatus(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long listStatus(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileContext.listStatus(new Path(path));
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int mkdir(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long mkdir(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileContext.mkdir(new Path(path), FileContext.DEFAULT_PERM, true);
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int open(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long open(String path) throws IOException{
+		long startTime = System.nanoTime();
 		InputStream in = fileContext.open(new Path(path));
 		in.close();
-	    return (int)(System.currentTimeMillis()-startTime);
+	    return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int rename(String fromPath, String toPath) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long rename(String fromPath, String toPath) throws IOException{
+		long startTime = System.nanoTime();
 		fileContext.rename(new Path(fromPath), new Path(toPath));
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int move(String fromPath, String toPath) throws IOException {
+	public long move(String fromPath, String toPath) throws IOException {
 		// HDFS has no explicit move operation
 		return rename(fromPath, toPath);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void listChildren(String path, List<String> dirNames, List<String> fileNames) throws IOException {
+		RemoteIterator<FileStatus> children = fileContext.listStatus(new Path(path));
+		while(children.hasNext()){
+			FileStatus child = children.next();
+			if(child.isDirectory()){
+				dirNames.add(child.getPath().getName());
+			} else {
+				fileNames.add(child.getPath().getName());
+			}
+		}
+	}
+
 }
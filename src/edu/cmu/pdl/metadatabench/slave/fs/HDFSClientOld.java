@@ -2,9 +2,11 @@ package edu.cmu.pdl.metadatabench.slave.fs;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.List;
 
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataOutputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.slf4j.LoggerFactory;
@@ -37,71 +39,85 @@ public class HDFSClientOld implements IFileSystemClient {
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int create(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long create(String path) throws IOException{
+		long startTime = System.nanoTime();
 		FSDataOutputStream out = fileSystem.create(new Path(path), true);
 		out.close();
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 	
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int delete(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long delete(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileSystem.delete(new Path(path), true);
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int listStatus(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long listStatus(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileSystem.listStatus(new Path(path));
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int mkdir(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long mkdir(String path) throws IOException{
+		long startTime = System.nanoTime();
 		fileSystem.mkdirs(new Path(path));
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int open(String path) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long open(String path) throws IOException{
+		long startTime = System.nanoTime();
 		InputStream in = fileSystem.open(new Path(path));
 		in.close();
-	    return (int)(System.currentTimeMillis()-startTime);
+	    return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int rename(String fromPath, String toPath) throws IOException{
-		long startTime = System.currentTimeMillis();
+	public long rename(String fromPath, String toPath) throws IOException{
+		long startTime = System.nanoTime();
 		fileSystem.rename(new Path(fromPath), new Path(toPath));
-		return (int)(System.currentTimeMillis()-startTime);
+		return System.nanoTime()-startTime;
 	}
 
 	/**
 	 * {@inheritDoc}
 	 */
 	@Override
-	public int move(String fromPath, String toPath) throws IOException {
+	public long move(String fromPath, String toPath) throws IOException {
 		// HDFS has no explicit move operation
 		return rename(fromPath, toPath);
 	}
 
+	/**
+	 * {@inheritDoc}
+	 */
+	@Override
+	public void listChildren(String path, List<String> dirNames, List<String> fileNames) throws IOException {
+		for(FileStatus child : fileSystem.listStatus(new Path(path))){
+			if(child.isDirectory()){
+				dirNames.add(child.getPath().getName());
+			} else {
+				fileNames.add(child.getPath().getName());
+			}
+		}
+	}
+
 }
@@ -1,9 +1,12 @@
 package edu.cmu.pdl.metadatabench.slave.fs;
 
 import java.io.IOException;
+import java.util.List;
 
 /**
  * Client providing access to the underlying file system.
+ * The operations return their latencies in nanoseconds, measured using {@link System#nanoTime()}, so that 
+ * sub-millisecond operations of fast metadata servers can be distinguished.
  * 
  * @author emil.rakadjiev
  *
@@ -12,60 +15,70 @@ public interface IFileSystemClient {
 	/**
 	 * Creates a file in the underlying file system.
 	 * @param path The path of the new file to create
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed
 	 */
-	public int create(String path) throws IOException;
+	public long create(String path) throws IOException;
 	
 	/**
 	 * Deletes a directory or file in the underlying file system.
 	 * 
 	 * @param path The path of the directory or file to delete
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed, for example the directory or file is not found
 	 */
-	public int delete(String path) throws IOException;
+	public long delete(String path) throws IOException;
 	
 	/**
 	 * Lists the status of a directory or file in the underlying file system.
 	 * @param path The path of the directory or file
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed, for example the directory or file is not found
 	 */
-	public int listStatus(String path) throws IOException;
+	public long listStatus(String path) throws IOException;
 	
 	/**
 	 * Creates a directory in the underlying file system.
 	 * @param path The path of the new directory to create
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed
 	 */
-	public int mkdir(String path) throws IOException;
+	public long mkdir(String path) throws IOException;
 	
 	/**
 	 * Opens a file in the underlying file system.
 	 * @param path The path of the directory or file
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed, for example the file is not found
 	 */
-	public int open(String path) throws IOException;
+	public long open(String path) throws IOException;
 	
 	/**
 	 * Renames a directory or file in the underlying file system.
 	 * @param fromPath The existing path of the directory or file
 	 * @param toPath The new path of the directory or file
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed, for example the file is not found
 	 */
-	public int rename(String fromPath, String toPath) throws IOException;
+	public long rename(String fromPath, String toPath) throws IOException;
 	
 	/**
 	 * Moves a directory or file in the underlying file system.
 	 * @param fromPath The existing path of the directory or file
 	 * @param toPath The new path of the directory or file
-	 * @return The latency of the operation
+	 * @return The latency of the operation in nanoseconds
 	 * @throws IOException If the operation could not be executed, for example the file is not found
 	 */
-	public int move(String fromPath, String toPath) throws IOException;
+	public long move(String fromPath, String toPath) throws IOException;
+	
+	/**
+	 * Lists the names of the subdirectories and files of a directory in the underlying file system. Used to load 
+	 * an existing namespace, not measured.
+	 * @param path The path of the directory
+	 * @param dirNames The names of the subdirectories are added to this list
+	 * @param fileNames The names of the files are added to this list
+	 * @throws IOException If the operation could not be executed, for example the directory is not found
+	 */
+	public void listChildren(String path, List<String> dirNames, List<String> fileNames) throws IOException;
 	
 }
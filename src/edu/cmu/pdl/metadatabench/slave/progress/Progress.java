@@ -5,21 +5,87 @@ import java.util.concurrent.atomic.AtomicLong;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import edu.cmu.pdl.metadatabench.common.Config;
+
 /**
- * Tracks the progress of the node, that is, the number of executed operations.
+ * Tracks the progress of the node, that is, the number of received and executed operations. 
+ * 
+ * The executed operations are the credits that the node returns to the master. When a batch of operations 
+ * has been executed, the {@link ProgressReporter} is woken up to report them without delay. When all received 
+ * operations have been executed, they are reported as well, but at most once per {@link #IDLE_REPORT_INTERVAL_MILLIS}, 
+ * because the node is idle after each operation if the master sends them one by one.
+ * 
  * @author emil.rakadjiev
  *
  */
 public class Progress {
 
+	/** @see edu.cmu.pdl.metadatabench.common.Config#getSlaveCreditBatch() */
+	private static final int CREDIT_BATCH = Config.getSlaveCreditBatch();
+	/** The minimum time between the last report and a report sent because all received operations have been executed */
+	private static final long IDLE_REPORT_INTERVAL_MILLIS = 10;
+	
 	private static AtomicLong ops = new AtomicLong();
+	private static AtomicLong receivedOps = new AtomicLong();
+	/** The generation phase, in which the operations are counted */
+	private static volatile int phase;
+	/** Notified when there are operations that should be reported */
+	private static final Object reportLock = new Object();
 	private static Logger log = LoggerFactory.getLogger(Progress.class);
 	
+	/**
+	 * Reports operations received from the master
+	 * @param operations The number of received operations
+	 */
+	public static void reportReceivedOperations(int operations){
+		receivedOps.addAndGet(operations);
+	}
+	
 	/**
 	 * Reports one completed operation
 	 */
 	public static void reportCompletedOperation(){
-		ops.incrementAndGet();
+		long done = ops.incrementAndGet();
+		if((done % CREDIT_BATCH == 0) || (done == receivedOps.get())){
+			synchronized(reportLock){
+				reportLock.notifyAll();
+			}
+		}
+	}
+	
+	/**
+	 * Blocks until a batch of operations has been executed since the last report, all received operations 
+	 * have been executed (and the idle report interval has elapsed since the last report), the phase has 
+	 * changed or the timeout has elapsed, whichever comes first.
+	 * 
+	 * @param reportedPhase The phase of the operations reported so far
+	 * @param reportedOps The number of operations reported so far
+	 * @param lastReportMillis The time of the last report
+	 * @param timeoutMillis The maximum time to wait
+	 * @throws InterruptedException If the current thread has been interrupted while waiting
+	 */
+	public static void awaitReport(int reportedPhase, long reportedOps, long lastReportMillis, long timeoutMillis) throws InterruptedException{
+		synchronized(reportLock){
+			long now = System.currentTimeMillis();
+			long deadline = now + timeoutMillis;
+			while((phase == reportedPhase) && (now < deadline)){
+				long done = ops.get();
+				if(done - reportedOps >= CREDIT_BATCH){
+					return;
+				}
+				long waitMillis = deadline - now;
+				if((done > reportedOps) && (done >= receivedOps.get())){
+					// idle, report unless a report has just been sent
+					long idleDelay = lastReportMillis + IDLE_REPORT_INTERVAL_MILLIS - now;
+					if(idleDelay <= 0){
+						return;
+					}
+					waitMillis = Math.min(waitMillis, idleDelay);
+				}
+				reportLock.wait(waitMillis);
+				now = System.currentTimeMillis();
+			}
+		}
 	}
 	
 	/**
@@ -31,11 +97,27 @@ public class Progress {
 	}
 	
 	/**
-	 * Resets the progress data
+	 * Gets the generation phase, in which the operations are counted. If the phase read before and after 
+	 * {@link #getOperationsDone()} is the same, then the number of operations belongs to this phase.
+	 * @return The generation phase
+	 */
+	public static int getPhase(){
+		return phase;
+	}
+	
+	/**
+	 * Resets the progress data and starts counting the operations of the next phase
+	 * @param nextPhase The next generation phase
 	 */
-	public static void reset(){
+	public static void reset(int nextPhase){
 		log.info("All operations done");
+		// the counters are reset before the phase is changed, so that the new phase is never seen with an old count
+		receivedOps.set(0L);
 		ops.set(0L);
+		phase = nextPhase;
+		synchronized(reportLock){
+			reportLock.notifyAll();
+		}
 	}
 	
 }
@@ -7,7 +7,11 @@ import edu.cmu.pdl.metadatabench.cluster.communication.IDispatcher;
 import edu.cmu.pdl.metadatabench.cluster.communication.messages.ProgressReport;
 
 /**
- * Periodically reports the progress of this node, that is, the number of executed operations, to the master.
+ * Reports the progress of this node, that is, the number of executed operations, to the master. Each report 
+ * returns the credits for the executed operations, which allows the master to generate further operations. 
+ * A report is sent as soon as a batch of operations has been executed or (rate-limited) the node has executed 
+ * all received operations, and at the latest after the report frequency has elapsed.
+ * 
  * @author emil.rakadjiev
  *
  */
@@ -17,6 +21,8 @@ public class ProgressReporter implements Runnable {
 	private static IDispatcher dispatcher;
 	private static long reportFrequencyMillis;
 	private static long lastReportedNumber;
+	private static int lastReportedPhase;
+	private static long lastReportMillis;
 	
 	private static volatile boolean stopFlag = false;
 	
@@ -25,41 +31,42 @@ public class ProgressReporter implements Runnable {
 	/**
 	 * @param nodeId The id of this node
 	 * @param dispatcher The dispatcher to use for sending messages to the master
-	 * @param reportFrequencyMillis The frequency with which to report the progress to the master
+	 * @param reportFrequencyMillis The maximum time after which executed operations are reported to the master
 	 */
 	public ProgressReporter(int nodeId, IDispatcher dispatcher, long reportFrequencyMillis) {
 		ProgressReporter.id = nodeId;
 		ProgressReporter.dispatcher = dispatcher;
 		ProgressReporter.reportFrequencyMillis = reportFrequencyMillis;
 		ProgressReporter.lastReportedNumber = 0;
+		ProgressReporter.lastReportedPhase = 0;
+		ProgressReporter.lastReportMillis = 0;
 		this.log = LoggerFactory.getLogger(ProgressReporter.class);
 	}
 
 	@Override
 	public void run() {
 		while(!stopFlag){
+			int phase = Progress.getPhase();
 			long ops = Progress.getOperationsDone();
-			// if there was progress done since the last report, send a new report
-			if(ops > lastReportedNumber){
-				log.info("{} operations done", ops);
+			if(phase != lastReportedPhase){
+				lastReportedPhase = phase;
+				lastReportedNumber = 0;
+			}
+			// if there was progress done since the last report, send a new report (unless the phase has just ended)
+			if((ops > lastReportedNumber) && (phase == Progress.getPhase())){
+				log.debug("{} operations done", ops);
 				lastReportedNumber = ops;
-				dispatcher.dispatch(new ProgressReport(id, ops));
+				lastReportMillis = System.currentTimeMillis();
+				dispatcher.dispatch(new ProgressReport(id, phase, ops));
 			}
 			try {
-				Thread.sleep(reportFrequencyMillis);
+				Progress.awaitReport(lastReportedPhase, lastReportedNumber, lastReportMillis, reportFrequencyMillis);
 			} catch (InterruptedException e) {
-				log.warn("Thread interrupted while sleeping", e);
+				log.warn("Thread interrupted while waiting for operations to report", e);
 			}
 		}
 	}
 	
-	/**
-	 * Resets the status of the progress reporter
-	 */
-	public static void reset(){
-		lastReportedNumber = 0;
-	}
-	
 	/**
 	 * Stops the progress reporter
 	 */